@@ -1,27 +1,50 @@
 package com.example.sponsorships.controllers;
 
 import com.example.sponsorships.entities.Change;
+import com.example.sponsorships.records.ChangeQuery;
+import com.example.sponsorships.records.ChangeSegment;
+import com.example.sponsorships.records.LoggedChange;
 import com.example.sponsorships.utils.ChangeManager;
+import com.example.sponsorships.utils.PagedChangeList;
+import javafx.animation.AnimationTimer;
 import javafx.beans.property.ReadOnlyStringWrapper;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.concurrent.Task;
 import javafx.fxml.FXML;
+import javafx.scene.control.DatePicker;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
+import javafx.scene.control.TextField;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.function.Function;
+
 /**
  * Kontroler zadužen za prikaz promjena unutar korisničkog sučelja.
  * <p>
- * Dohvaća promjene iz serijalizirane datoteke putem {@link ChangeManager}
+ * Dohvaća promjene iz dnevnika promjena putem {@link ChangeManager}
  * i prikazuje ih u tabličnom prikazu koristeći JavaFX {@link TableView}.
+ * Bez filtera se promjene učitavaju po stranicama od najnovije ({@link PagedChangeList}), a mogu se filtrirati
+ * po korisniku, rasponu datuma i tekstu opisa.
+ * Dok je ekran otvoren, nove promjene stižu preko pretplate na {@link ChangeManager} i dodaju se na vrh tablice,
+ * najviše jednom po iscrtavanju, pa se nalet promjena prikaže jednim osvježavanjem tablice.
  * </p>
  */
 public class ChangesController {
 
     private static final Logger logger = LoggerFactory.getLogger(ChangesController.class);
+    private static final int FEED_REQUEST_SIZE = 256;
+    private static final int MAX_ROWS_PER_FRAME = 1000;
 
     @FXML
     private TableView<Change> changesTableView;
@@ -41,48 +64,200 @@ public class ChangesController {
     @FXML
     private TableColumn<Change, String> newTableColumn;
 
+    @FXML
+    private TextField userTextField;
+
+    @FXML
+    private DatePicker fromDatePicker;
+
+    @FXML
+    private DatePicker toDatePicker;
+
+    @FXML
+    private TextField descriptionTextField;
+
+    private final Queue<LoggedChange> pendingChanges = new ConcurrentLinkedQueue<>();
+    private volatile Flow.Subscription feedSubscription;
+    private AnimationTimer feedTimer;
+    private ChangeQuery currentQuery = ChangeQuery.all();
+    private List<ChangeSegment> loadedSegments = List.of();
+    private boolean loading;
+
+    /**
+     * Učitane promjene zajedno sa stanjem dnevnika iz kojeg su pročitane.
+     *
+     * @param segments segmenti dnevnika u trenutku čitanja
+     * @param changes promjene za prikaz, od najnovije
+     */
+    private record LoadedChanges(List<ChangeSegment> segments, ObservableList<Change> changes) {}
+
     /**
      * Inicijalizacijska metoda koja se poziva automatski nakon učitavanja FXML-a.
-     * Pokreće asinhroni zadatak za dohvat svih promjena i postavlja podatke u tablicu.
+     * Postavlja tablicu, pokreće učitavanje promjena bez filtera i pretplatu na nove promjene.
      */
     @FXML
     public void initialize() {
-        Task<ObservableList<Change>> loadChangesTask = new Task<>() {
+        setupTable();
+        loadChanges(ChangeQuery.all());
+        startLiveFeed();
+    }
+
+    /**
+     * Učitava promjene koje zadovoljavaju uvjete iz polja za filtriranje.
+     */
+    @FXML
+    public void applyFilter() {
+        LocalDate from = fromDatePicker.getValue();
+        LocalDate to = toDatePicker.getValue();
+        loadChanges(new ChangeQuery(
+                blankToNull(userTextField.getText()),
+                from == null ? null : from.atStartOfDay(),
+                to == null ? null : to.atTime(LocalDateTime.MAX.toLocalTime()),
+                blankToNull(descriptionTextField.getText())));
+    }
+
+    /**
+     * Briše uvjete filtriranja i ponovno učitava sve promjene.
+     */
+    @FXML
+    public void clearFilter() {
+        userTextField.clear();
+        fromDatePicker.setValue(null);
+        toDatePicker.setValue(null);
+        descriptionTextField.clear();
+        loadChanges(ChangeQuery.all());
+    }
+
+    /**
+     * Pokreće asinhroni zadatak koji pretražuje dnevnik promjena i postavlja rezultat u tablicu, od najnovije promjene.
+     * Promjene koje preko pretplate stignu, a već su sadržane u učitanom rezultatu, se odbacuju.
+     *
+     * @param query uvjeti pretraživanja
+     */
+    private void loadChanges(ChangeQuery query) {
+        currentQuery = query;
+        loading = true;
+        pendingChanges.clear();
+        Task<LoadedChanges> loadChangesTask = new Task<>() {
             @Override
-            protected ObservableList<Change> call() {
-                return FXCollections.observableArrayList(ChangeManager.loadUserActions());
+            protected LoadedChanges call() {
+                List<ChangeSegment> segments = ChangeManager.getSegments();
+                if (query.equals(ChangeQuery.all())) return new LoadedChanges(segments, PagedChangeList.ofSegments(segments));
+                List<Change> changes = ChangeManager.queryChanges(query, segments);
+                Collections.reverse(changes);
+                return new LoadedChanges(segments, FXCollections.observableArrayList(changes));
             }
         };
 
         loadChangesTask.setOnSucceeded(event -> {
-            changesTableView.setItems(loadChangesTask.getValue());
+            if (query != currentQuery) return;
+            loading = false;
+            loadedSegments = loadChangesTask.getValue().segments();
+            pendingChanges.removeIf(change -> change.isIncludedIn(loadedSegments));
+            changesTableView.setItems(loadChangesTask.getValue().changes());
             logger.info("Changes loaded successfully.");
         });
 
-        loadChangesTask.setOnFailed(event ->
-                logger.error("Error loading changes: {}", loadChangesTask.getException().getMessage())
-        );
+        loadChangesTask.setOnFailed(event -> {
+            if (query == currentQuery) loading = false;
+            logger.error("Error loading changes: {}", loadChangesTask.getException().getMessage());
+        });
 
-        setupTable();
         Thread thread = new Thread(loadChangesTask);
         thread.setDaemon(true);
         thread.start();
     }
 
+    /**
+     * Pretplaćuje ekran na nove promjene i pokreće mjerač koji ih pri svakom iscrtavanju dodaje u tablicu.
+     * Pretplata se otkazuje kada se ekran zamijeni drugim.
+     */
+    private void startLiveFeed() {
+        feedTimer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                showPendingChanges();
+            }
+        };
+        feedTimer.start();
+        ChangeManager.subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                feedSubscription = subscription;
+                subscription.request(FEED_REQUEST_SIZE);
+            }
+
+            @Override
+            public void onNext(LoggedChange change) {
+                pendingChanges.add(change);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                logger.error("Error in change feed: {}", throwable.getMessage());
+            }
+
+            @Override
+            public void onComplete() {
+                logger.debug("Change feed completed.");
+            }
+        });
+        changesTableView.sceneProperty().addListener((obs, oldScene, scene) -> {
+            if (scene != null) {
+                scene.windowProperty().addListener((o, oldWindow, window) -> {
+                    if (window == null) stopLiveFeed();
+                });
+            }
+        });
+    }
+
+    private void stopLiveFeed() {
+        feedTimer.stop();
+        if (feedSubscription != null) feedSubscription.cancel();
+        pendingChanges.clear();
+    }
+
+    /**
+     * Dodaje na vrh tablice promjene pristigle od prethodnog iscrtavanja koje zadovoljavaju trenutni filter, a nisu
+     * već bile u učitanom rezultatu, i od pretplate zahtijeva onoliko novih promjena koliko ih je preuzeto.
+     */
+    private void showPendingChanges() {
+        if (loading || pendingChanges.isEmpty()) return;
+        List<Change> batch = new ArrayList<>();
+        int taken = 0;
+        LoggedChange logged;
+        while (taken < MAX_ROWS_PER_FRAME && (logged = pendingChanges.poll()) != null) {
+            taken++;
+            if (!logged.isIncludedIn(loadedSegments) && currentQuery.matches(logged.change())) batch.add(logged.change());
+        }
+        ObservableList<Change> items = changesTableView.getItems();
+        if (items instanceof PagedChangeList paged) {
+            paged.prependAll(batch);
+        } else if (!batch.isEmpty()) {
+            Collections.reverse(batch);
+            items.addAll(0, batch);
+        }
+        if (feedSubscription != null) feedSubscription.request(taken);
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
     /**
      * Povezuje stupce tablice s odgovarajućim atributima objekta {@link Change}
      * korištenjem {@link ReadOnlyStringWrapper} kako bi se prikazao tekst u sučelju.
+     * Redovi čija se promjena još učitava prikazuju se prazni.
      */
     public void setupTable() {
-        changeTableColumn.setCellValueFactory(cellData ->
-                new ReadOnlyStringWrapper(cellData.getValue().getDescription()));
-        dateTableColumn.setCellValueFactory(cellData ->
-                new ReadOnlyStringWrapper(cellData.getValue().getTimestamp().toString()));
-        userTableColumn.setCellValueFactory(cellData ->
-                new ReadOnlyStringWrapper(cellData.getValue().getUser()));
-        oldTableColumn.setCellValueFactory(cellData ->
-                new ReadOnlyStringWrapper(cellData.getValue().getOldValue()));
-        newTableColumn.setCellValueFactory(cellData ->
-                new ReadOnlyStringWrapper(cellData.getValue().getNewValue()));
+        changeTableColumn.setCellValueFactory(cellData -> text(cellData.getValue(), Change::getDescription));
+        dateTableColumn.setCellValueFactory(cellData -> text(cellData.getValue(), c -> String.valueOf(c.getTimestamp())));
+        userTableColumn.setCellValueFactory(cellData -> text(cellData.getValue(), Change::getUser));
+        oldTableColumn.setCellValueFactory(cellData -> text(cellData.getValue(), Change::getOldValue));
+        newTableColumn.setCellValueFactory(cellData -> text(cellData.getValue(), Change::getNewValue));
+    }
+
+    private static ReadOnlyStringWrapper text(Change change, Function<Change, String> attribute) {
+        return new ReadOnlyStringWrapper(change == null ? "" : attribute.apply(change));
     }
 }
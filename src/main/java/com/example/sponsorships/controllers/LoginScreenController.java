@@ -1,5 +1,6 @@
 package com.example.sponsorships.controllers;
 
+import com.example.sponsorships.exceptions.NoSuchUserException;
 import com.example.sponsorships.main.Main;
 import com.example.sponsorships.records.User;
 import com.example.sponsorships.utils.FileUtils;
@@ -44,24 +45,29 @@ public class LoginScreenController {
      * U slučaju neuspjeha, ispisuje se poruka o neuspješnoj prijavi.
      */
     public void login() {
-        if (FileUtils.checkUser(usernameTextField.getText(), passwordPasswordField.getText())) {
-            try {
-                FXMLLoader fxmlLoader = new FXMLLoader(Main.class.getResource("/com/example/sponsorships/statisticsScreen.fxml"));
-                Scene scene = new Scene(fxmlLoader.load(), 950, 650);
-
-                Stage stage = Main.getMainStage();
-                stage.setTitle("Home screen");
-                stage.setScene(scene);
-                stage.show();
+        User currentUser;
+        try {
+            currentUser = FileUtils.findUser(usernameTextField.getText(), passwordPasswordField.getText());
+        } catch (NoSuchUserException e) {
+            failedLoginLabel.setText("Login failed. please try again.");
+            return;
+        } catch (IOException e) {
+            logger.error("Korisnik nije provjeren jer spremište korisnika nije dostupno.", e);
+            failedLoginLabel.setText("Login is currently unavailable. Please try again later.");
+            return;
+        }
+        try {
+            Session.createSession(currentUser);
+            FXMLLoader fxmlLoader = new FXMLLoader(Main.class.getResource("/com/example/sponsorships/statisticsScreen.fxml"));
+            Scene scene = new Scene(fxmlLoader.load(), 950, 650);
 
-                User currentUser = FileUtils.findUser(usernameTextField.getText(), passwordPasswordField.getText());
-                Session.createSession(currentUser);
+            Stage stage = Main.getMainStage();
+            stage.setTitle("Home screen");
+            stage.setScene(scene);
+            stage.show();
 
-            } catch (IOException e) {
-                logger.error(e.getMessage());
-            }
-        } else {
-            failedLoginLabel.setText("Login failed. please try again.");
+        } catch (IOException e) {
+            logger.error(e.getMessage());
         }
     }
 
@@ -4,7 +4,9 @@ import com.example.sponsorships.entities.Change;
 import com.example.sponsorships.entities.DataExportUtil;
 import com.example.sponsorships.entities.Program;
 import com.example.sponsorships.entities.Sponsor;
+import com.example.sponsorships.enums.SORT_ORDER;
 import com.example.sponsorships.exceptions.ItemAlreadyExistsException;
+import com.example.sponsorships.records.Page;
 import com.example.sponsorships.utils.*;
 import javafx.animation.KeyFrame;
 import javafx.animation.Timeline;
@@ -17,7 +19,13 @@ import javafx.util.Duration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 /**
@@ -45,19 +53,34 @@ public class ProgramsScreenController {
     @FXML Button saveButton;
     @FXML Label errorLabel;
 
+    private static final int PAGE_SIZE = 100;
     private ObservableList<Program> programsObsList;
     private Program editingProgram;
+    private Long nextProgramKey;
+    private boolean hasMorePrograms;
+    private boolean loadingPrograms;
+    private long reloadGeneration;
     private static final Logger logger = LoggerFactory.getLogger(ProgramsScreenController.class);
 
     /**
-     * Inicijalizira kontroler: učitava programe i sponzore,
+     * Inicijalizira kontroler: učitava prvu stranicu programa i sponzore,
      * postavlja filtere, tablicu i raspoređuje periodično osvježavanje.
+     * Sljedeće stranice programa dohvaćaju se kada korisnik pomakne tablicu do kraja.
+     * Podaci se učitavaju u pozadini, a do tada tablica prikazuje poruku o učitavanju.
      */
     public void initialize() {
-        programsObsList = FXCollections.observableList(DatabaseUtils.loadPrograms());
-        sponsorCB.setItems(FXCollections.observableList(DatabaseUtils.loadSponsors()));
+        programsObsList = FXCollections.observableArrayList();
         filterCB.setItems(FXCollections.observableArrayList("Svi", "Aktivni", "Istekli"));
         filterCB.setValue("Svi");
+        reloadPrograms();
+        TableScrollSupport.onScrolledToEnd(tableView, this::loadNextProgramsPage);
+        sponsorCB.setPromptText("Učitavanje...");
+        AsyncDatabase.onFxThread(AsyncDatabase.loadSponsors(),
+                sponsors -> {
+                    sponsorCB.setItems(FXCollections.observableList(sponsors));
+                    sponsorCB.setPromptText(null);
+                },
+                e -> sponsorCB.setPromptText("Greška pri učitavanju"));
         filterCB.setOnAction(e -> applyFilter());
         tableView.setItems(programsObsList);
         setupTable();
@@ -118,16 +141,23 @@ public class ProgramsScreenController {
                     alert.getDialogPane().setContent(daysInput);
                     alert.getButtonTypes().setAll(ButtonType.OK, ButtonType.CANCEL);
                     if (alert.showAndWait().filter(b -> b == ButtonType.OK).isEmpty()) return;
+                    int days;
                     try {
-                        int days = Integer.parseInt(daysInput.getText());
-                        String token = TokenGenerator.generateToken();
-                        DatabaseUtils.requestProgramExtension(program.getId(), days, token);
-                        ChangeManager.addNewChange(new Change("Zahtjev za produljenje " + program.getName(), Session.getSession().getCurrentUser().username(), "", ""));
-                        MailSender.sendHtmlMail(program.getSponsor().getEmail(), "Zahtjev za produljenjem roka.",
-                                EmailTemplateBuilder.buildExtensionEmail(program.getSponsor().getName(), program.getName(), token, days));
-                    } catch (Exception ex) {
+                        days = Integer.parseInt(daysInput.getText());
+                    } catch (NumberFormatException ex) {
                         showErrorAlert("Neispravan unos: " + ex.getMessage());
+                        return;
                     }
+                    String username = Session.getSession().getCurrentUser().username();
+                    AsyncDatabase.onFxThread(AsyncDatabase.call(() -> {
+                        String token = DatabaseUtils.requestProgramExtension(program.getId(), days,
+                                requestId -> TokenGenerator.generateExtensionToken(program.getId(), requestId, days));
+                        if (token == null) throw new IOException("Zahtjev za produženje nije spremljen.");
+                        ChangeManager.addNewChange(new Change("Zahtjev za produljenje " + program.getName(), username, "", ""));
+                        MailSender.sendHtmlMail(program.getSponsor().getEmail(), "Zahtjev za produljenjem roka.",
+                                EmailTemplateBuilder.buildExtensionEmail(program.getSponsor().getName(), program.getName(), token, days));
+                        return null;
+                    }), ignored -> { }, ex -> showErrorAlert("Zahtjev nije poslan: " + ex.getMessage()));
                 });
                 setGraphic(btn);
             }
@@ -141,14 +171,17 @@ public class ProgramsScreenController {
     public void addNewProgram() {
         if (!fieldCheck()) { errorLabel.setVisible(true); return; }
         if (!showConfirmation("Dodavanje programa", "Dodati novi program?")) return;
-        try {
-            DatabaseUtils.insertProgram(nameTextField.getText(), sponsorCB.getValue().getId(), 200.00,
-                    descriptionTextArea.getText(), startDatePicker.getValue(), endDatePicker.getValue());
-        } catch (ItemAlreadyExistsException e) {
-            logger.error(e.getMessage());
-            errorLabel.setText("A program with this name already exists.");
-        }
-        refreshTable(); clearData();
+        AsyncDatabase.onFxThread(AsyncDatabase.insertProgram(nameTextField.getText(), sponsorCB.getValue().getId(), 200.00,
+                        descriptionTextArea.getText(), startDatePicker.getValue(), endDatePicker.getValue()),
+                ignored -> refreshTable(),
+                e -> {
+                    logger.error(e.getMessage());
+                    errorLabel.setText(e instanceof ItemAlreadyExistsException
+                            ? "A program with this name already exists."
+                            : "The program could not be saved.");
+                    errorLabel.setVisible(true);
+                });
+        clearData();
     }
 
     /**
@@ -156,18 +189,32 @@ public class ProgramsScreenController {
      */
     public void exportPrograms(){
         DataExportUtil<Program> dataExportUtil = new DataExportUtil<>();
-        boolean success = dataExportUtil.exportToCSV(DatabaseUtils.loadPrograms(), "files/programs.csv");
+        AsyncDatabase.onFxThread(AsyncDatabase.call(() -> {
+            try (Stream<Program> programs = DatabaseUtils.streamPrograms()) {
+                return dataExportUtil.exportToCSV(programs, "files/programs.csv");
+            }
+        }), this::showExportResult, e -> showExportResult(false));
+    }
+
+    /**
+     * Prikazuje korisniku ishod izvoza u CSV datoteku.
+     *
+     * @param success je li izvoz uspio
+     */
+    private void showExportResult(boolean success) {
         if(!success){
             Alert alert = new Alert(Alert.AlertType.ERROR);
             alert.setTitle("Neuspješan izvor u CSV datoteku.");
             alert.setHeaderText("Došlo je do pogreške pri izvozu podataka u CSV datoteku.");
             alert.getButtonTypes().setAll(ButtonType.OK);
+            alert.show();
         }
         else{
             Alert alert = new Alert(Alert.AlertType.INFORMATION);
             alert.setTitle("Uspješan izvoz");
             alert.setHeaderText("Podaci o programima su uspješno izvezeni u CSV datoteku programs.csv");
             alert.getButtonTypes().setAll(ButtonType.OK);
+            alert.show();
         }
     }
 
@@ -181,9 +228,13 @@ public class ProgramsScreenController {
         Program updated = new Program(editingProgram.getId(), nameTextField.getText(), sponsorCB.getValue(),
                 editingProgram.getDailyAmount(), descriptionTextArea.getText(),
                 startDatePicker.getValue(), endDatePicker.getValue());
-        DatabaseUtils.updateProgram(updated);
-        ChangeManager.addNewChange(new Change("Uređen program " + editingProgram.getName(), Session.getSession().getCurrentUser().username(), editingProgram.toString(), updated.toString()));
-        refreshTable(); clearEditMode();
+        Change change = new Change("Uređen program " + editingProgram.getName(), Session.getSession().getCurrentUser().username(), editingProgram.toString(), updated.toString());
+        AsyncDatabase.onFxThread(AsyncDatabase.updateProgram(updated), ignored -> {
+                    ChangeManager.addNewChange(change);
+                    refreshTable();
+                },
+                e -> showErrorAlert("Izmjene nisu spremljene: " + e.getMessage()));
+        clearEditMode();
     }
 
     /**
@@ -193,25 +244,93 @@ public class ProgramsScreenController {
      */
     private void deleteProgram(Program program) {
         if (!showConfirmation("Brisanje programa", "Izbrisati program?")) return;
-        DatabaseUtils.deleteById("programs", program.getId());
-        ChangeManager.addNewChange(new Change("Izbrisan program " + program.getName(), Session.getSession().getCurrentUser().username(), program.getName(), ""));
-        programsObsList.remove(program);
-        if (program.equals(editingProgram)) clearEditMode();
+        Change change = new Change("Izbrisan program " + program.getName(), Session.getSession().getCurrentUser().username(), program.getName(), "");
+        AsyncDatabase.onFxThread(AsyncDatabase.deleteById("programs", program.getId()), ignored -> {
+            ChangeManager.addNewChange(change);
+            programsObsList.remove(program);
+            if (program.equals(editingProgram)) clearEditMode();
+        }, e -> showErrorAlert("Program nije izbrisan: " + e.getMessage()));
     }
 
     /**
      * Primjenjuje odabrani filter na listu programa (Svi, Aktivni, Istekli).
      */
     private void applyFilter() {
-        String selected = filterCB.getValue();
-        var allPrograms = FXCollections.observableList(DatabaseUtils.loadPrograms());
-        ObservableList<Program> filtered = switch (selected) {
-            case "Aktivni" -> allPrograms.filtered(p -> !p.getEndDate().isBefore(java.time.LocalDate.now()));
-            case "Istekli" -> allPrograms.filtered(p -> p.getEndDate().isBefore(java.time.LocalDate.now()));
-            default -> allPrograms;
+        reloadPrograms();
+    }
+
+    /**
+     * Vraća uvjet koji odgovara odabranom filteru.
+     *
+     * @return uvjet za odabrani filter
+     */
+    private Predicate<Program> selectedFilter() {
+        String selected = filterCB.getValue() == null ? "Svi" : filterCB.getValue();
+        return switch (selected) {
+            case "Aktivni" -> p -> !p.getEndDate().isBefore(LocalDate.now());
+            case "Istekli" -> p -> p.getEndDate().isBefore(LocalDate.now());
+            default -> p -> true;
         };
-        programsObsList.setAll(filtered);
-        tableView.refresh();
+    }
+
+    /**
+     * Prazni tablicu i ponovno učitava prvu stranicu programa.
+     */
+    private void reloadPrograms() {
+        reloadGeneration++;
+        nextProgramKey = null;
+        hasMorePrograms = true;
+        loadingPrograms = false;
+        programsObsList.clear();
+        tableView.setPlaceholder(new Label("Učitavanje programa..."));
+        loadNextProgramsPage();
+    }
+
+    /**
+     * U pozadini dohvaća sljedeću stranicu programa koji odgovaraju odabranom filteru i dodaje je u tablicu.
+     * Rezultati učitavanja započetog prije ponovnog učitavanja tablice se odbacuju.
+     */
+    private void loadNextProgramsPage() {
+        if (loadingPrograms || !hasMorePrograms) return;
+        loadingPrograms = true;
+        long generation = reloadGeneration;
+        Predicate<Program> filter = selectedFilter();
+        Long startKey = nextProgramKey;
+        AsyncDatabase.onFxThread(AsyncDatabase.call(() -> collectProgramsPage(startKey, filter)), page -> {
+            if (generation != reloadGeneration) return;
+            programsObsList.addAll(page.items());
+            nextProgramKey = page.nextKey();
+            hasMorePrograms = page.hasNext();
+            loadingPrograms = false;
+            if (programsObsList.isEmpty()) tableView.setPlaceholder(new Label("Nema programa."));
+        }, e -> {
+            if (generation != reloadGeneration) return;
+            loadingPrograms = false;
+            tableView.setPlaceholder(new Label("Greška pri učitavanju programa."));
+        });
+    }
+
+    /**
+     * Dohvaća stranice iz baze dok se ne skupi {@value #PAGE_SIZE} programa koji odgovaraju filteru ili dok ima podataka.
+     * Izvršava se izvan JavaFX dretve.
+     *
+     * @param startKey ključ od kojeg počinje dohvat
+     * @param filter uvjet koji programi moraju zadovoljiti
+     * @return stranica s programima koji zadovoljavaju uvjet i ključem za nastavak
+     * @throws SQLException ako dohvat iz baze ne uspije
+     * @throws IOException ako se ne može ostvariti veza s bazom
+     */
+    private static Page<Program> collectProgramsPage(Long startKey, Predicate<Program> filter) throws SQLException, IOException {
+        List<Program> matching = new ArrayList<>();
+        Long key = startKey;
+        boolean hasNext = true;
+        while (hasNext && matching.size() < PAGE_SIZE) {
+            Page<Program> page = DatabaseUtils.queryProgramsPage(key, PAGE_SIZE, SORT_ORDER.ASCENDING);
+            page.items().stream().filter(filter).forEach(matching::add);
+            key = page.nextKey();
+            hasNext = page.hasNext();
+        }
+        return new Page<>(matching, hasNext ? key : null);
     }
 
     /**
@@ -286,8 +405,7 @@ public class ProgramsScreenController {
      * Osvježava prikaz tablice s programima.
      */
     private void refreshTable() {
-        programsObsList.setAll(DatabaseUtils.loadPrograms());
-        tableView.refresh();
+        reloadPrograms();
     }
 
     /**
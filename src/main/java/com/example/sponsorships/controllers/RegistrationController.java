@@ -17,7 +17,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.util.List;
 
 /**
  * Kontroler za registraciju korisnika koji omogućuje unos korisničkih podataka,
@@ -51,9 +50,19 @@ public class RegistrationController {
         else{
             try{
                 FileUtils.saveUserToFile(new User(usernameTextField.getText(), passwordField.getText(), false));
-                List<Change> promjene = ChangeManager.loadUserActions();
-                promjene.add(new Change("Registriran novi korisnik " + usernameTextField.getText(), usernameTextField.getText(), "", usernameTextField.getText()));
-                ChangeManager.saveUserAction(promjene);
+            }
+            catch (UsernameTakenException e) {
+                logger.error(e.getMessage());
+                messageLabel.setText("Registration failed. This username is already taken.");
+                return;
+            }
+            catch (IOException e) {
+                logger.error("Korisnik nije registriran.", e);
+                messageLabel.setText("Registration failed. Please try again later.");
+                return;
+            }
+            try{
+                ChangeManager.addNewChange(new Change("Registriran novi korisnik " + usernameTextField.getText(), usernameTextField.getText(), "", usernameTextField.getText()));
 
                 FXMLLoader fxmlLoader = new FXMLLoader(Main.class.getResource("main.fxml"));
                 Scene scene = new Scene(fxmlLoader.load(), 950, 650);
@@ -62,7 +71,7 @@ public class RegistrationController {
                 stage.setScene(scene);
                 stage.show();
             }
-            catch (IOException | UsernameTakenException e) {
+            catch (IOException e) {
                 logger.error(e.getMessage());
             }
         }
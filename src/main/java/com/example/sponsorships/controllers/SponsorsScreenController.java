@@ -2,6 +2,8 @@ package com.example.sponsorships.controllers;
 
 import com.example.sponsorships.entities.*;
 import com.example.sponsorships.enums.CITY;
+import com.example.sponsorships.enums.SORT_ORDER;
+import com.example.sponsorships.utils.AsyncDatabase;
 import com.example.sponsorships.utils.ChangeManager;
 import com.example.sponsorships.utils.DatabaseUtils;
 import com.example.sponsorships.utils.Session;
@@ -12,7 +14,6 @@ import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.layout.HBox;
 
-import java.util.List;
 
 /**
  * Kontroler za ekran upravljanja sponzorima.
@@ -55,8 +56,13 @@ public class SponsorsScreenController {
     @FXML
     Button saveButton;
 
+    private static final int PAGE_SIZE = 100;
     private ObservableList<Sponsor> sponsorsObsList;
     private Sponsor editingSponsor = null;
+    private Long nextSponsorKey;
+    private boolean hasMoreSponsors;
+    private boolean loadingSponsors;
+    private long reloadGeneration;
 
     /**
      * Inicijalizira kontroler, postavlja podatke u comboBox-ove i tablicu,
@@ -68,8 +74,10 @@ public class SponsorsScreenController {
         sponsorCityCB.setItems(cities);
         contactCityCB.setItems(cities);
         errorLabel.setVisible(false);
-        sponsorsObsList = FXCollections.observableArrayList(DatabaseUtils.loadSponsors());
+        sponsorsObsList = FXCollections.observableArrayList();
         setupTable();
+        refreshTable();
+        TableScrollSupport.onScrolledToEnd(tableView, this::loadNextSponsorsPage);
         saveButton.setVisible(false);
     }
 
@@ -125,10 +133,12 @@ public class SponsorsScreenController {
         alert.setHeaderText("Potvrdite brisanje sponzora iz baze podataka.");
 
         alert.showAndWait().filter(btn -> btn == ButtonType.OK).ifPresent(btn -> {
-            DatabaseUtils.deleteById("sponsors", sponsor.getId());
-            sponsorsObsList.remove(sponsor);
-            ChangeManager.addNewChange(new Change("Izbrisan sponzor " + sponsor.getName(), Session.getSession().getCurrentUser().username(), sponsor.getName(), ""));
-            if (sponsor.equals(editingSponsor)) clearEditMode();
+            Change change = new Change("Izbrisan sponzor " + sponsor.getName(), Session.getSession().getCurrentUser().username(), sponsor.getName(), "");
+            AsyncDatabase.onFxThread(AsyncDatabase.deleteById("sponsors", sponsor.getId()), ignored -> {
+                sponsorsObsList.remove(sponsor);
+                ChangeManager.addNewChange(change);
+                if (sponsor.equals(editingSponsor)) clearEditMode();
+            }, e -> showErrorAlert("Sponzor nije izbrisan: " + e.getMessage()));
         });
     }
 
@@ -197,20 +207,38 @@ public class SponsorsScreenController {
                     updatedPerson
             );
 
-            DatabaseUtils.updateSponsor(updatedSponsor);
-
-            ChangeManager.addNewChange(new Change(
-                    "Uređen sponzor " + editingSponsor.getName(),
+            Sponsor original = editingSponsor;
+            Change change = new Change(
+                    "Uređen sponzor " + original.getName(),
                     Session.getSession().getCurrentUser().username(),
-                    editingSponsor.toString(),
+                    original.toString(),
                     updatedSponsor.toString()
-            ));
+            );
 
-            refreshTable();
+            AsyncDatabase.onFxThread(AsyncDatabase.updateSponsor(updatedSponsor), ignored -> {
+                ChangeManager.addNewChange(change);
+                int index = sponsorsObsList.indexOf(original);
+                if (index >= 0) sponsorsObsList.set(index, updatedSponsor);
+                else refreshTable();
+            }, e -> {
+                showErrorAlert("Izmjene nisu spremljene: " + e.getMessage());
+                refreshTable();
+            });
             clearEditMode();
         });
     }
 
+    /**
+     * Prikazuje alert s greškom korisniku.
+     *
+     * @param msg poruka greške
+     */
+    private void showErrorAlert(String msg) {
+        Alert alert = new Alert(Alert.AlertType.ERROR, msg, ButtonType.OK);
+        alert.setTitle("Greška"); alert.setHeaderText(null);
+        alert.showAndWait();
+    }
+
     /**
      * Briše način uređivanja i resetira formu.
      */
@@ -267,25 +295,60 @@ public class SponsorsScreenController {
         alert.setHeaderText("Potvrdite dodavanje sponzora u bazu podataka.");
 
         alert.showAndWait().filter(btn -> btn == ButtonType.OK).ifPresent(btn -> {
-            DatabaseUtils.addSponsor(sponsorNameField.getText(), emailField.getText(),
-                    new Person(0L, contactPersonNameField.getText(), contactPersonSurameField.getText(), datePicker.getValue(), null),
-                    new Address(0L, contactPersonStreetField.getText(), contactPersonHouseNumberField.getText(), contactCityCB.getValue()),
-                    sponsorCityCB.getValue().getCityName(), sponsorStreetField.getText(), sponsorHouseNumberField.getText());
-
-            List<Change> promjene = ChangeManager.loadUserActions();
-            promjene.add(new Change("Dodavanje sponzora", Session.getSession().getCurrentUser().username(), sponsorNameField.getText(), ""));
-            ChangeManager.saveUserAction(promjene);
+            String name = sponsorNameField.getText();
+            String email = emailField.getText();
+            Person person = new Person(0L, contactPersonNameField.getText(), contactPersonSurameField.getText(), datePicker.getValue(), null);
+            Address contactAddress = new Address(0L, contactPersonStreetField.getText(), contactPersonHouseNumberField.getText(), contactCityCB.getValue());
+            String sponsorCity = sponsorCityCB.getValue().getCityName();
+            String sponsorStreet = sponsorStreetField.getText();
+            String sponsorHouse = sponsorHouseNumberField.getText();
+            String username = Session.getSession().getCurrentUser().username();
+            AsyncDatabase.onFxThread(AsyncDatabase.call(() -> DatabaseUtils.addSponsor(name, email, person, contactAddress, sponsorCity, sponsorStreet, sponsorHouse)),
+                    id -> {
+                        if (id > 0) ChangeManager.addNewChange(new Change("Dodavanje sponzora", username, name, ""));
+                        else showErrorAlert("Sponzor nije dodan.");
+                        refreshTable();
+                    }, e -> {
+                        showErrorAlert("Sponzor nije dodan: " + e.getMessage());
+                        refreshTable();
+                    });
 
             clearData();
-            refreshTable();
         });
     }
 
     /**
-     * Osvježava sadržaj tablice sponzora iz baze podataka.
+     * Osvježava sadržaj tablice sponzora iz baze podataka, počevši od prve stranice.
      */
     private void refreshTable() {
-        sponsorsObsList.setAll(DatabaseUtils.loadSponsors());
-        tableView.refresh();
+        reloadGeneration++;
+        nextSponsorKey = null;
+        hasMoreSponsors = true;
+        loadingSponsors = false;
+        sponsorsObsList.clear();
+        tableView.setPlaceholder(new Label("Učitavanje sponzora..."));
+        loadNextSponsorsPage();
+    }
+
+    /**
+     * U pozadini dohvaća sljedeću stranicu sponzora i dodaje je u tablicu.
+     * Rezultati učitavanja započetog prije osvježavanja tablice se odbacuju.
+     */
+    private void loadNextSponsorsPage() {
+        if (loadingSponsors || !hasMoreSponsors) return;
+        loadingSponsors = true;
+        long generation = reloadGeneration;
+        AsyncDatabase.onFxThread(AsyncDatabase.loadSponsorsPage(nextSponsorKey, PAGE_SIZE, SORT_ORDER.ASCENDING), page -> {
+            if (generation != reloadGeneration) return;
+            sponsorsObsList.addAll(page.items());
+            nextSponsorKey = page.nextKey();
+            hasMoreSponsors = page.hasNext();
+            loadingSponsors = false;
+            if (sponsorsObsList.isEmpty()) tableView.setPlaceholder(new Label("Nema sponzora."));
+        }, e -> {
+            if (generation != reloadGeneration) return;
+            loadingSponsors = false;
+            tableView.setPlaceholder(new Label("Greška pri učitavanju sponzora."));
+        });
     }
 }
@@ -1,21 +1,14 @@
 package com.example.sponsorships.controllers;
 
 import com.example.sponsorships.entities.ChartDataAdapter;
-import com.example.sponsorships.entities.Program;
-import com.example.sponsorships.entities.Sponsor;
+import com.example.sponsorships.records.ProgramExtensionCount;
+import com.example.sponsorships.records.SponsorInvestment;
+import com.example.sponsorships.utils.AsyncDatabase;
 import com.example.sponsorships.utils.DatabaseUtils;
 import javafx.fxml.FXML;
 import javafx.scene.chart.*;
 
-import java.io.IOException;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * Kontroler za ekran statistike koji upravlja prikazom grafikona ulaganja po sponzorima
@@ -42,28 +35,32 @@ public class StatisticsScreenController {
 
     /**
      * Inicijalizacijska metoda koja se poziva nakon učitavanja FXML-a.
-     * Učitava programe i sponzore, priprema podatke za glavni bar chart (ulaganja po sponzoru)
-     * i poziva metodu za učitavanje dodatnog grafa sa zahtjevima za ekstenziju.
+     * Dohvaća ulaganja po sponzoru i broj zahtjeva za ekstenziju po programu, koje baza računa
+     * upitima s grupiranjem, te puni oba grafa.
+     * Podaci se dohvaćaju u pozadini, a grafovi do tada prikazuju poruku o učitavanju.
      */
     @FXML
     public void initialize() {
-        List<Program> programs = DatabaseUtils.loadPrograms();
-        List<Sponsor> sponsors = DatabaseUtils.loadSponsors();
-
-        ChartDataAdapter<Sponsor, XYChart.Data<String, Number>> adapter = new ChartDataAdapter<>(sponsor -> {
-            long totalInvestment = programs.stream()
-                    .filter(p -> p.getSponsor().equals(sponsor))
-                    .mapToLong(Program::getFullAmount)
-                    .sum();
-            return new XYChart.Data<>(sponsor.getName(), totalInvestment);
-        });
+        barChart.setTitle("Učitavanje...");
+        extensionChart.setTitle("Učitavanje...");
+        AsyncDatabase.onFxThread(AsyncDatabase.call(DatabaseUtils::loadSponsorInvestments),
+                this::showInvestmentChart, e -> barChart.setTitle("Greška pri učitavanju podataka"));
+        AsyncDatabase.onFxThread(AsyncDatabase.call(DatabaseUtils::loadExtensionRequestCounts),
+                this::showExtensionChart, e -> extensionChart.setTitle("Greška pri učitavanju podataka"));
+    }
 
-        List<XYChart.Data<String, Number>> chartData = adapter.adapt(sponsors);
-        loadExtensionChart();
+    /**
+     * Prikazuje ulaganja po sponzoru u glavnom bar chartu.
+     *
+     * @param investments ukupno ulaganje po sponzoru
+     */
+    private void showInvestmentChart(List<SponsorInvestment> investments) {
+        ChartDataAdapter<SponsorInvestment, XYChart.Data<String, Number>> adapter =
+                new ChartDataAdapter<>(i -> new XYChart.Data<>(i.sponsorName(), i.totalInvestment()));
 
         XYChart.Series<String, Number> series = new XYChart.Series<>();
         series.setName("Ukupno ulaganje/€");
-        series.getData().addAll(chartData);
+        series.getData().addAll(adapter.adapt(investments));
 
         barChart.getData().clear();
         barChart.getData().add(series);
@@ -72,42 +69,16 @@ public class StatisticsScreenController {
 
     /**
      * Puni dodatni bar chart podacima o broju zahtjeva za ekstenziju za svaki program.
-     * Dohvaća podatke iz baze, broji zahtjeve za svaki program i prikazuje ih u grafu.
+     *
+     * @param requestCounts broj zahtjeva po programu
      */
-    private void loadExtensionChart() {
-        List<Program> allPrograms = DatabaseUtils.loadPrograms();
-        Map<Long, Program> programMap = allPrograms.stream()
-                .collect(Collectors.toMap(Program::getId, p -> p));
-
-        Map<Program, Long> requestCountPerProgram = new HashMap<>();
-
-        String sql = "SELECT program_id FROM ProgramExtensionRequests";
-
-        try (Connection conn = DatabaseUtils.connectToDatabase();
-             PreparedStatement stmt = conn.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
-
-            while (rs.next()) {
-                long programId = rs.getLong("program_id");
-                Program program = programMap.get(programId);
-                if (program != null) {
-                    requestCountPerProgram.put(program, requestCountPerProgram.getOrDefault(program, 0L) + 1);
-                }
-            }
-
-        } catch (SQLException | IOException e) {
-            e.printStackTrace();
-            return;
-        }
+    private void showExtensionChart(List<ProgramExtensionCount> requestCounts) {
+        ChartDataAdapter<ProgramExtensionCount, XYChart.Data<String, Number>> adapter =
+                new ChartDataAdapter<>(c -> new XYChart.Data<>(c.programName(), c.requestCount()));
 
         XYChart.Series<String, Number> extensionSeries = new XYChart.Series<>();
         extensionSeries.setName("Broj zahtjeva za ekstenziju");
-
-        for (Map.Entry<Program, Long> entry : requestCountPerProgram.entrySet()) {
-            extensionSeries.getData().add(
-                    new XYChart.Data<>(entry.getKey().getName(), entry.getValue())
-            );
-        }
+        extensionSeries.getData().addAll(adapter.adapt(requestCounts));
 
         extensionChart.getData().add(extensionSeries);
         extensionChart.setTitle("Zahtjevi za ekstenziju po programu");
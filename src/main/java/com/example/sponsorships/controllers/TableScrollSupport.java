@@ -0,0 +1,39 @@
+package com.example.sponsorships.controllers;
+
+import javafx.application.Platform;
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.control.TableView;
+
+/**
+ * Pomoćna klasa za tablice koje podatke učitavaju stranicu po stranicu.
+ * Omogućuje reakciju na pomicanje tablice do zadnjeg retka kako bi se dohvatila sljedeća stranica.
+ */
+final class TableScrollSupport {
+
+    /** Privatni konstruktor da se spriječi instanciranje ove pomoćne klase. */
+    private TableScrollSupport() {}
+
+    /**
+     * Registrira akciju koja se izvršava kada korisnik pomakne tablicu do samog kraja.
+     * Okomita traka za pomicanje postoji tek nakon što tablica dobije skin, pa se registracija odgađa do tog trenutka.
+     *
+     * @param tableView tablica koja se prati
+     * @param action akcija koja se izvršava na dnu tablice (npr. dohvat sljedeće stranice)
+     */
+    static void onScrolledToEnd(TableView<?> tableView, Runnable action) {
+        tableView.skinProperty().addListener((obs, oldSkin, newSkin) -> {
+            if (newSkin == null) return;
+            Platform.runLater(() -> {
+                for (Node node : tableView.lookupAll(".scroll-bar")) {
+                    if (node instanceof ScrollBar bar && bar.getOrientation() == Orientation.VERTICAL) {
+                        bar.valueProperty().addListener((o, oldValue, newValue) -> {
+                            if (newValue.doubleValue() >= bar.getMax()) action.run();
+                        });
+                    }
+                }
+            });
+        });
+    }
+}
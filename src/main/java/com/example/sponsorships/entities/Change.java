@@ -1,5 +1,6 @@
 package com.example.sponsorships.entities;
 
+import java.io.Serial;
 import java.io.Serializable;
 import java.time.LocalDateTime;
 
@@ -8,6 +9,8 @@ import java.time.LocalDateTime;
  * Svakoj promjeni potrebno je dodijeliti opis, a automatski joj se dodjeljuje vrijeme kad je učinjena.
  */
 public class Change implements Serializable {
+    @Serial
+    private static final long serialVersionUID = -8185426698650012582L;
     private final String description;
     private final LocalDateTime timestamp;
     private final String user;
@@ -23,8 +26,21 @@ public class Change implements Serializable {
      * @param newValue nova vrijednost (nakon promjene)
      */
     public Change(String description, String user, String oldValue, String newValue) {
+        this(description, LocalDateTime.now(), user, oldValue, newValue);
+    }
+
+    /**
+     * Konstruktor za obnavljanje već zabilježene promjene s njezinim izvornim vremenom.
+     *
+     * @param description opis promjene
+     * @param timestamp vrijeme kada je promjena napravljena
+     * @param user korisnik koji je napravio promjenu
+     * @param oldValue prethodna vrijednost (prije promjene)
+     * @param newValue nova vrijednost (nakon promjene)
+     */
+    public Change(String description, LocalDateTime timestamp, String user, String oldValue, String newValue) {
         this.description = description;
-        this.timestamp = LocalDateTime.now();
+        this.timestamp = timestamp;
         this.user = user;
         this.oldValue = oldValue;
         this.newValue = newValue;
@@ -1,12 +1,17 @@
 package com.example.sponsorships.entities;
 
+import com.example.sponsorships.exceptions.DataAccessException;
 import com.example.sponsorships.interfaces.DataExportable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Utility generička klasa korištena za ispis objekata u CSV datoteku. Moguće je ispisati samo objekte koji implementiraju DataExportable sučelje.
@@ -40,4 +45,34 @@ public class DataExportUtil <T extends DataExportable>{
             return false;
         }
     }
+
+    /**
+     * Eksportira objekte iz toka podataka u CSV datoteku redak po redak, bez učitavanja svih objekata u memoriju.
+     * Tok podataka zatvara pozivatelj. Ako čitanje toka ne uspije, djelomično zapisana datoteka se briše.
+     *
+     * @param items tok objekata za izvoz u CSV format
+     * @param filePath putanja i naziv datoteke u koju će se podaci spremiti
+     * @return {@code true} ako je izvoz uspio, inače {@code false}
+     */
+    public boolean exportToCSV(Stream<T> items, String filePath) {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath))) {
+            for (T item : (Iterable<T>) items::iterator) {
+                writer.write(item.exportAsCSV() + "\n");
+            }
+        } catch (IOException | DataAccessException e) {
+            logger.error("Greška prilikom izvoza u CSV: {}", e.getMessage());
+            deletePartialFile(filePath);
+            return false;
+        }
+        logger.info("Exportirano u CSV datoteku: {}", filePath);
+        return true;
+    }
+
+    private static void deletePartialFile(String filePath) {
+        try {
+            Files.deleteIfExists(Path.of(filePath));
+        } catch (IOException e) {
+            logger.warn("Djelomično izvezena datoteka {} nije obrisana: {}", filePath, e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,32 @@
+package com.example.sponsorships.enums;
+
+/**
+ * Enum koji predstavlja ishod obrade odgovora na zahtjev za produženje programa.
+ */
+public enum EXTENSION_OUTCOME {
+
+    APPLIED("Odgovor primijenjen"),
+    ALREADY_PROCESSED("Zahtjev je već obrađen"),
+    FAILED("Greška pri obradi")
+    ;
+
+    private final String description;
+
+    /**
+     * Konstruktor za definiranje ishoda s opisom.
+     *
+     * @param description opis ishoda
+     */
+    EXTENSION_OUTCOME(String description) {
+        this.description = description;
+    }
+
+    /**
+     * Dohvaća opis ishoda.
+     *
+     * @return opis ishoda
+     */
+    public String getDescription() {
+        return description;
+    }
+}
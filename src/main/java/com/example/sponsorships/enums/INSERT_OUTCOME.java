@@ -0,0 +1,32 @@
+package com.example.sponsorships.enums;
+
+/**
+ * Enum koji predstavlja ishod unosa jednog retka pri skupnom unosu u bazu podataka.
+ */
+public enum INSERT_OUTCOME {
+
+    INSERTED("Uneseno"),
+    DUPLICATE_NAME("Naziv već postoji"),
+    FAILED("Greška pri unosu")
+    ;
+
+    private final String description;
+
+    /**
+     * Konstruktor za definiranje ishoda s opisom.
+     *
+     * @param description opis ishoda
+     */
+    INSERT_OUTCOME(String description) {
+        this.description = description;
+    }
+
+    /**
+     * Dohvaća opis ishoda.
+     *
+     * @return opis ishoda
+     */
+    public String getDescription() {
+        return description;
+    }
+}
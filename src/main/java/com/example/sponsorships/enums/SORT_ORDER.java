@@ -0,0 +1,43 @@
+package com.example.sponsorships.enums;
+
+/**
+ * Enum koji predstavlja smjer sortiranja kod straničnog dohvata podataka po ID-u.
+ */
+public enum SORT_ORDER {
+
+    ASCENDING("ASC", ">"),
+    DESCENDING("DESC", "<")
+    ;
+
+    private final String sqlKeyword;
+    private final String keysetOperator;
+
+    /**
+     * Konstruktor za definiranje smjera sortiranja.
+     *
+     * @param sqlKeyword ključna riječ za ORDER BY
+     * @param keysetOperator operator kojim se dohvaćaju zapisi nakon zadnjeg ključa
+     */
+    SORT_ORDER(String sqlKeyword, String keysetOperator) {
+        this.sqlKeyword = sqlKeyword;
+        this.keysetOperator = keysetOperator;
+    }
+
+    /**
+     * Dohvaća SQL ključnu riječ za smjer sortiranja.
+     *
+     * @return ASC ili DESC
+     */
+    public String getSqlKeyword() {
+        return sqlKeyword;
+    }
+
+    /**
+     * Dohvaća operator usporedbe za dohvat zapisa koji slijede nakon zadnjeg ključa stranice.
+     *
+     * @return {@code >} za uzlazno ili {@code <} za silazno sortiranje
+     */
+    public String getKeysetOperator() {
+        return keysetOperator;
+    }
+}
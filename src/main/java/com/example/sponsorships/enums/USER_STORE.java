@@ -0,0 +1,9 @@
+package com.example.sponsorships.enums;
+
+/**
+ * Enum koji predstavlja vrstu spremišta korisničkih računa, odabranu postavkom <code>users.store</code>.
+ */
+public enum USER_STORE {
+    FILE,
+    DATABASE
+}
@@ -0,0 +1,11 @@
+package com.example.sponsorships.exceptions;
+
+/**
+ * Iznimka koja označava da čitanje podataka iz baze nije uspjelo na mjestu gdje se ne može baciti provjerena iznimka,
+ * npr. tijekom prolaska kroz tok podataka.
+ */
+public class DataAccessException extends RuntimeException {
+    public DataAccessException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
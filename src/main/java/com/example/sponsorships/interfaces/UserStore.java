@@ -0,0 +1,31 @@
+package com.example.sponsorships.interfaces;
+
+import com.example.sponsorships.records.UserAccount;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Sučelje spremišta korisničkih računa koje koristi prijava i registracija.
+ * Implementacije moraju osigurati da korisničko ime bude jedinstveno i kad se registracije izvode istodobno.
+ */
+public interface UserStore {
+
+    /**
+     * Dohvaća korisnički račun prema korisničkom imenu.
+     *
+     * @param username korisničko ime
+     * @return račun korisnika, ili prazan {@link Optional} ako korisnik ne postoji
+     * @throws IOException ako spremište nije dostupno
+     */
+    Optional<UserAccount> find(String username) throws IOException;
+
+    /**
+     * Atomarno sprema novi račun ako korisničko ime nije zauzeto.
+     *
+     * @param account novi korisnički račun
+     * @return {@code true} ako je račun spremljen, {@code false} ako je korisničko ime zauzeto
+     * @throws IOException ako spremanje ne uspije
+     */
+    boolean register(UserAccount account) throws IOException;
+}
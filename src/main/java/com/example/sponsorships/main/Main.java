@@ -1,7 +1,11 @@
 package com.example.sponsorships.main;
 
-import com.example.sponsorships.utils.ExtensionHandler;
-import com.sun.net.httpserver.HttpServer;
+import com.example.sponsorships.utils.AsyncDatabase;
+import com.example.sponsorships.utils.ChangeManager;
+import com.example.sponsorships.utils.ConnectionPool;
+import com.example.sponsorships.utils.ExtensionServer;
+import com.example.sponsorships.utils.SchemaMigrator;
+import com.example.sponsorships.utils.UserDirectory;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
@@ -10,7 +14,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.net.InetSocketAddress;
 
 /**
  * Glavna klasa JavaFX aplikacije koja pokreće početni zaslon za prijavu
@@ -40,18 +43,42 @@ public class Main extends Application {
         logger.info("Aplikacija je pokrenuta.");
     }
 
+    /**
+     * Pri gašenju aplikacije zaustavlja HTTP server, dovršava započeti rad s bazom te zatvara dnevnik promjena i pool veza.
+     */
+    @Override
+    public void stop() {
+        ExtensionServer.stop();
+        AsyncDatabase.shutdown();
+        UserDirectory.shutdown();
+        ChangeManager.shutdown();
+        ConnectionPool.shutdown();
+    }
+
     /**
      * Ulazna točka aplikacije.
-     * Pokreće HTTP server na portu 8080 koji prima zahtjeve za produženje programa
-     * te zatim pokreće JavaFX aplikaciju.
+     * Učitava postavke baze podataka, pokreće pool veza i migracije sheme (ako bilo što od toga ne uspije, aplikacija
+     * završava s izlaznim kodom 1), pokreće HTTP server ({@link ExtensionServer})
+     * koji prima zahtjeve za produženje programa te zatim pokreće JavaFX aplikaciju.
      *
      * @param args argumenti komandne linije (ne koriste se)
      */
     public static void main(String[] args) {
         try {
-            HttpServer server = HttpServer.create(new InetSocketAddress(8080), 0);
-            server.createContext("/extension-response", new ExtensionHandler());
-            server.start();
+            ConnectionPool.getInstance();
+        }
+        catch (IOException e){
+            logger.error("Postavke baze podataka nisu učitane, aplikacija se ne pokreće. {}", e.getMessage());
+            System.exit(1);
+        }
+        if (SchemaMigrator.migrate() < 0) {
+            logger.error("Shema baze podataka nije nadograđena, aplikacija se ne pokreće. Detalji su zapisani iznad.");
+            ConnectionPool.shutdown();
+            System.exit(1);
+        }
+
+        try {
+            ExtensionServer.start();
         }
         catch (IOException e){
             logger.error("HTTP server failed to start. {}", e.getMessage());
@@ -0,0 +1,29 @@
+package com.example.sponsorships.records;
+
+import com.example.sponsorships.enums.INSERT_OUTCOME;
+
+import java.util.List;
+
+/**
+ * Zapis koji predstavlja rezultat skupnog unosa: ishod za svaki redak i ostvarenu propusnost.
+ * <p>
+ * Redci se unose u komadima, svaki u svojoj transakciji. Ako komad ne uspije, nijedan njegov redak nije unesen i svi
+ * imaju ishod {@link INSERT_OUTCOME#FAILED}, dok ostali komadi ostaju uneseni. Kršenje jedinstvenosti naziva ne ruši
+ * cijeli komad: sudareni redak dobiva {@link INSERT_OUTCOME#DUPLICATE_NAME}, a ostali se unose.
+ * </p>
+ *
+ * @param rows ishodi po retcima, redoslijedom ulazne kolekcije
+ * @param rowsPerSecond broj unesenih redaka u sekundi
+ */
+public record BatchInsertReport(List<BatchRowResult> rows, double rowsPerSecond) {
+
+    /**
+     * Broji retke sa zadanim ishodom.
+     *
+     * @param outcome ishod koji se broji
+     * @return broj redaka sa zadanim ishodom
+     */
+    public long count(INSERT_OUTCOME outcome) {
+        return rows.stream().filter(row -> row.outcome() == outcome).count();
+    }
+}
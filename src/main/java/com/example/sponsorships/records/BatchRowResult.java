@@ -0,0 +1,14 @@
+package com.example.sponsorships.records;
+
+import com.example.sponsorships.enums.INSERT_OUTCOME;
+
+/**
+ * Zapis koji predstavlja ishod unosa jednog retka pri skupnom unosu.
+ *
+ * @param index redni broj retka u ulaznoj kolekciji
+ * @param name naziv entiteta
+ * @param outcome ishod unosa
+ * @param id ID dodijeljen u bazi, ili {@code null} ako redak nije unesen
+ */
+public record BatchRowResult(int index, String name, INSERT_OUTCOME outcome, Long id) {
+}
@@ -0,0 +1,24 @@
+package com.example.sponsorships.records;
+
+/**
+ * Zapis koji predstavlja metrike jedne predmemorije entiteta.
+ *
+ * @param name naziv predmemorije
+ * @param size trenutni broj zapisa
+ * @param capacity najveći dopušteni broj zapisa
+ * @param hits broj dohvata pronađenih u predmemoriji
+ * @param misses broj dohvata koji nisu pronađeni u predmemoriji
+ * @param evictions broj zapisa izbačenih zbog popunjenosti
+ */
+public record CacheStatistics(String name, int size, int capacity, long hits, long misses, long evictions) {
+
+    /**
+     * Izračunava udio uspješnih dohvata u ukupnom broju dohvata.
+     *
+     * @return omjer pogodaka između 0 i 1, ili 0 ako dohvata još nije bilo
+     */
+    public double hitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+}
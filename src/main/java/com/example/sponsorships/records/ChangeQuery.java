@@ -0,0 +1,52 @@
+package com.example.sponsorships.records;
+
+import com.example.sponsorships.entities.Change;
+
+import java.time.LocalDateTime;
+
+/**
+ * Zapis koji predstavlja uvjete pretraživanja dnevnika promjena. Uvjet čija je vrijednost {@code null} se ne primjenjuje.
+ *
+ * @param user korisnik koji je napravio promjenu
+ * @param from najranije vrijeme promjene (uključivo)
+ * @param to najkasnije vrijeme promjene (uključivo)
+ * @param descriptionContains tekst koji opis promjene mora sadržavati, npr. naziv entiteta poput "sponzor" ili "program";
+ *                            usporedba ne razlikuje velika i mala slova
+ */
+public record ChangeQuery(String user, LocalDateTime from, LocalDateTime to, String descriptionContains) {
+
+    /**
+     * Vraća upit bez uvjeta koji odgovara svim promjenama.
+     *
+     * @return upit bez uvjeta
+     */
+    public static ChangeQuery all() {
+        return new ChangeQuery(null, null, null, null);
+    }
+
+    /**
+     * Provjerava zadovoljava li promjena sve uvjete upita.
+     *
+     * @param change promjena koja se provjerava
+     * @return {@code true} ako promjena zadovoljava sve uvjete, inače {@code false}
+     */
+    public boolean matches(Change change) {
+        if (user != null && !user.equals(change.getUser())) return false;
+        if (from != null && (change.getTimestamp() == null || change.getTimestamp().isBefore(from))) return false;
+        if (to != null && (change.getTimestamp() == null || change.getTimestamp().isAfter(to))) return false;
+        return descriptionContains == null || (change.getDescription() != null
+                && change.getDescription().toLowerCase().contains(descriptionContains.toLowerCase()));
+    }
+
+    /**
+     * Provjerava preklapa li se vremenski raspon upita sa zadanim rasponom.
+     *
+     * @param first najranije vrijeme u rasponu, ili {@code null} ako nije poznato
+     * @param last najkasnije vrijeme u rasponu, ili {@code null} ako nije poznato
+     * @return {@code true} ako se rasponi mogu preklapati, inače {@code false}
+     */
+    public boolean overlaps(LocalDateTime first, LocalDateTime last) {
+        if (first == null || last == null) return true;
+        return (to == null || !first.isAfter(to)) && (from == null || !last.isBefore(from));
+    }
+}
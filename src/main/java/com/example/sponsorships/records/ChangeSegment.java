@@ -0,0 +1,19 @@
+package com.example.sponsorships.records;
+
+import java.time.LocalDateTime;
+
+/**
+ * Zapis koji opisuje jedan segment dnevnika promjena u manifestu.
+ *
+ * @param sequence redni broj segmenta
+ * @param fileName naziv datoteke segmenta unutar direktorija dnevnika
+ * @param created vrijeme stvaranja segmenta
+ * @param minTimestamp najranije vrijeme promjene u segmentu, ili {@code null} ako je segment prazan
+ * @param maxTimestamp najkasnije vrijeme promjene u segmentu, ili {@code null} ako je segment prazan
+ * @param recordCount broj promjena u segmentu
+ * @param sealed je li segment zatvoren za daljnje dodavanje
+ * @param compressed je li datoteka segmenta sažeta (gzip)
+ */
+public record ChangeSegment(long sequence, String fileName, LocalDateTime created, LocalDateTime minTimestamp,
+                            LocalDateTime maxTimestamp, long recordCount, boolean sealed, boolean compressed) {
+}
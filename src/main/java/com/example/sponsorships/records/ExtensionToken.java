@@ -0,0 +1,24 @@
+package com.example.sponsorships.records;
+
+import java.time.Instant;
+
+/**
+ * Zapis koji predstavlja sadržaj potpisanog tokena za odgovor na zahtjev za produženje programa.
+ *
+ * @param programId identifikator programa
+ * @param requestId identifikator zahtjeva za produženje u tablici <code>ProgramExtensionRequests</code>
+ * @param days broj dana za koji se traži produženje
+ * @param expiresAt trenutak nakon kojeg token više ne vrijedi
+ */
+public record ExtensionToken(long programId, long requestId, int days, Instant expiresAt) {
+
+    /**
+     * Provjerava je li token istekao u zadanom trenutku.
+     *
+     * @param now trenutak provjere
+     * @return {@code true} ako je token istekao
+     */
+    public boolean isExpiredAt(Instant now) {
+        return !now.isBefore(expiresAt);
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.sponsorships.records;
+
+import com.example.sponsorships.entities.Change;
+
+import java.util.List;
+
+/**
+ * Zapis koji predstavlja promjenu zapisanu u dnevnik promjena zajedno s njezinim mjestom u dnevniku.
+ *
+ * @param segmentSequence redni broj segmenta u koji je promjena zapisana
+ * @param recordIndex redni broj promjene unutar segmenta, od 0
+ * @param change zapisana promjena
+ */
+public record LoggedChange(long segmentSequence, long recordIndex, Change change) {
+
+    /**
+     * Provjerava je li promjena već sadržana u stanju dnevnika opisanom zadanim segmentima, npr. u listi promjena
+     * učitanoj prije nego što je promjena stigla preko pretplate.
+     *
+     * @param segments segmenti dnevnika od najstarijeg do aktivnog, s brojem promjena u trenutku čitanja
+     * @return {@code true} ako je promjena zapisana prije nego što su segmenti pročitani
+     */
+    public boolean isIncludedIn(List<ChangeSegment> segments) {
+        if (segments.isEmpty()) return false;
+        ChangeSegment last = segments.get(segments.size() - 1);
+        return segmentSequence < last.sequence()
+                || (segmentSequence == last.sequence() && recordIndex < last.recordCount());
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.sponsorships.records;
+
+import java.util.List;
+
+/**
+ * Zapis koji predstavlja jednu stranicu rezultata dohvaćenih po ključu (keyset pagination).
+ *
+ * @param items zapisi na stranici
+ * @param nextKey ključ (ID) zadnjeg zapisa na stranici od kojeg se dohvaća sljedeća stranica,
+ *                ili {@code null} ako sljedeće stranice nema
+ * @param <T> tip zapisa
+ */
+public record Page<T>(List<T> items, Long nextKey) {
+
+    /**
+     * Provjerava postoji li sljedeća stranica.
+     *
+     * @return {@code true} ako postoji sljedeća stranica, inače {@code false}
+     */
+    public boolean hasNext() {
+        return nextKey != null;
+    }
+}
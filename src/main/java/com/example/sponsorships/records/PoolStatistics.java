@@ -0,0 +1,19 @@
+package com.example.sponsorships.records;
+
+/**
+ * Zapis koji predstavlja trenutno stanje i metrike pool-a veza prema bazi podataka.
+ *
+ * @param maxSize najveći dopušteni broj veza u pool-u
+ * @param active broj veza koje su trenutno posuđene
+ * @param idle broj slobodnih veza koje čekaju u pool-u
+ * @param created ukupan broj fizičkih veza otvorenih od pokretanja
+ * @param acquired ukupan broj uspješnih posudbi veze
+ * @param timeouts broj posudbi koje nisu uspjele unutar zadanog vremena čekanja
+ * @param evicted broj slobodnih veza zatvorenih zbog neaktivnosti
+ * @param validationFailures broj veza odbačenih jer nisu prošle provjeru ispravnosti
+ * @param averageWaitMillis prosječno vrijeme čekanja na vezu u milisekundama
+ * @param maxWaitMillis najdulje zabilježeno vrijeme čekanja na vezu u milisekundama
+ */
+public record PoolStatistics(int maxSize, int active, int idle, long created, long acquired, long timeouts,
+                             long evicted, long validationFailures, double averageWaitMillis, double maxWaitMillis) {
+}
@@ -0,0 +1,11 @@
+package com.example.sponsorships.records;
+
+/**
+ * Zapis koji predstavlja broj zahtjeva za produljenje podnesenih za jedan program.
+ *
+ * @param programId ID programa
+ * @param programName naziv programa
+ * @param requestCount broj zahtjeva za produljenje
+ */
+public record ProgramExtensionCount(long programId, String programName, long requestCount) {
+}
@@ -0,0 +1,11 @@
+package com.example.sponsorships.records;
+
+/**
+ * Zapis koji predstavlja ukupno ulaganje jednog sponzora kroz sve njegove programe.
+ *
+ * @param sponsorId ID sponzora
+ * @param sponsorName naziv sponzora
+ * @param totalInvestment zbroj punih iznosa svih programa sponzora (dnevni iznos puta broj dana programa)
+ */
+public record SponsorInvestment(long sponsorId, String sponsorName, long totalInvestment) {
+}
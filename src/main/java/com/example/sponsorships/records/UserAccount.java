@@ -0,0 +1,11 @@
+package com.example.sponsorships.records;
+
+/**
+ * Zapis koji predstavlja spremljeni korisnički račun, onako kako je zapisan u datoteci korisnika.
+ *
+ * @param username korisničko ime
+ * @param passwordHash SHA-256 sažetak lozinke kodiran u Base64
+ * @param admin označava je li korisnik administrator
+ */
+public record UserAccount(String username, String passwordHash, boolean admin) {
+}
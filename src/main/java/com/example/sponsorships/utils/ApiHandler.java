@@ -0,0 +1,319 @@
+package com.example.sponsorships.utils;
+
+import com.example.sponsorships.entities.Address;
+import com.example.sponsorships.entities.Person;
+import com.example.sponsorships.entities.Program;
+import com.example.sponsorships.entities.Sponsor;
+import com.example.sponsorships.enums.SORT_ORDER;
+import com.example.sponsorships.records.Page;
+import com.example.sponsorships.records.SponsorInvestment;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Handler klasa za JSON sučelje samo za čitanje (<code>/api</code>) kojim drugi alati dohvaćaju programe, sponzore
+ * i ukupna ulaganja sponzora.
+ * <p>
+ * Podržane adrese su <code>GET /api/programs</code> i <code>GET /api/sponsors</code>, stranično po ID-u s parametrima
+ * <code>after</code> (ID zadnjeg zapisa prethodne stranice), <code>limit</code> (1 do {@value #MAX_LIMIT}, zadano
+ * {@value #DEFAULT_LIMIT}) i <code>order</code> (<code>asc</code> ili <code>desc</code>), te
+ * <code>GET /api/statistics/investments</code>.
+ * </p>
+ * <p>
+ * Svaki odgovor ima ETag izveden iz {@link DataVersion}, pa klijent koji pošalje <code>If-None-Match</code> s oznakom
+ * trenutne verzije dobiva odgovor 304 bez upita u bazu. Ako klijent to podržava, tijelo odgovora se sažima (gzip).
+ * Zadnji odgovori čuvaju se u predmemoriji dok se podaci ne promijene. Ako upit u bazu ne uspije, odgovor je 503
+ * i ništa se ne sprema u predmemoriju.
+ * </p>
+ */
+public class ApiHandler implements HttpHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ApiHandler.class);
+    private static final int DEFAULT_LIMIT = 50;
+    private static final int MAX_LIMIT = 500;
+    private static final int CACHED_RESPONSES = 256;
+    private static final Set<String> PATHS = Set.of("/api/programs", "/api/sponsors", "/api/statistics/investments");
+
+    private final EntityCache<String, CachedResponse> responses = new EntityCache<>("apiResponses", CACHED_RESPONSES);
+
+    /**
+     * Obrada HTTP zahtjeva za JSON sučelje.
+     *
+     * @param exchange objekt koji predstavlja dolazni HTTP zahtjev i omogućuje slanje odgovora
+     * @throws IOException u slučaju problema sa slanjem odgovora
+     */
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        if (!method.equals("GET") && !method.equals("HEAD")) {
+            exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+            sendError(exchange, 405, "Method not allowed.");
+            return;
+        }
+
+        if (!PATHS.contains(exchange.getRequestURI().getPath())) {
+            sendError(exchange, 404, "Not found.");
+            return;
+        }
+
+        long version = DataVersion.current();
+        String etag = DataVersion.tag(version);
+        boolean gzip = acceptsGzip(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+        exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        if (matches(exchange.getRequestHeaders().get("If-None-Match"), etag)) {
+            exchange.getResponseHeaders().set("ETag", quote(etag, gzip));
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+
+        String key = exchange.getRequestURI().toString();
+        CachedResponse cached = responses.get(key);
+        if (cached == null || cached.version() != version) {
+            String json;
+            try {
+                json = render(exchange.getRequestURI().getPath(), parseQuery(exchange.getRequestURI().getRawQuery()));
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, 400, e.getMessage());
+                return;
+            } catch (SQLException | IOException e) {
+                logger.error("API upit za {} nije uspio: {}", exchange.getRequestURI().getPath(), e.getMessage());
+                sendError(exchange, 503, "Data is temporarily unavailable.");
+                return;
+            }
+            byte[] body = json.getBytes(StandardCharsets.UTF_8);
+            cached = new CachedResponse(version, body, compress(body));
+            responses.put(key, cached);
+        }
+
+        byte[] body = gzip ? cached.gzipBody() : cached.body();
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.getResponseHeaders().set("ETag", quote(etag, gzip));
+        if (gzip) exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        if (method.equals("HEAD")) {
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+            return;
+        }
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    private String render(String path, Map<String, String> params) throws SQLException, IOException {
+        return switch (path) {
+            case "/api/programs" -> {
+                Page<Program> page = DatabaseUtils.queryProgramsPage(after(params), limit(params), order(params));
+                yield pageJson(page, this::appendProgram);
+            }
+            case "/api/sponsors" -> {
+                Page<Sponsor> page = DatabaseUtils.querySponsorsPage(after(params), limit(params), order(params));
+                yield pageJson(page, this::appendSponsor);
+            }
+            case "/api/statistics/investments" -> {
+                StringBuilder json = new StringBuilder("{\"items\":[");
+                List<SponsorInvestment> investments = DatabaseUtils.loadSponsorInvestments();
+                for (int i = 0; i < investments.size(); i++) {
+                    if (i > 0) json.append(',');
+                    SponsorInvestment investment = investments.get(i);
+                    json.append("{\"sponsorId\":").append(investment.sponsorId())
+                            .append(",\"sponsorName\":").append(string(investment.sponsorName()))
+                            .append(",\"totalInvestment\":").append(investment.totalInvestment()).append('}');
+                }
+                yield json.append("]}").toString();
+            }
+            default -> throw new IllegalArgumentException("Unknown path " + path + ".");
+        };
+    }
+
+    private <T> String pageJson(Page<T> page, ItemWriter<T> writer) {
+        StringBuilder json = new StringBuilder("{\"items\":[");
+        for (int i = 0; i < page.items().size(); i++) {
+            if (i > 0) json.append(',');
+            writer.append(json, page.items().get(i));
+        }
+        return json.append("],\"nextAfter\":").append(page.nextKey()).append('}').toString();
+    }
+
+    private void appendProgram(StringBuilder json, Program program) {
+        json.append("{\"id\":").append(program.getId())
+                .append(",\"name\":").append(string(program.getName()))
+                .append(",\"description\":").append(string(program.getDescription()))
+                .append(",\"dailyAmount\":").append(program.getDailyAmount())
+                .append(",\"startDate\":").append(string(String.valueOf(program.getStartDate())))
+                .append(",\"endDate\":").append(string(String.valueOf(program.getEndDate())))
+                .append(",\"fullAmount\":").append(program.getFullAmount())
+                .append(",\"sponsorId\":").append(program.getSponsor().getId())
+                .append(",\"sponsorName\":").append(string(program.getSponsor().getName()))
+                .append('}');
+    }
+
+    private void appendSponsor(StringBuilder json, Sponsor sponsor) {
+        Person person = sponsor.getContactPerson();
+        json.append("{\"id\":").append(sponsor.getId())
+                .append(",\"name\":").append(string(sponsor.getName()))
+                .append(",\"email\":").append(string(sponsor.getEmail()))
+                .append(",\"address\":");
+        appendAddress(json, sponsor.getAddress());
+        json.append(",\"contactPerson\":{\"id\":").append(person.getId())
+                .append(",\"firstName\":").append(string(person.getName()))
+                .append(",\"lastName\":").append(string(person.getSurname()))
+                .append(",\"address\":");
+        appendAddress(json, person.getAddress());
+        json.append("}}");
+    }
+
+    private void appendAddress(StringBuilder json, Address address) {
+        json.append("{\"city\":").append(string(address.getCity() == null ? null : address.getCity().getCityName()))
+                .append(",\"street\":").append(string(address.getStreetName()))
+                .append(",\"houseNumber\":").append(string(address.getHouseNumber()))
+                .append('}');
+    }
+
+    private static String string(String value) {
+        if (value == null) return "null";
+        StringBuilder json = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) json.append(String.format("\\u%04x", (int) c));
+                    else json.append(c);
+                }
+            }
+        }
+        return json.append('"').toString();
+    }
+
+    private static Long after(Map<String, String> params) {
+        String value = params.get("after");
+        if (value == null) return null;
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Parameter 'after' must be a number.");
+        }
+    }
+
+    private static int limit(Map<String, String> params) {
+        String value = params.get("limit");
+        if (value == null) return DEFAULT_LIMIT;
+        try {
+            int limit = Integer.parseInt(value);
+            if (limit >= 1 && limit <= MAX_LIMIT) return limit;
+        } catch (NumberFormatException e) {
+            // obrađuje se ispod, isto kao broj izvan raspona
+        }
+        throw new IllegalArgumentException("Parameter 'limit' must be between 1 and " + MAX_LIMIT + ".");
+    }
+
+    private static SORT_ORDER order(Map<String, String> params) {
+        String value = params.getOrDefault("order", "asc");
+        return switch (value) {
+            case "asc" -> SORT_ORDER.ASCENDING;
+            case "desc" -> SORT_ORDER.DESCENDING;
+            default -> throw new IllegalArgumentException("Parameter 'order' must be 'asc' or 'desc'.");
+        };
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> params = new HashMap<>();
+        if (query == null || query.isEmpty()) return params;
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq <= 0) continue;
+            params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (!parts[0].trim().equalsIgnoreCase("gzip")) continue;
+            return Arrays.stream(parts).skip(1).map(String::trim)
+                    .noneMatch(p -> p.matches("q=0(\\.0*)?"));
+        }
+        return false;
+    }
+
+    /**
+     * Provjerava odgovara li neka od oznaka iz zaglavlja <code>If-None-Match</code> trenutnoj verziji podataka.
+     * Uspoređuje se bez obzira na oznaku slabe usporedbe (<code>W/</code>) i na sažimanje tijela, jer oba oblika
+     * odgovora predstavljaju iste podatke.
+     */
+    private static boolean matches(List<String> ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) return false;
+        for (String header : ifNoneMatch) {
+            for (String candidate : header.split(",")) {
+                String tag = candidate.trim();
+                if (tag.equals("*")) return true;
+                if (tag.startsWith("W/")) tag = tag.substring(2);
+                if (tag.equals(quote(etag, false)) || tag.equals(quote(etag, true))) return true;
+            }
+        }
+        return false;
+    }
+
+    private static String quote(String etag, boolean gzip) {
+        return "\"" + etag + (gzip ? "-gzip" : "") + "\"";
+    }
+
+    private static byte[] compress(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            logger.error("Sažimanje odgovora nije uspjelo.", e);
+        }
+        return out.toByteArray();
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] body = ("{\"error\":" + string(message) + "}").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ItemWriter<T> {
+        void append(StringBuilder json, T item);
+    }
+
+    /**
+     * Pripremljeni odgovor za jednu adresu, u izvornom i sažetom obliku.
+     *
+     * @param version verzija podataka iz koje je odgovor nastao
+     * @param body tijelo odgovora
+     * @param gzipBody tijelo odgovora sažeto gzipom
+     */
+    private record CachedResponse(long version, byte[] body, byte[] gzipBody) {
+    }
+}
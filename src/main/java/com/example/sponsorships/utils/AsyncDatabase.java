@@ -0,0 +1,205 @@
+package com.example.sponsorships.utils;
+
+import com.example.sponsorships.entities.Program;
+import com.example.sponsorships.entities.Sponsor;
+import com.example.sponsorships.enums.SORT_ORDER;
+import com.example.sponsorships.records.Page;
+import javafx.application.Platform;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Asinkrona fasada nad {@link DatabaseUtils} koja upite izvršava na virtualnim dretvama.
+ * <p>
+ * Kontroleri preko ove klase pokreću rad s bazom bez blokiranja JavaFX dretve, a rezultate
+ * vraćaju na JavaFX dretvu metodom {@link #onFxThread(CompletableFuture, Consumer, Consumer)}.
+ * </p>
+ */
+public class AsyncDatabase {
+
+    /** Privatni konstruktor da se spriječi instanciranje ove pomoćne klase. */
+    private AsyncDatabase() {}
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncDatabase.class);
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 5;
+    private static final ExecutorService executor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("db-", 0).factory());
+
+    /**
+     * Izvršava zadani posao na virtualnoj dretvi. Provjerene iznimke se omataju u {@link CompletionException}.
+     *
+     * @param task posao koji se izvršava
+     * @param <T> tip rezultata
+     * @return budući rezultat posla
+     */
+    public static <T> CompletableFuture<T> call(Callable<T> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return task.call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Izvršava zadani posao bez rezultata na virtualnoj dretvi.
+     *
+     * @param task posao koji se izvršava
+     * @return budući završetak posla
+     */
+    public static CompletableFuture<Void> run(Runnable task) {
+        return CompletableFuture.runAsync(task, executor);
+    }
+
+    /**
+     * Asinkrono učitava sve programe.
+     *
+     * @return budući popis programa
+     */
+    public static CompletableFuture<List<Program>> loadPrograms() {
+        return call(DatabaseUtils::loadPrograms);
+    }
+
+    /**
+     * Asinkrono učitava sve sponzore.
+     *
+     * @return budući popis sponzora
+     */
+    public static CompletableFuture<List<Sponsor>> loadSponsors() {
+        return call(DatabaseUtils::loadSponsors);
+    }
+
+    /**
+     * Asinkrono učitava jednu stranicu programa.
+     *
+     * @param afterId ključ nakon kojeg počinje stranica, ili {@code null} za prvu stranicu
+     * @param pageSize broj programa na stranici
+     * @param order smjer sortiranja
+     * @return buduća stranica programa; završava iznimkom ako dohvat iz baze ne uspije
+     */
+    public static CompletableFuture<Page<Program>> loadProgramsPage(Long afterId, int pageSize, SORT_ORDER order) {
+        return call(() -> DatabaseUtils.queryProgramsPage(afterId, pageSize, order));
+    }
+
+    /**
+     * Asinkrono učitava jednu stranicu sponzora.
+     *
+     * @param afterId ključ nakon kojeg počinje stranica, ili {@code null} za prvu stranicu
+     * @param pageSize broj sponzora na stranici
+     * @param order smjer sortiranja
+     * @return buduća stranica sponzora; završava iznimkom ako dohvat iz baze ne uspije
+     */
+    public static CompletableFuture<Page<Sponsor>> loadSponsorsPage(Long afterId, int pageSize, SORT_ORDER order) {
+        return call(() -> DatabaseUtils.querySponsorsPage(afterId, pageSize, order));
+    }
+
+    /**
+     * Asinkrono dodaje novi program. Ako program s istim nazivom postoji, budući rezultat završava iznimkom
+     * {@link com.example.sponsorships.exceptions.ItemAlreadyExistsException}, a ako unos ne uspije iz drugog razloga,
+     * iznimkom baze podataka.
+     *
+     * @param name naziv programa
+     * @param sponsorId ID sponzora
+     * @param dailyAmount dnevni iznos
+     * @param description opis programa
+     * @param startDate datum početka
+     * @param endDate datum završetka
+     * @return budući završetak unosa
+     */
+    public static CompletableFuture<Void> insertProgram(String name, long sponsorId, double dailyAmount, String description,
+                                                        LocalDate startDate, LocalDate endDate) {
+        return call(() -> {
+            DatabaseUtils.insertProgram(name, sponsorId, dailyAmount, description, startDate, endDate);
+            return null;
+        });
+    }
+
+    /**
+     * Asinkrono sprema izmjene programa.
+     *
+     * @param program izmijenjeni program
+     * @return budući završetak spremanja
+     */
+    public static CompletableFuture<Void> updateProgram(Program program) {
+        return call(() -> {
+            DatabaseUtils.updateProgram(program);
+            return null;
+        });
+    }
+
+    /**
+     * Asinkrono sprema izmjene sponzora, njegove adrese i kontakt osobe.
+     *
+     * @param sponsor izmijenjeni sponzor
+     * @return budući završetak spremanja
+     */
+    public static CompletableFuture<Void> updateSponsor(Sponsor sponsor) {
+        return call(() -> {
+            DatabaseUtils.updateSponsor(sponsor);
+            return null;
+        });
+    }
+
+    /**
+     * Asinkrono briše redak iz zadane tablice.
+     *
+     * @param tableName naziv tablice
+     * @param id ID retka
+     * @return budući završetak brisanja
+     */
+    public static CompletableFuture<Void> deleteById(String tableName, Long id) {
+        return call(() -> {
+            DatabaseUtils.deleteById(tableName, id);
+            return null;
+        });
+    }
+
+    /**
+     * Kada budući rezultat završi, predaje rezultat ili iznimku zadanim akcijama na JavaFX dretvi.
+     * {@link CompletionException} se odmata pa akcija za grešku dobiva stvarni uzrok.
+     *
+     * @param future budući rezultat
+     * @param onSuccess akcija s rezultatom
+     * @param onError akcija s iznimkom
+     * @param <T> tip rezultata
+     */
+    public static <T> void onFxThread(CompletableFuture<T> future, Consumer<T> onSuccess, Consumer<Throwable> onError) {
+        future.whenComplete((result, error) -> Platform.runLater(() -> {
+            if (error == null) {
+                onSuccess.accept(result);
+                return;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            logger.error("Asinkroni rad s bazom nije uspio: {}", cause.getMessage());
+            onError.accept(cause);
+        }));
+    }
+
+    /**
+     * Zaustavlja izvršitelj; novi poslovi se više ne primaju, a na započete se čeka najviše
+     * {@value #SHUTDOWN_TIMEOUT_SECONDS} sekundi.
+     */
+    public static void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                logger.warn("Neki poslovi s bazom nisu dovršeni prije gašenja.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
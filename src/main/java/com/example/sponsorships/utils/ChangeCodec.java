@@ -0,0 +1,231 @@
+package com.example.sponsorships.utils;
+
+import com.example.sponsorships.entities.Change;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Kompaktni binarni zapis promjena ({@link Change}) koji zamjenjuje Java serijalizaciju.
+ * <p>
+ * Zapis jedne promjene (verzija {@value #FORMAT_VERSION}) sastoji se od bajta sa zastavicama za vrijednosti koje su
+ * {@code null}, vremena kao varint broja milisekundi od epohe (UTC), opisa i korisnika iz rječnika, te stare i nove
+ * vrijednosti kao UTF-8 nizova s duljinom ispred. Opis i korisnik zapisuju se u cijelosti samo prvi put, a svaki sljedeći
+ * put kao redni broj u rječniku. Rječnik pripada jednom nizu zapisa (npr. jednoj datoteci dnevnika), pa se zapisi moraju
+ * dekodirati redom kojim su kodirani, istom instancom kodeka, osim ako je kodeku unaprijed predan cijeli rječnik.
+ * </p>
+ * <p>
+ * Vrijeme se sprema s preciznošću od jedne milisekunde.
+ * </p>
+ */
+public class ChangeCodec {
+
+    /** Verzija formata zapisa koju ovaj kodek piše. */
+    public static final byte FORMAT_VERSION = 2;
+
+    private static final int MAX_DICTIONARY_SIZE = 65_536;
+    private static final int NULL_TIMESTAMP = 1;
+    private static final int NULL_DESCRIPTION = 1 << 1;
+    private static final int NULL_USER = 1 << 2;
+    private static final int NULL_OLD_VALUE = 1 << 3;
+    private static final int NULL_NEW_VALUE = 1 << 4;
+
+    private final List<String> dictionary = new ArrayList<>();
+    private final Map<String, Integer> dictionaryIds = new HashMap<>();
+    private final boolean frozen;
+    private byte[] buffer = new byte[256];
+    private int length;
+
+    /**
+     * Stvara kodek s praznim rječnikom koji se puni redom kodiranja ili dekodiranja.
+     */
+    public ChangeCodec() {
+        this.frozen = false;
+    }
+
+    /**
+     * Stvara kodek za dekodiranje pojedinačnih zapisa bilo kojim redoslijedom, s unaprijed poznatim cjelokupnim
+     * rječnikom niza zapisa (npr. iz indeksa segmenta). Takav rječnik se pri dekodiranju ne mijenja.
+     *
+     * @param dictionary svi unosi rječnika redoslijedom kojim su nastali
+     */
+    public ChangeCodec(List<String> dictionary) {
+        this.frozen = true;
+        for (String value : dictionary) {
+            dictionaryIds.put(value, this.dictionary.size());
+            this.dictionary.add(value);
+        }
+    }
+
+    /**
+     * Vraća trenutne unose rječnika redoslijedom kojim su nastali.
+     *
+     * @return kopija rječnika
+     */
+    public List<String> dictionary() {
+        return List.copyOf(dictionary);
+    }
+
+    /**
+     * Kodira promjenu i dodaje njezin opis i korisnika u rječnik ako se pojavljuju prvi put.
+     *
+     * @param change promjena koja se kodira
+     * @return kodirani zapis
+     */
+    public byte[] encode(Change change) {
+        length = 0;
+        int flags = (change.getTimestamp() == null ? NULL_TIMESTAMP : 0)
+                | (change.getDescription() == null ? NULL_DESCRIPTION : 0)
+                | (change.getUser() == null ? NULL_USER : 0)
+                | (change.getOldValue() == null ? NULL_OLD_VALUE : 0)
+                | (change.getNewValue() == null ? NULL_NEW_VALUE : 0);
+        writeByte(flags);
+        if (change.getTimestamp() != null) {
+            long millis = change.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli();
+            writeVarLong((millis << 1) ^ (millis >> 63));
+        }
+        if (change.getDescription() != null) writeDictionaryString(change.getDescription());
+        if (change.getUser() != null) writeDictionaryString(change.getUser());
+        if (change.getOldValue() != null) writeString(change.getOldValue());
+        if (change.getNewValue() != null) writeString(change.getNewValue());
+        return Arrays.copyOf(buffer, length);
+    }
+
+    /**
+     * Dekodira jednu promjenu s trenutne pozicije međuspremnika i pomiče poziciju iza nje.
+     *
+     * @param in međuspremnik s kodiranim zapisom
+     * @return dekodirana promjena
+     * @throws IOException ako zapis nije ispravan
+     */
+    public Change decode(ByteBuffer in) throws IOException {
+        try {
+            int flags = in.get();
+            LocalDateTime timestamp = null;
+            if ((flags & NULL_TIMESTAMP) == 0) {
+                long zigzag = readVarLong(in);
+                long millis = (zigzag >>> 1) ^ -(zigzag & 1);
+                timestamp = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+            }
+            String description = (flags & NULL_DESCRIPTION) == 0 ? readDictionaryString(in) : null;
+            String user = (flags & NULL_USER) == 0 ? readDictionaryString(in) : null;
+            String oldValue = (flags & NULL_OLD_VALUE) == 0 ? readString(in) : null;
+            String newValue = (flags & NULL_NEW_VALUE) == 0 ? readString(in) : null;
+            return new Change(description, timestamp, user, oldValue, newValue);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("Neispravan zapis promjene.", e);
+        }
+    }
+
+    /**
+     * Vraća oznaku trenutnog stanja rječnika.
+     *
+     * @return oznaka koja se može predati metodi {@link #reset(int)}
+     */
+    public int mark() {
+        return dictionary.size();
+    }
+
+    /**
+     * Vraća rječnik u stanje zadane oznake, npr. kada kodirani zapisi nisu uspješno zapisani.
+     *
+     * @param mark oznaka dobivena metodom {@link #mark()}
+     */
+    public void reset(int mark) {
+        while (dictionary.size() > mark) {
+            dictionaryIds.remove(dictionary.remove(dictionary.size() - 1));
+        }
+    }
+
+    private void writeDictionaryString(String value) {
+        Integer id = dictionaryIds.get(value);
+        if (id != null) {
+            writeVarLong(((long) id << 1) | 1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong((long) bytes.length << 1);
+        writeBytes(bytes);
+        if (dictionary.size() < MAX_DICTIONARY_SIZE) {
+            dictionaryIds.put(value, dictionary.size());
+            dictionary.add(value);
+        }
+    }
+
+    private String readDictionaryString(ByteBuffer in) throws IOException {
+        long code = readVarLong(in);
+        if ((code & 1) == 1) {
+            long id = code >>> 1;
+            if (id >= dictionary.size()) throw new IOException("Nepoznat unos rječnika " + id + ".");
+            return dictionary.get((int) id);
+        }
+        String value = readBytes(in, code >>> 1);
+        if (!frozen && dictionary.size() < MAX_DICTIONARY_SIZE) {
+            dictionaryIds.put(value, dictionary.size());
+            dictionary.add(value);
+        }
+        return value;
+    }
+
+    private void writeString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(bytes.length);
+        writeBytes(bytes);
+    }
+
+    private static String readString(ByteBuffer in) throws IOException {
+        return readBytes(in, readVarLong(in));
+    }
+
+    private static String readBytes(ByteBuffer in, long count) throws IOException {
+        if (count > in.remaining()) throw new IOException("Duljina niza premašuje zapis.");
+        byte[] bytes = new byte[(int) count];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void writeVarLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        writeByte((int) value);
+    }
+
+    private static long readVarLong(ByteBuffer in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Predugačak varint.");
+    }
+
+    private void writeByte(int value) {
+        ensureCapacity(1);
+        buffer[length++] = (byte) value;
+    }
+
+    private void writeBytes(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, length, bytes.length);
+        length += bytes.length;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + extra));
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.example.sponsorships.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * Indeks jednog zatvorenog segmenta dnevnika promjena.
+ * <p>
+ * Sadrži rijetki vremenski indeks (položaj te najranije i najkasnije vrijeme svakog bloka od {@value #BLOCK_SIZE} zapisa),
+ * položaje svih zapisa svakog korisnika te cjelokupni rječnik segmenta, pa se pojedini zapisi mogu dekodirati bez
+ * čitanja segmenta od početka.
+ * Indeks se sprema u datoteku s nastavkom <code>.idx</code> pokraj segmenta.
+ * </p>
+ */
+public class ChangeIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChangeIndex.class);
+    private static final int MAGIC = 0x43494458;
+    private static final byte VERSION = 1;
+
+    /** Broj uzastopnih zapisa obuhvaćenih jednim unosom vremenskog indeksa. */
+    public static final int BLOCK_SIZE = 64;
+
+    private final List<String> dictionary;
+    private final int[] blockOffsets;
+    private final long[] blockMinMillis;
+    private final long[] blockMaxMillis;
+    private final Map<String, int[]> userOffsets;
+
+    /**
+     * Privatni konstruktor; indeks se gradi metodom {@link #build(ByteBuffer)} ili čita metodom {@link #read(Path)}.
+     *
+     * @param dictionary rječnik segmenta
+     * @param blockOffsets položaji prvih zapisa blokova
+     * @param blockMinMillis najranija vremena u blokovima, u milisekundama od epohe (UTC)
+     * @param blockMaxMillis najkasnija vremena u blokovima, u milisekundama od epohe (UTC)
+     * @param userOffsets položaji zapisa po korisniku, uzlazno
+     */
+    private ChangeIndex(List<String> dictionary, int[] blockOffsets, long[] blockMinMillis, long[] blockMaxMillis,
+                        Map<String, int[]> userOffsets) {
+        this.dictionary = dictionary;
+        this.blockOffsets = blockOffsets;
+        this.blockMinMillis = blockMinMillis;
+        this.blockMaxMillis = blockMaxMillis;
+        this.userOffsets = userOffsets;
+    }
+
+    /**
+     * Gradi indeks jednim prolazom kroz sadržaj segmenta.
+     *
+     * @param contents sadržaj datoteke segmenta
+     * @return indeks segmenta
+     * @throws IOException ako zapis nije moguće dekodirati
+     */
+    public static ChangeIndex build(ByteBuffer contents) throws IOException {
+        ChangeCodec codec = new ChangeCodec();
+        List<long[]> blocks = new ArrayList<>();
+        Map<String, List<Integer>> byUser = new HashMap<>();
+        int[] count = {0};
+        ChangeJournal.forEachRecord(contents, ChangeJournal.FIRST_RECORD_OFFSET, codec, (offset, change) -> {
+            if (count[0]++ % BLOCK_SIZE == 0) blocks.add(new long[]{offset, Long.MAX_VALUE, Long.MIN_VALUE});
+            long[] block = blocks.get(blocks.size() - 1);
+            if (change.getTimestamp() == null) {
+                block[1] = Long.MIN_VALUE;
+                block[2] = Long.MAX_VALUE;
+            } else {
+                long millis = toMillis(change.getTimestamp());
+                block[1] = Math.min(block[1], millis);
+                block[2] = Math.max(block[2], millis);
+            }
+            if (change.getUser() != null) byUser.computeIfAbsent(change.getUser(), u -> new ArrayList<>()).add(offset);
+        });
+
+        int[] blockOffsets = new int[blocks.size()];
+        long[] blockMinMillis = new long[blocks.size()];
+        long[] blockMaxMillis = new long[blocks.size()];
+        for (int i = 0; i < blocks.size(); i++) {
+            blockOffsets[i] = (int) blocks.get(i)[0];
+            blockMinMillis[i] = blocks.get(i)[1];
+            blockMaxMillis[i] = blocks.get(i)[2];
+        }
+        Map<String, int[]> userOffsets = new HashMap<>();
+        byUser.forEach((user, offsets) -> userOffsets.put(user, offsets.stream().mapToInt(Integer::intValue).toArray()));
+        return new ChangeIndex(codec.dictionary(), blockOffsets, blockMinMillis, blockMaxMillis, userOffsets);
+    }
+
+    /**
+     * Čita indeks iz datoteke.
+     *
+     * @param file datoteka indeksa
+     * @return indeks segmenta
+     * @throws IOException ako datoteka ne postoji ili nije ispravan indeks
+     */
+    public static ChangeIndex read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+                throw new IOException("Datoteka " + file + " nije indeks dnevnika promjena.");
+            }
+            int dictionarySize = in.readInt();
+            List<String> dictionary = new ArrayList<>(dictionarySize);
+            for (int i = 0; i < dictionarySize; i++) dictionary.add(readString(in));
+
+            int blockCount = in.readInt();
+            int[] blockOffsets = new int[blockCount];
+            long[] blockMinMillis = new long[blockCount];
+            long[] blockMaxMillis = new long[blockCount];
+            for (int i = 0; i < blockCount; i++) {
+                blockOffsets[i] = in.readInt();
+                blockMinMillis[i] = in.readLong();
+                blockMaxMillis[i] = in.readLong();
+            }
+
+            int userCount = in.readInt();
+            Map<String, int[]> userOffsets = new HashMap<>();
+            for (int i = 0; i < userCount; i++) {
+                String user = readString(in);
+                int[] offsets = new int[in.readInt()];
+                for (int j = 0; j < offsets.length; j++) offsets[j] = in.readInt();
+                userOffsets.put(user, offsets);
+            }
+            return new ChangeIndex(dictionary, blockOffsets, blockMinMillis, blockMaxMillis, userOffsets);
+        } catch (EOFException e) {
+            throw new IOException("Indeks " + file + " je nepotpun.", e);
+        }
+    }
+
+    /**
+     * Zapisuje indeks u datoteku preko privremene datoteke i atomarnog preimenovanja.
+     *
+     * @param file datoteka indeksa
+     * @throws IOException ako pisanje ne uspije
+     */
+    public void write(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeInt(dictionary.size());
+            for (String value : dictionary) writeString(out, value);
+            out.writeInt(blockOffsets.length);
+            for (int i = 0; i < blockOffsets.length; i++) {
+                out.writeInt(blockOffsets[i]);
+                out.writeLong(blockMinMillis[i]);
+                out.writeLong(blockMaxMillis[i]);
+            }
+            out.writeInt(userOffsets.size());
+            for (Map.Entry<String, int[]> entry : userOffsets.entrySet()) {
+                writeString(out, entry.getKey());
+                out.writeInt(entry.getValue().length);
+                for (int offset : entry.getValue()) out.writeInt(offset);
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        logger.debug("Zapisan indeks {} ({} korisnika).", file, userOffsets.size());
+    }
+
+    /**
+     * Vraća kodek s cjelokupnim rječnikom segmenta, kojim se zapisi mogu dekodirati bilo kojim redoslijedom.
+     *
+     * @return kodek za dekodiranje zapisa segmenta
+     */
+    public ChangeCodec codec() {
+        return new ChangeCodec(dictionary);
+    }
+
+    /**
+     * Vraća položaje prvih zapisa svih blokova koji mogu sadržavati promjene iz zadanog vremenskog raspona.
+     * Svaki blok obuhvaća najviše {@value #BLOCK_SIZE} uzastopnih zapisa.
+     *
+     * @param from najranije traženo vrijeme, ili {@code null} bez donje granice
+     * @param to najkasnije traženo vrijeme, ili {@code null} bez gornje granice
+     * @return položaji blokova, uzlazno
+     */
+    public int[] blocksInRange(LocalDateTime from, LocalDateTime to) {
+        long fromMillis = from == null ? Long.MIN_VALUE : toMillis(from);
+        long toMillis = to == null ? Long.MAX_VALUE : toMillis(to);
+        int[] result = new int[blockOffsets.length];
+        int count = 0;
+        for (int i = 0; i < blockOffsets.length; i++) {
+            if (blockMaxMillis[i] >= fromMillis && blockMinMillis[i] <= toMillis) result[count++] = blockOffsets[i];
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Vraća položaj prvog zapisa zadanog bloka; blok {@code n} počinje zapisom rednog broja {@code n * BLOCK_SIZE}.
+     *
+     * @param block redni broj bloka
+     * @return položaj prvog zapisa bloka
+     */
+    public int blockOffset(int block) {
+        return blockOffsets[block];
+    }
+
+    /**
+     * Vraća položaje svih zapisa zadanog korisnika, uzlazno.
+     *
+     * @param user korisničko ime
+     * @return položaji zapisa; prazan niz ako korisnik nema promjena u segmentu
+     */
+    public int[] offsetsForUser(String user) {
+        return userOffsets.getOrDefault(user, new int[0]);
+    }
+
+    /**
+     * Vraća sve korisnike koji imaju promjene u segmentu.
+     *
+     * @return skup korisničkih imena
+     */
+    public Set<String> users() {
+        return Collections.unmodifiableSet(userOffsets.keySet());
+    }
+
+    private static long toMillis(LocalDateTime timestamp) {
+        return timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return new String(in.readNBytes(in.readInt()), StandardCharsets.UTF_8);
+    }
+}
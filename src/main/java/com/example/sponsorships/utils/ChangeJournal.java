@@ -0,0 +1,504 @@
+package com.example.sponsorships.utils;
+
+import com.example.sponsorships.entities.Change;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Dnevnik promjena u koji se zapisi samo dodaju na kraj datoteke.
+ * <p>
+ * Datoteka počinje zaglavljem (oznaka formata i verzija), a svaki zapis je oblika
+ * <code>[duljina][CRC32][sadržaj]</code>. Dodavanje promjene zapisuje samo novi zapis, neovisno o duljini povijesti.
+ * Pri otvaranju se datoteka pregledava, a nepotpun ili oštećen zadnji zapis (npr. zbog prekida pri pisanju)
+ * se odsijeca, pa dnevnik uvijek završava zadnjim ispravnim zapisom.
+ * </p>
+ * <p>
+ * Dnevnik se pri otvaranju i čitanju cijeli učitava u memoriju, pa je namijenjen datotekama ograničene veličine,
+ * npr. jednom segmentu {@link ChangeLog}-a. Za čitanje dijela zapisa ({@link #readRange(long, int)}) dnevnik u memoriji
+ * čuva položaj prvog zapisa svakog bloka od {@value ChangeIndex#BLOCK_SIZE} zapisa, pa se s diska čitaju samo
+ * blokovi koji sadrže tražene zapise.
+ * </p>
+ */
+public class ChangeJournal implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChangeJournal.class);
+    private static final int MAGIC = 0x434A524E;
+    private static final byte LEGACY_VERSION = 1;
+    private static final int HEADER_SIZE = Integer.BYTES + 1;
+    /** Položaj prvog zapisa u datoteci dnevnika, odmah iza zaglavlja. */
+    public static final int FIRST_RECORD_OFFSET = HEADER_SIZE;
+    private static final int RECORD_HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int MAX_RECORD_SIZE = 16 * 1024 * 1024;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final ChangeCodec codec;
+    private volatile long size;
+    private long recordCount;
+    private LocalDateTime minTimestamp;
+    private LocalDateTime maxTimestamp;
+    private final List<Long> blockOffsets = new ArrayList<>();
+
+    /**
+     * Privatni konstruktor; dnevnik se otvara preko {@link #open(Path)}.
+     *
+     * @param path putanja do datoteke dnevnika
+     * @param channel kanal otvoren za pisanje
+     * @param codec kodek čiji rječnik odgovara zapisima u datoteci
+     * @param size duljina ispravnog dijela datoteke
+     */
+    private ChangeJournal(Path path, FileChannel channel, ChangeCodec codec, long size) {
+        this.path = path;
+        this.channel = channel;
+        this.codec = codec;
+        this.size = size;
+    }
+
+    /**
+     * Otvara dnevnik na zadanoj putanji, a ako ne postoji, stvara ga. Oštećeni zadnji zapis se odsijeca,
+     * a dnevnik zapisan u prvoj verziji formata prepisuje se u trenutnu verziju ({@link ChangeCodec}).
+     *
+     * @param path putanja do datoteke dnevnika
+     * @return otvoreni dnevnik
+     * @throws IOException ako se datoteka ne može otvoriti ili nije u formatu dnevnika
+     */
+    public static ChangeJournal open(Path path) throws IOException {
+        if (path.getParent() != null) Files.createDirectories(path.getParent());
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() < HEADER_SIZE) {
+                writeHeader(channel);
+            }
+            ByteBuffer contents = readContents(channel, channel.size());
+            if (readVersion(contents) == LEGACY_VERSION) {
+                List<Change> changes = new ArrayList<>();
+                scan(contents, LEGACY_VERSION, null, changes::add);
+                channel.close();
+                rewrite(path, changes);
+                logger.info("Dnevnik promjena {} prepisan u verziju {} ({} promjena).", path, ChangeCodec.FORMAT_VERSION, changes.size());
+                return open(path);
+            }
+            ChangeCodec codec = new ChangeCodec();
+            List<Change> recovered = new ArrayList<>();
+            List<Long> offsets = new ArrayList<>();
+            long validSize = forEachRecord(contents, FIRST_RECORD_OFFSET, codec, (offset, change) -> {
+                if (recovered.size() % ChangeIndex.BLOCK_SIZE == 0) offsets.add((long) offset);
+                recovered.add(change);
+            });
+            if (validSize < channel.size()) {
+                logger.warn("Dnevnik promjena {} sadrži oštećen zapis na kraju; odsijeca se {} bajtova.",
+                        path, channel.size() - validSize);
+                channel.truncate(validSize);
+                channel.force(true);
+            }
+            channel.position(validSize);
+            ChangeJournal journal = new ChangeJournal(path, channel, codec, validSize);
+            journal.blockOffsets.addAll(offsets);
+            journal.updateStatistics(recovered);
+            return journal;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Dodaje jednu promjenu na kraj dnevnika i čeka da bude zapisana na disk.
+     *
+     * @param change promjena koja se dodaje
+     * @throws IOException ako pisanje ne uspije
+     */
+    public void append(Change change) throws IOException {
+        appendAll(List.of(change));
+    }
+
+    /**
+     * Dodaje više promjena na kraj dnevnika jednim pisanjem i jednim zapisivanjem na disk.
+     * Ako pisanje ne uspije, djelomično zapisani zapisi se odsijecaju.
+     *
+     * @param changes promjene koje se dodaju, redoslijedom kojim trebaju biti zapisane
+     * @throws IOException ako je neka promjena veća od najveće dopuštene duljine zapisa, pa se ništa ne zapisuje,
+     *                     ili ako pisanje ne uspije
+     */
+    public synchronized void appendAll(List<Change> changes) throws IOException {
+        int mark = codec.mark();
+        ByteBuffer[] records = new ByteBuffer[changes.size()];
+        long remaining = 0;
+        for (int i = 0; i < records.length; i++) {
+            records[i] = encodeRecord(changes.get(i));
+            // Oporavak bi dulji zapis smatrao oštećenim i odsjekao ga zajedno sa svim zapisima iza njega
+            if (records[i].remaining() - RECORD_HEADER_SIZE > MAX_RECORD_SIZE) {
+                codec.reset(mark);
+                throw new IOException("Promjena je veća od najveće dopuštene duljine zapisa (" + MAX_RECORD_SIZE + " bajtova).");
+            }
+            remaining += records[i].remaining();
+        }
+        try {
+            while (remaining > 0) {
+                remaining -= channel.write(records);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            codec.reset(mark);
+            channel.truncate(size);
+            channel.position(size);
+            throw e;
+        }
+        long position = size;
+        for (int i = 0; i < records.length; i++) {
+            if ((recordCount + i) % ChangeIndex.BLOCK_SIZE == 0) blockOffsets.add(position);
+            position += records[i].limit();
+        }
+        size = channel.position();
+        updateStatistics(changes);
+    }
+
+    private void updateStatistics(List<Change> changes) {
+        recordCount += changes.size();
+        for (Change change : changes) {
+            if (change.getTimestamp() == null) continue;
+            LocalDateTime stored = change.getTimestamp().truncatedTo(ChronoUnit.MILLIS);
+            // Promjene ne stižu nužno redoslijedom vremena nastanka, pa se pamte najranije i najkasnije vrijeme.
+            if (minTimestamp == null || stored.isBefore(minTimestamp)) minTimestamp = stored;
+            if (maxTimestamp == null || stored.isAfter(maxTimestamp)) maxTimestamp = stored;
+        }
+    }
+
+    /**
+     * Čita sve promjene iz dnevnika redoslijedom kojim su dodane.
+     *
+     * @return lista svih zabilježenih promjena
+     * @throws IOException ako čitanje ne uspije
+     */
+    public List<Change> readAll() throws IOException {
+        try (FileChannel reader = FileChannel.open(path, StandardOpenOption.READ)) {
+            return decodeAll(readContents(reader, size));
+        }
+    }
+
+    /**
+     * Čita uzastopne zapise dnevnika. S diska se čitaju samo blokovi zapisa koji sadrže tražene zapise, a dekodiraju
+     * se kopijom trenutnog rječnika kodeka.
+     *
+     * @param first redni broj prvog zapisa, od 0
+     * @param count najveći broj zapisa
+     * @return promjene redoslijedom kojim su dodane; manje od {@code count} ako dnevnik ranije završava
+     * @throws IOException ako čitanje ne uspije
+     */
+    public List<Change> readRange(long first, int count) throws IOException {
+        List<Change> changes = new ArrayList<>();
+        long from;
+        long to;
+        long skip;
+        ChangeCodec reader;
+        synchronized (this) {
+            if (first < 0 || first >= recordCount || count <= 0) return changes;
+            int block = (int) (first / ChangeIndex.BLOCK_SIZE);
+            int lastBlock = (int) ((Math.min(first + count, recordCount) - 1) / ChangeIndex.BLOCK_SIZE);
+            from = blockOffsets.get(block);
+            to = lastBlock + 1 < blockOffsets.size() ? blockOffsets.get(lastBlock + 1) : size;
+            skip = first - (long) block * ChangeIndex.BLOCK_SIZE;
+            reader = new ChangeCodec(codec.dictionary());
+        }
+        if (to - from > Integer.MAX_VALUE) throw new IOException("Raspon zapisa je prevelik za čitanje u memoriju.");
+        ByteBuffer contents = ByteBuffer.allocate((int) (to - from));
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+            readFully(in, contents, from);
+        }
+        contents.flip();
+        int position = 0;
+        int length;
+        for (long i = 0; changes.size() < count && (length = checkedLength(contents, position)) > 0; i++) {
+            if (i >= skip) changes.add(decodeAt(contents, position, reader));
+            position += length;
+        }
+        return changes;
+    }
+
+    /**
+     * Dekodira sve promjene iz cjelokupnog sadržaja datoteke dnevnika, npr. zatvorenog segmenta koji je
+     * prethodno raspakiran. Čita se do kraja sadržaja ili do prvog nepotpunog zapisa.
+     *
+     * @param contents sadržaj datoteke dnevnika, od zaglavlja nadalje
+     * @return lista promjena redoslijedom kojim su dodane
+     * @throws IOException ako sadržaj nije dnevnik promjena podržane verzije
+     */
+    public static List<Change> decodeAll(ByteBuffer contents) throws IOException {
+        List<Change> changes = new ArrayList<>();
+        byte version = readVersion(contents);
+        scan(contents, version, version == LEGACY_VERSION ? null : new ChangeCodec(), changes::add);
+        return changes;
+    }
+
+    /**
+     * Vraća putanju do datoteke dnevnika.
+     *
+     * @return putanja do datoteke
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Vraća duljinu ispravnog dijela datoteke u bajtovima.
+     *
+     * @return duljina datoteke
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Vraća broj zapisa u dnevniku.
+     *
+     * @return broj zapisa
+     */
+    public synchronized long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Vraća najranije vrijeme promjene u dnevniku.
+     *
+     * @return najranije vrijeme promjene ili {@code null} ako je dnevnik prazan
+     */
+    public synchronized LocalDateTime getMinTimestamp() {
+        return minTimestamp;
+    }
+
+    /**
+     * Vraća najkasnije vrijeme promjene u dnevniku.
+     *
+     * @return najkasnije vrijeme promjene ili {@code null} ako je dnevnik prazan
+     */
+    public synchronized LocalDateTime getMaxTimestamp() {
+        return maxTimestamp;
+    }
+
+    /**
+     * Zatvara dnevnik.
+     *
+     * @throws IOException ako zatvaranje ne uspije
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Jednokratno prebacuje promjene iz stare datoteke sa serijaliziranom listom u novi dnevnik.
+     * Dnevnik se prvo zapisuje u privremenu datoteku pa atomarno preimenuje, a stara datoteka se
+     * čuva s nastavkom <code>.bak</code>.
+     *
+     * @param legacyFile stara datoteka sa serijaliziranom listom promjena
+     * @param journalFile putanja novog dnevnika
+     * @return broj prebačenih promjena
+     * @throws IOException ako čitanje stare ili pisanje nove datoteke ne uspije
+     */
+    @SuppressWarnings("unchecked")
+    public static int migrateLegacyFile(Path legacyFile, Path journalFile) throws IOException {
+        List<Change> changes;
+        try (ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(legacyFile)))) {
+            changes = (List<Change>) ois.readObject();
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("Neispravna datoteka promjena " + legacyFile, e);
+        }
+
+        rewrite(journalFile, changes);
+        Files.move(legacyFile, legacyFile.resolveSibling(legacyFile.getFileName() + ".bak"), StandardCopyOption.REPLACE_EXISTING);
+        return changes.size();
+    }
+
+    /**
+     * Zapisuje zadane promjene u novi dnevnik preko privremene datoteke koja se zatim atomarno preimenuje.
+     *
+     * @param journalFile putanja dnevnika
+     * @param changes promjene koje se zapisuju
+     * @throws IOException ako pisanje ne uspije
+     */
+    private static void rewrite(Path journalFile, List<Change> changes) throws IOException {
+        Path temp = journalFile.resolveSibling(journalFile.getFileName() + ".tmp");
+        Files.deleteIfExists(temp);
+        try (ChangeJournal journal = open(temp)) {
+            journal.appendAll(changes);
+        }
+        Files.move(temp, journalFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static void writeHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).put(ChangeCodec.FORMAT_VERSION).flip();
+        channel.truncate(0);
+        channel.write(header, 0);
+        channel.force(true);
+    }
+
+    private static ByteBuffer readContents(FileChannel channel, long limit) throws IOException {
+        if (limit > Integer.MAX_VALUE) throw new IOException("Dnevnik promjena je prevelik za čitanje u memoriju.");
+        ByteBuffer contents = ByteBuffer.allocate((int) limit);
+        readFully(channel, contents, 0);
+        return contents.flip();
+    }
+
+    private static byte readVersion(ByteBuffer contents) throws IOException {
+        if (contents.limit() < HEADER_SIZE) throw new IOException("Datoteka nije dnevnik promjena.");
+        int magic = contents.getInt(0);
+        byte version = contents.get(Integer.BYTES);
+        if (magic != MAGIC || (version != LEGACY_VERSION && version != ChangeCodec.FORMAT_VERSION)) {
+            throw new IOException("Datoteka nije dnevnik promjena podržane verzije.");
+        }
+        return version;
+    }
+
+    /**
+     * Prolazi zapisima od zaglavlja dok ne naiđe na kraj ili na nepotpun ili oštećen zapis.
+     *
+     * @param contents sadržaj datoteke dnevnika
+     * @param version verzija formata zapisa
+     * @param codec kodek koji dekodira zapise i gradi rječnik, ili {@code null} za prvu verziju formata
+     * @param sink akcija koja prima svaku pročitanu promjenu
+     * @return pozicija iza zadnjeg ispravnog zapisa
+     * @throws IOException ako zapis s ispravnim zbrojem nije moguće dekodirati
+     */
+    private static long scan(ByteBuffer contents, byte version, ChangeCodec codec, Consumer<Change> sink) throws IOException {
+        int position = FIRST_RECORD_OFFSET;
+        int length;
+        while ((length = recordLength(contents, position)) > 0) {
+            ByteBuffer payload = contents.slice(position + RECORD_HEADER_SIZE, length - RECORD_HEADER_SIZE);
+            sink.accept(version == LEGACY_VERSION ? decodeV1(payload) : codec.decode(payload));
+            position += length;
+        }
+        return position;
+    }
+
+    /**
+     * Prolazi ispravnim zapisima trenutne verzije formata od zadanog položaja do kraja sadržaja
+     * ili do prvog nepotpunog ili oštećenog zapisa.
+     *
+     * @param contents sadržaj datoteke dnevnika
+     * @param offset položaj prvog zapisa koji se čita
+     * @param codec kodek kojim se zapisi dekodiraju
+     * @param visitor akcija koja prima položaj i sadržaj svakog zapisa
+     * @return položaj iza zadnjeg pročitanog zapisa
+     * @throws IOException ako zapis nije moguće dekodirati
+     */
+    public static int forEachRecord(ByteBuffer contents, int offset, ChangeCodec codec, RecordVisitor visitor) throws IOException {
+        int position = offset;
+        int length;
+        while ((length = recordLength(contents, position)) > 0) {
+            visitor.visit(position, decodeAt(contents, position, codec));
+            position += length;
+        }
+        return position;
+    }
+
+    /**
+     * Provjerava zapis na zadanom položaju i vraća njegovu ukupnu duljinu sa zaglavljem zapisa.
+     *
+     * @param contents sadržaj datoteke dnevnika
+     * @param offset položaj zapisa
+     * @return duljina zapisa u bajtovima, ili -1 ako na položaju nema potpunog zapisa s ispravnim zbrojem
+     */
+    public static int recordLength(ByteBuffer contents, int offset) {
+        if (offset < FIRST_RECORD_OFFSET) return -1;
+        return checkedLength(contents, offset);
+    }
+
+    private static int checkedLength(ByteBuffer contents, int offset) {
+        int end = contents.limit();
+        if (offset + RECORD_HEADER_SIZE > end) return -1;
+        int length = contents.getInt(offset);
+        int checksum = contents.getInt(offset + Integer.BYTES);
+        if (length < 0 || length > MAX_RECORD_SIZE || (long) offset + RECORD_HEADER_SIZE + length > end) return -1;
+        CRC32 crc = new CRC32();
+        crc.update(contents.slice(offset + RECORD_HEADER_SIZE, length));
+        return (int) crc.getValue() == checksum ? RECORD_HEADER_SIZE + length : -1;
+    }
+
+    /**
+     * Dekodira zapis trenutne verzije formata na zadanom položaju. Zapis mora biti prethodno provjeren
+     * metodom {@link #recordLength(ByteBuffer, int)}.
+     *
+     * @param contents sadržaj datoteke dnevnika
+     * @param offset položaj zapisa
+     * @param codec kodek čiji rječnik odgovara zapisima prije zadanog položaja
+     * @return dekodirana promjena
+     * @throws IOException ako zapis nije moguće dekodirati
+     */
+    public static Change decodeAt(ByteBuffer contents, int offset, ChangeCodec codec) throws IOException {
+        int length = contents.getInt(offset);
+        return codec.decode(contents.slice(offset + RECORD_HEADER_SIZE, length));
+    }
+
+    /**
+     * Akcija koja prima zapis dnevnika zajedno s njegovim položajem u datoteci.
+     */
+    @FunctionalInterface
+    public interface RecordVisitor {
+        /**
+         * Obrađuje jedan zapis.
+         *
+         * @param offset položaj zapisa u datoteci
+         * @param change dekodirana promjena
+         * @throws IOException ako obrada ne uspije
+         */
+        void visit(int offset, Change change) throws IOException;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) throw new EOFException();
+        }
+    }
+
+    private ByteBuffer encodeRecord(Change change) {
+        byte[] payload = codec.encode(change);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return ByteBuffer.allocate(RECORD_HEADER_SIZE + payload.length)
+                .putInt(payload.length)
+                .putInt((int) crc.getValue())
+                .put(payload)
+                .flip();
+    }
+
+    /**
+     * Dekodira zapis iz prve verzije dnevnika, u kojoj su sve vrijednosti bile nizovi s duljinom ispred.
+     *
+     * @param payload sadržaj zapisa
+     * @return dekodirana promjena
+     * @throws IOException ako zapis nije ispravan
+     */
+    private static Change decodeV1(ByteBuffer payload) throws IOException {
+        byte[] bytes = new byte[payload.remaining()];
+        payload.get(bytes);
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            String timestamp = readStringV1(in);
+            String description = readStringV1(in);
+            String user = readStringV1(in);
+            String oldValue = readStringV1(in);
+            String newValue = readStringV1(in);
+            return new Change(description, timestamp == null ? null : LocalDateTime.parse(timestamp), user, oldValue, newValue);
+        }
+    }
+
+    private static String readStringV1(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) return null;
+        return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+}
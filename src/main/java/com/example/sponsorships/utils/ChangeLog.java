@@ -0,0 +1,596 @@
+package com.example.sponsorships.utils;
+
+import com.example.sponsorships.entities.Change;
+import com.example.sponsorships.records.ChangeQuery;
+import com.example.sponsorships.records.ChangeSegment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Dnevnik promjena podijeljen u segmente ograničene veličine i starosti.
+ * <p>
+ * Promjene se dodaju samo u aktivni segment ({@link ChangeJournal}). Kada aktivni segment dosegne
+ * <code>log.segmentMaxBytes</code> bajtova ili bude stariji od <code>log.segmentMaxAgeDays</code> dana,
+ * zatvara se i započinje novi. Zatvoreni segmenti se više ne mijenjaju, a uz <code>log.compressSealed=true</code>
+ * sažimaju se gzipom. Segmenti čija je najkasnija promjena starija od <code>log.retentionMonths</code> mjeseci se brišu.
+ * </p>
+ * <p>
+ * Popis segmenata čuva se u manifestu, pa se pri otvaranju pregledava samo aktivni segment i trošak otvaranja
+ * i dodavanja ne ovisi o duljini povijesti. Manifest se uvijek zapisuje preko privremene datoteke i atomarnog
+ * preimenovanja, a datoteke koje manifest ne navodi (npr. ostaci prekinutog sažimanja) brišu se pri otvaranju.
+ * </p>
+ * <p>
+ * Uz svaki zatvoreni segment zapisuje se {@link ChangeIndex} (datoteka s nastavkom <code>.idx</code>), pa upiti
+ * ({@link #query(ChangeQuery)}) preskaču segmente izvan traženog vremenskog raspona, a unutar segmenta dekodiraju samo
+ * zapise traženog korisnika ili blokove zapisa iz traženog raspona. Segmentima bez indeksa indeks se izgrađuje
+ * pri prvom upitu.
+ * </p>
+ * <p>
+ * Nesažeti zatvoreni segmenti čitaju se preslikavanjem datoteke u memoriju ({@link FileChannel#map}), pa se zapisi
+ * dekodiraju izravno iz preslikanog međuspremnika, bez kopiranja sadržaja datoteke na gomilu. Sažeti segmenti se
+ * pri čitanju raspakiravaju u memoriju.
+ * </p>
+ * <p>
+ * Preslikavanje ostaje u memoriji dok ga ne oslobodi skupljač smeća, pa na nekim sustavima (npr. Windows) brisanje
+ * isteklog segmenta ne uspije odmah. Takva se datoteka ponovno pokušava obrisati pri sljedećem zatvaranju segmenta,
+ * a najkasnije pri sljedećem otvaranju dnevnika, jer je manifest više ne navodi.
+ * </p>
+ */
+public class ChangeLog implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChangeLog.class);
+    private static final String MANIFEST = "manifest";
+    private static final String MANIFEST_HEADER = "# sequence;file;created;min;max;count;sealed;compressed";
+    private static final String APPEND_ORDER_MANIFEST_HEADER = "# sequence;file;created;first;last;count;sealed;compressed";
+    private static final String NULL_VALUE = "-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final String COMPRESSED_SUFFIX = ".gz";
+    private static final String INDEX_SUFFIX = ".idx";
+
+    private final Path directory;
+    private final long segmentMaxBytes;
+    private final Duration segmentMaxAge;
+    private final int retentionMonths;
+    private final boolean compressSealed;
+
+    private final List<ChangeSegment> sealedSegments = new ArrayList<>();
+    private final Map<Long, ChangeIndex> indexes = new ConcurrentHashMap<>();
+    private final Map<Long, ByteBuffer> mappedSegments = new ConcurrentHashMap<>();
+    private final Set<Path> undeletedFiles = new HashSet<>();
+    private boolean manifestStale;
+    private ChangeJournal active;
+    private long activeSequence;
+    private LocalDateTime activeCreated;
+
+    /**
+     * Privatni konstruktor; dnevnik se otvara preko {@link #open(Path, Properties)}.
+     *
+     * @param directory direktorij sa segmentima i manifestom
+     * @param settings postavke segmentiranja i zadržavanja
+     */
+    private ChangeLog(Path directory, Properties settings) {
+        this.directory = directory;
+        this.segmentMaxBytes = Long.parseLong(settings.getProperty("log.segmentMaxBytes", String.valueOf(4 * 1024 * 1024)));
+        this.segmentMaxAge = Duration.ofDays(Long.parseLong(settings.getProperty("log.segmentMaxAgeDays", "30")));
+        this.retentionMonths = Integer.parseInt(settings.getProperty("log.retentionMonths", "24"));
+        this.compressSealed = Boolean.parseBoolean(settings.getProperty("log.compressSealed", "false"));
+    }
+
+    /**
+     * Otvara segmentirani dnevnik u zadanom direktoriju, a ako ne postoji, stvara ga.
+     *
+     * @param directory direktorij sa segmentima i manifestom
+     * @param settings postavke segmentiranja i zadržavanja
+     * @return otvoreni dnevnik
+     * @throws IOException ako se manifest ili aktivni segment ne mogu pročitati
+     */
+    public static ChangeLog open(Path directory, Properties settings) throws IOException {
+        Files.createDirectories(directory);
+        ChangeLog log = new ChangeLog(directory, settings);
+        Path manifest = directory.resolve(MANIFEST);
+        boolean appendOrderBounds = Files.exists(manifest)
+                && Files.readAllLines(manifest, StandardCharsets.UTF_8).contains(APPEND_ORDER_MANIFEST_HEADER);
+        List<ChangeSegment> segments = recoverUnlistedSegments(directory, readManifest(manifest));
+        ChangeSegment last = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        for (ChangeSegment segment : segments) {
+            if (segment != last || segment.sealed()) log.sealedSegments.add(segment);
+        }
+        if (last != null && !last.sealed()) {
+            log.activeSequence = last.sequence();
+            log.activeCreated = last.created();
+            log.active = ChangeJournal.open(directory.resolve(last.fileName()));
+        } else {
+            log.startSegment(last == null ? 1 : last.sequence() + 1);
+        }
+        log.deleteUnreferencedFiles();
+        if (appendOrderBounds) log.recomputeSealedBounds();
+        log.applyRetention();
+        log.writeManifest();
+        return log;
+    }
+
+    /**
+     * Preuzima postojeći dnevnik iz jedne datoteke kao prvi, aktivni segment novog segmentiranog dnevnika.
+     * Ne radi ništa ako u direktoriju već postoji manifest.
+     *
+     * @param directory direktorij segmentiranog dnevnika
+     * @param journalFile postojeća datoteka dnevnika
+     * @throws IOException ako premještanje datoteke ne uspije
+     */
+    public static void adoptJournal(Path directory, Path journalFile) throws IOException {
+        if (Files.exists(directory.resolve(MANIFEST))) return;
+        Files.createDirectories(directory);
+        String fileName = segmentFileName(1);
+        Files.move(journalFile, directory.resolve(fileName), StandardCopyOption.REPLACE_EXISTING);
+        writeManifest(directory, List.of(new ChangeSegment(1, fileName, LocalDateTime.now(), null, null, 0, false, false)));
+    }
+
+    /**
+     * Dodaje promjene u aktivni segment, a prije toga ga po potrebi zatvara i započinje novi.
+     *
+     * @param changes promjene koje se dodaju
+     * @throws IOException ako pisanje ne uspije
+     */
+    public synchronized void appendAll(List<Change> changes) throws IOException {
+        if (active.size() >= segmentMaxBytes
+                || (active.getRecordCount() > 0 && activeCreated.plus(segmentMaxAge).isBefore(LocalDateTime.now()))) {
+            rotate();
+        } else if (manifestStale) {
+            writeManifestQuietly();
+        }
+        active.appendAll(changes);
+    }
+
+    /**
+     * Vraća opise svih segmenata, od najstarijeg do aktivnog.
+     *
+     * @return popis segmenata
+     */
+    public synchronized List<ChangeSegment> getSegments() {
+        List<ChangeSegment> segments = new ArrayList<>(sealedSegments);
+        segments.add(activeSegment());
+        return segments;
+    }
+
+    /**
+     * Čita sve promjene iz svih segmenata redoslijedom kojim su dodane.
+     *
+     * @return lista svih promjena
+     * @throws IOException ako čitanje nekog segmenta ne uspije
+     */
+    public List<Change> readAll() throws IOException {
+        List<Change> changes = new ArrayList<>();
+        for (ChangeSegment segment : getSegments()) {
+            changes.addAll(readSegment(segment));
+        }
+        return changes;
+    }
+
+    /**
+     * Čita sve promjene iz jednog segmenta.
+     *
+     * @param segment segment koji se čita
+     * @return promjene iz segmenta redoslijedom kojim su dodane
+     * @throws IOException ako čitanje ne uspije
+     */
+    public List<Change> readSegment(ChangeSegment segment) throws IOException {
+        ChangeJournal current;
+        synchronized (this) {
+            current = segment.sequence() == activeSequence ? active : null;
+            segment = currentDescriptor(segment);
+        }
+        if (current != null) return current.readAll();
+        return ChangeJournal.decodeAll(segmentContents(segment));
+    }
+
+    /**
+     * Čita uzastopne promjene iz jednog segmenta. Dekodiraju se samo tražene promjene, počevši od bloka u kojem je
+     * prva od njih; za zatvoreni segment položaj bloka daje indeks segmenta, a za aktivni dnevnik koji ga čuva u memoriji.
+     *
+     * @param segment segment koji se čita
+     * @param first redni broj prve promjene u segmentu, od 0
+     * @param count najveći broj promjena
+     * @return promjene redoslijedom kojim su dodane; manje od {@code count} ako segment ranije završava
+     * @throws IOException ako čitanje ne uspije
+     */
+    public List<Change> readRange(ChangeSegment segment, long first, int count) throws IOException {
+        ChangeJournal current;
+        synchronized (this) {
+            current = segment.sequence() == activeSequence ? active : null;
+            segment = currentDescriptor(segment);
+        }
+        if (current != null) return current.readRange(first, count);
+        ByteBuffer contents = segmentContents(segment);
+        ChangeIndex index = indexFor(segment, contents);
+        ChangeCodec codec = index.codec();
+        List<Change> changes = new ArrayList<>(count);
+        if (first >= segment.recordCount()) return changes;
+        int position = index.blockOffset((int) (first / ChangeIndex.BLOCK_SIZE));
+        for (long i = first - first % ChangeIndex.BLOCK_SIZE; i < first + count; i++) {
+            int length = ChangeJournal.recordLength(contents, position);
+            if (length < 0) break;
+            if (i >= first) changes.add(ChangeJournal.decodeAt(contents, position, codec));
+            position += length;
+        }
+        return changes;
+    }
+
+    /**
+     * Vraća promjene koje zadovoljavaju upit, redoslijedom kojim su dodane.
+     * <p>
+     * Zatvoreni segmenti čiji se vremenski raspon ne preklapa s upitom ne čitaju se. U ostalima se uz zadanog korisnika
+     * dekodiraju samo njegovi zapisi, a inače samo blokovi zapisa koji prema indeksu mogu biti u traženom rasponu.
+     * </p>
+     *
+     * @param query uvjeti pretraživanja
+     * @return promjene koje zadovoljavaju upit
+     * @throws IOException ako čitanje nekog segmenta ne uspije
+     */
+    public List<Change> query(ChangeQuery query) throws IOException {
+        return query(query, getSegments());
+    }
+
+    /**
+     * Pretražuje promjene zapisane do trenutka u kojem su pročitani zadani segmenti. Promjene dodane u aktivni segment
+     * nakon toga se ne vraćaju, pa se rezultat može točno uskladiti s promjenama koje kasnije stignu preko pretplate.
+     *
+     * @param query uvjeti pretraživanja
+     * @param segments segmenti dobiveni metodom {@link #getSegments()}
+     * @return promjene koje zadovoljavaju upit
+     * @throws IOException ako čitanje nekog segmenta ne uspije
+     */
+    public List<Change> query(ChangeQuery query, List<ChangeSegment> segments) throws IOException {
+        List<Change> changes = new ArrayList<>();
+        for (ChangeSegment segment : segments.subList(0, segments.size() - 1)) {
+            if (!query.overlaps(segment.minTimestamp(), segment.maxTimestamp())) continue;
+            querySegment(segment, query, changes);
+        }
+        ChangeSegment last = segments.get(segments.size() - 1);
+        List<Change> lastChanges = readSegment(last);
+        for (Change change : lastChanges.subList(0, (int) Math.min(lastChanges.size(), last.recordCount()))) {
+            if (query.matches(change)) changes.add(change);
+        }
+        return changes;
+    }
+
+    /**
+     * Zatvara aktivni segment i zapisuje manifest.
+     *
+     * @throws IOException ako zatvaranje ne uspije
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        active.close();
+        writeManifest();
+    }
+
+    /**
+     * Dodaje segmente koji su nastali nakon zadnjeg uspješnog zapisa manifesta, npr. ako zapisivanje manifesta nakon
+     * zatvaranja segmenta nije uspjelo do gašenja. Takvi segmenti imaju redni broj veći od zadnjeg segmenta u manifestu;
+     * svi osim posljednjeg se zatvaraju, a posljednji postaje aktivni segment.
+     *
+     * @param directory direktorij dnevnika
+     * @param segments segmenti iz manifesta
+     * @return segmenti iz manifesta i pronađeni segmenti, po rednom broju
+     * @throws IOException ako se direktorij ili pronađeni segment ne mogu pročitati
+     */
+    private static List<ChangeSegment> recoverUnlistedSegments(Path directory, List<ChangeSegment> segments) throws IOException {
+        long lastSequence = segments.isEmpty() ? 0 : segments.get(segments.size() - 1).sequence();
+        List<Long> unlisted = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "segment-*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    long sequence = Long.parseLong(name.substring("segment-".length(), name.length() - SEGMENT_SUFFIX.length()));
+                    if (sequence > lastSequence && name.equals(segmentFileName(sequence))) unlisted.add(sequence);
+                } catch (NumberFormatException e) {
+                    // Nije datoteka segmenta; briše se kao datoteka koju manifest ne navodi.
+                }
+            }
+        }
+        if (unlisted.isEmpty()) return segments;
+        Collections.sort(unlisted);
+        List<ChangeSegment> recovered = new ArrayList<>(segments);
+        if (!recovered.isEmpty() && !recovered.get(recovered.size() - 1).sealed()) {
+            ChangeSegment last = recovered.remove(recovered.size() - 1);
+            recovered.add(describe(directory, last.sequence(), last.created(), true));
+        }
+        for (int i = 0; i < unlisted.size(); i++) {
+            long sequence = unlisted.get(i);
+            LocalDateTime created = LocalDateTime.ofInstant(
+                    Files.getLastModifiedTime(directory.resolve(segmentFileName(sequence))).toInstant(), ZoneId.systemDefault());
+            recovered.add(describe(directory, sequence, created, i < unlisted.size() - 1));
+        }
+        logger.warn("Manifest dnevnika promjena nije navodio {} segmenata; segmenti su vraćeni u manifest.", unlisted.size());
+        return recovered;
+    }
+
+    private static ChangeSegment describe(Path directory, long sequence, LocalDateTime created, boolean sealed) throws IOException {
+        String fileName = segmentFileName(sequence);
+        try (ChangeJournal journal = ChangeJournal.open(directory.resolve(fileName))) {
+            return new ChangeSegment(sequence, fileName, created, journal.getMinTimestamp(), journal.getMaxTimestamp(),
+                    journal.getRecordCount(), sealed, false);
+        }
+    }
+
+    /**
+     * Starije verzije manifesta bilježile su vrijeme prve i zadnje dodane promjene umjesto najranijeg i najkasnijeg,
+     * pa se granice zatvorenih segmenata jednokratno ponovno računaju iz njihovog sadržaja.
+     *
+     * @throws IOException ako čitanje nekog segmenta ne uspije
+     */
+    private void recomputeSealedBounds() throws IOException {
+        for (int i = 0; i < sealedSegments.size(); i++) {
+            ChangeSegment s = sealedSegments.get(i);
+            LocalDateTime min = null;
+            LocalDateTime max = null;
+            for (Change change : ChangeJournal.decodeAll(segmentContents(s))) {
+                if (change.getTimestamp() == null) continue;
+                LocalDateTime stored = change.getTimestamp().truncatedTo(ChronoUnit.MILLIS);
+                if (min == null || stored.isBefore(min)) min = stored;
+                if (max == null || stored.isAfter(max)) max = stored;
+            }
+            sealedSegments.set(i, new ChangeSegment(s.sequence(), s.fileName(), s.created(), min, max, s.recordCount(),
+                    s.sealed(), s.compressed()));
+        }
+        logger.info("Ponovno izračunate vremenske granice {} zatvorenih segmenata dnevnika promjena.", sealedSegments.size());
+    }
+
+    private void querySegment(ChangeSegment segment, ChangeQuery query, List<Change> result) throws IOException {
+        ByteBuffer contents = segmentContents(segment);
+        ChangeIndex index = indexFor(segment, contents);
+        ChangeCodec codec = index.codec();
+        if (query.user() != null) {
+            for (int offset : index.offsetsForUser(query.user())) {
+                Change change = ChangeJournal.decodeAt(contents, offset, codec);
+                if (query.matches(change)) result.add(change);
+            }
+            return;
+        }
+        for (int blockOffset : index.blocksInRange(query.from(), query.to())) {
+            int position = blockOffset;
+            for (int i = 0; i < ChangeIndex.BLOCK_SIZE; i++) {
+                int length = ChangeJournal.recordLength(contents, position);
+                if (length < 0) break;
+                Change change = ChangeJournal.decodeAt(contents, position, codec);
+                if (query.matches(change)) result.add(change);
+                position += length;
+            }
+        }
+    }
+
+    private ChangeIndex indexFor(ChangeSegment segment, ByteBuffer contents) throws IOException {
+        ChangeIndex index = indexes.get(segment.sequence());
+        if (index != null) return index;
+        Path indexFile = directory.resolve(indexFileName(segment));
+        if (Files.exists(indexFile)) {
+            try {
+                index = ChangeIndex.read(indexFile);
+            } catch (IOException e) {
+                logger.warn("Indeks {} nije moguće pročitati, gradi se ponovno.", indexFile, e);
+            }
+        }
+        if (index == null) {
+            index = ChangeIndex.build(contents);
+            index.write(indexFile);
+            logger.info("Izgrađen indeks segmenta dnevnika promjena {}.", segment.fileName());
+        }
+        indexes.put(segment.sequence(), index);
+        return index;
+    }
+
+    private ByteBuffer segmentContents(ChangeSegment segment) throws IOException {
+        Path file = directory.resolve(segment.fileName());
+        if (segment.compressed()) {
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+                return ByteBuffer.wrap(in.readAllBytes());
+            }
+        }
+        ByteBuffer mapped = mappedSegments.get(segment.sequence());
+        if (mapped == null) {
+            mapped = map(file);
+            mappedSegments.put(segment.sequence(), mapped);
+        }
+        return mapped.duplicate();
+    }
+
+    private static ByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private ChangeSegment currentDescriptor(ChangeSegment segment) {
+        for (ChangeSegment sealed : sealedSegments) {
+            if (sealed.sequence() == segment.sequence()) return sealed;
+        }
+        return segment;
+    }
+
+    private ChangeSegment activeSegment() {
+        return new ChangeSegment(activeSequence, active.getPath().getFileName().toString(), activeCreated,
+                active.getMinTimestamp(), active.getMaxTimestamp(), active.getRecordCount(), false, false);
+    }
+
+    private void rotate() throws IOException {
+        ChangeSegment current = activeSegment();
+        ChangeJournal previous = active;
+        // Ako otvaranje novog segmenta ne uspije, dnevnik ostaje nepromijenjen i nastavlja pisati u stari segment.
+        startSegment(activeSequence + 1);
+        // Novi segment je već otvoren, pa greška nakon ovoga ne smije odbiti promjene koje se upravo dodaju.
+        try {
+            previous.close();
+        } catch (IOException e) {
+            logger.warn("Segment dnevnika promjena {} nije ispravno zatvoren: {}", current.fileName(), e.getMessage());
+        }
+        ChangeSegment sealed = new ChangeSegment(current.sequence(), current.fileName(), current.created(),
+                current.minTimestamp(), current.maxTimestamp(), current.recordCount(), true, false);
+        Path plainFile = directory.resolve(sealed.fileName());
+        try {
+            ChangeIndex index = ChangeIndex.build(map(plainFile));
+            index.write(directory.resolve(indexFileName(sealed)));
+            indexes.put(sealed.sequence(), index);
+            if (compressSealed) sealed = compress(sealed);
+        } catch (IOException e) {
+            // Segment ostaje nesažet, a indeks mu se izgrađuje pri prvom upitu.
+            logger.warn("Indeksiranje ili sažimanje segmenta dnevnika promjena {} nije uspjelo: {}", sealed.fileName(), e.getMessage());
+        }
+        sealedSegments.add(sealed);
+        try {
+            applyRetention();
+        } catch (IOException e) {
+            logger.error("Zadržavanje segmenata dnevnika promjena nije primijenjeno.", e);
+        }
+        writeManifestQuietly();
+        if (sealed.compressed() && !manifestStale && !deleteQuietly(plainFile)) undeletedFiles.add(plainFile);
+        logger.info("Zatvoren segment dnevnika promjena {} ({} promjena).", sealed.fileName(), sealed.recordCount());
+    }
+
+    private ChangeSegment compress(ChangeSegment segment) throws IOException {
+        String fileName = segment.fileName() + COMPRESSED_SUFFIX;
+        Path temp = directory.resolve(fileName + ".tmp");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp))) {
+            Files.copy(directory.resolve(segment.fileName()), out);
+        }
+        Files.move(temp, directory.resolve(fileName), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return new ChangeSegment(segment.sequence(), fileName, segment.created(), segment.minTimestamp(),
+                segment.maxTimestamp(), segment.recordCount(), true, true);
+    }
+
+    private void startSegment(long sequence) throws IOException {
+        active = ChangeJournal.open(directory.resolve(segmentFileName(sequence)));
+        activeSequence = sequence;
+        activeCreated = LocalDateTime.now();
+    }
+
+    private void applyRetention() throws IOException {
+        undeletedFiles.removeIf(this::deleteQuietly);
+        if (retentionMonths <= 0) return;
+        LocalDateTime cutoff = LocalDateTime.now().minusMonths(retentionMonths);
+        List<ChangeSegment> expired = sealedSegments.stream()
+                .filter(s -> s.maxTimestamp() == null ? s.created().isBefore(cutoff) : s.maxTimestamp().isBefore(cutoff))
+                .toList();
+        if (expired.isEmpty()) return;
+        sealedSegments.removeAll(expired);
+        writeManifest();
+        for (ChangeSegment segment : expired) {
+            indexes.remove(segment.sequence());
+            mappedSegments.remove(segment.sequence());
+            for (Path file : List.of(directory.resolve(segment.fileName()), directory.resolve(indexFileName(segment)))) {
+                if (!deleteQuietly(file)) undeletedFiles.add(file);
+            }
+            logger.info("Obrisan segment dnevnika promjena {} stariji od {} mjeseci.", segment.fileName(), retentionMonths);
+        }
+    }
+
+    private void deleteUnreferencedFiles() throws IOException {
+        Set<String> referenced = new HashSet<>();
+        referenced.add(MANIFEST);
+        referenced.add(active.getPath().getFileName().toString());
+        sealedSegments.forEach(s -> {
+            referenced.add(s.fileName());
+            referenced.add(indexFileName(s));
+        });
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                if (!referenced.contains(file.getFileName().toString()) && deleteQuietly(file)) {
+                    logger.warn("Obrisana datoteka {} koju manifest dnevnika promjena ne navodi.", file);
+                }
+            }
+        }
+    }
+
+    private boolean deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+            return true;
+        } catch (IOException e) {
+            logger.warn("Datoteku {} trenutno nije moguće obrisati, brisanje će se ponoviti: {}", file, e.getMessage());
+            return false;
+        }
+    }
+
+    private void writeManifestQuietly() {
+        try {
+            writeManifest();
+        } catch (IOException e) {
+            manifestStale = true;
+            logger.error("Manifest dnevnika promjena nije zapisan, zapisivanje će se ponoviti.", e);
+        }
+    }
+
+    private void writeManifest() throws IOException {
+        writeManifest(directory, getSegments());
+        manifestStale = false;
+    }
+
+    private static void writeManifest(Path directory, List<ChangeSegment> segments) throws IOException {
+        StringBuilder content = new StringBuilder(MANIFEST_HEADER).append('\n');
+        for (ChangeSegment s : segments) {
+            content.append(s.sequence()).append(';')
+                    .append(s.fileName()).append(';')
+                    .append(s.created()).append(';')
+                    .append(s.minTimestamp() == null ? NULL_VALUE : s.minTimestamp()).append(';')
+                    .append(s.maxTimestamp() == null ? NULL_VALUE : s.maxTimestamp()).append(';')
+                    .append(s.recordCount()).append(';')
+                    .append(s.sealed()).append(';')
+                    .append(s.compressed()).append('\n');
+        }
+        Path temp = directory.resolve(MANIFEST + ".tmp");
+        Files.writeString(temp, content, StandardCharsets.UTF_8);
+        Files.move(temp, directory.resolve(MANIFEST), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static List<ChangeSegment> readManifest(Path manifest) throws IOException {
+        List<ChangeSegment> segments = new ArrayList<>();
+        if (!Files.exists(manifest)) return segments;
+        for (String line : Files.readAllLines(manifest, StandardCharsets.UTF_8)) {
+            if (line.isBlank() || line.startsWith("#")) continue;
+            String[] parts = line.split(";");
+            if (parts.length != 8) throw new IOException("Neispravan redak manifesta: " + line);
+            segments.add(new ChangeSegment(Long.parseLong(parts[0]), parts[1], LocalDateTime.parse(parts[2]),
+                    parseTimestamp(parts[3]), parseTimestamp(parts[4]), Long.parseLong(parts[5]),
+                    Boolean.parseBoolean(parts[6]), Boolean.parseBoolean(parts[7])));
+        }
+        return segments;
+    }
+
+    private static LocalDateTime parseTimestamp(String value) {
+        return NULL_VALUE.equals(value) ? null : LocalDateTime.parse(value);
+    }
+
+    private static String indexFileName(ChangeSegment segment) {
+        return segmentFileName(segment.sequence()) + INDEX_SUFFIX;
+    }
+
+    private static String segmentFileName(long sequence) {
+        return String.format("segment-%08d%s", sequence, SEGMENT_SUFFIX);
+    }
+}
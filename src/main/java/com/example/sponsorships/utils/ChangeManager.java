@@ -1,18 +1,38 @@
 package com.example.sponsorships.utils;
 
 import com.example.sponsorships.entities.Change;
+import com.example.sponsorships.records.ChangeQuery;
+import com.example.sponsorships.records.ChangeSegment;
+import com.example.sponsorships.records.LoggedChange;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.*;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
 
 /**
  * Pomoćna klasa za upravljanje promjenama korisničkih akcija.
- * Omogućuje serijalizaciju i deserijalizaciju objekata tipa {@link Change} u binarnu datoteku.
- * Sadrži metode za spremanje, učitavanje i dodavanje promjena.
+ * Promjene tipa {@link Change} zapisuju se u segmentirani dnevnik ({@link ChangeLog}) u koji se nove promjene samo
+ * dodaju na kraj, pa trošak dodavanja ne ovisi o broju već zabilježenih promjena.
+ * Zapisivanje obavlja pozadinski {@link ChangeWriter}, pa pozivatelj ne čeka na disk.
+ * Sadrži metode za učitavanje i dodavanje promjena.
  * <p>
+ * Promjene koje su zapisane u dnevnik objavljuju se pretplatnicima ({@link #subscribe(Flow.Subscriber)}).
+ * Svaki pretplatnik ima ograničeni međuspremnik od <code>feed.bufferSize</code> promjena i sam zahtijeva koliko
+ * promjena može primiti; promjene za koje pretplatnik nema mjesta se za njega odbacuju, kako spori pretplatnik
+ * ne bi usporio zapisivanje.
+ * </p>
+ * <p>
+ * Postavke dnevnika i zapisivača čitaju se iz neobavezne datoteke <code>conf/changes.properties</code>.
+ * Pri prvom korištenju se promjene iz starijih formata (serijalizirana lista i dnevnik u jednoj datoteci)
+ * jednokratno prebacuju u segmentirani dnevnik.
  * Klasa koristi sinkronizaciju kako bi bila sigurna za višedretveno izvođenje.
  */
 public class ChangeManager {
@@ -20,53 +40,233 @@ public class ChangeManager {
     /** Privatni konstruktor da bi se onemogućilo instanciranje ove pomoćne klase. */
     private ChangeManager(){}
 
-    private static final String FILE_PATH = "files/changesFile.bin";
+    private static final String CONFIG_FILE = "conf/changes.properties";
+    private static final Path LOG_DIRECTORY = Path.of("files/changes");
+    private static final Path JOURNAL_PATH = Path.of("files/changes.journal");
+    private static final Path LEGACY_FILE_PATH = Path.of("files/changesFile.bin");
     private static final Logger logger = LoggerFactory.getLogger(ChangeManager.class);
+    private static ChangeLog log;
+    private static ChangeWriter writer;
+    private static Properties settings;
+    private static volatile SubmissionPublisher<LoggedChange> publisher;
+
+    /**
+     * Vraća otvoreni dnevnik promjena, a pri prvom pozivu ga otvara, po potrebi prebacuje stare promjene u njega
+     * i pokreće pozadinski zapisivač.
+     *
+     * @return dnevnik promjena
+     * @throws IOException ako se dnevnik ne može otvoriti
+     */
+    private static synchronized ChangeLog log() throws IOException {
+        if (log == null) {
+            migrateOlderFormats();
+            log = ChangeLog.open(LOG_DIRECTORY, settings());
+            publisher = new SubmissionPublisher<>(task -> Thread.ofVirtual().name("change-feed").start(task),
+                    Integer.parseInt(settings().getProperty("feed.bufferSize", String.valueOf(Flow.defaultBufferSize()))));
+            writer = ChangeWriter.fromProperties(log, settings(), ChangeManager::publish);
+        }
+        return log;
+    }
+
+    /**
+     * Prebacuje serijaliziranu listu promjena u dnevnik u jednoj datoteci, a taj dnevnik u prvi segment
+     * segmentiranog dnevnika. Ako prebacivanje liste ne uspije, stara datoteka se ostavlja netaknuta.
+     *
+     * @throws IOException ako premještanje dnevnika ne uspije
+     */
+    private static void migrateOlderFormats() throws IOException {
+        if (Files.exists(LEGACY_FILE_PATH) && !Files.exists(JOURNAL_PATH) && !Files.exists(LOG_DIRECTORY)) {
+            try {
+                int migrated = ChangeJournal.migrateLegacyFile(LEGACY_FILE_PATH, JOURNAL_PATH);
+                logger.info("U dnevnik promjena prebačeno je {} promjena iz {}.", migrated, LEGACY_FILE_PATH);
+            } catch (IOException e) {
+                logger.error("Promjene iz {} nisu prebačene u dnevnik; datoteka je ostavljena netaknuta.", LEGACY_FILE_PATH, e);
+            }
+        }
+        if (Files.exists(JOURNAL_PATH)) {
+            ChangeJournal.open(JOURNAL_PATH).close();
+            ChangeLog.adoptJournal(LOG_DIRECTORY, JOURNAL_PATH);
+            logger.info("Dnevnik promjena {} premješten u {}.", JOURNAL_PATH, LOG_DIRECTORY);
+        }
+    }
+
+    private static synchronized Properties settings() {
+        if (settings == null) {
+            settings = new Properties();
+            if (Files.exists(Path.of(CONFIG_FILE))) {
+                try (FileReader reader = new FileReader(CONFIG_FILE)) {
+                    settings.load(reader);
+                } catch (IOException e) {
+                    logger.warn("Postavke dnevnika promjena nisu učitane, koriste se zadane: {}", e.getMessage());
+                }
+            }
+        }
+        return settings;
+    }
+
+    /**
+     * Vraća postavku iz datoteke postavki dnevnika promjena.
+     *
+     * @param key naziv postavke
+     * @param defaultValue vrijednost koja se vraća ako postavka nije navedena
+     * @return vrijednost postavke
+     */
+    public static String getSetting(String key, String defaultValue) {
+        return settings().getProperty(key, defaultValue);
+    }
 
     /**
-     * Sprema listu promjena u binarnu datoteku.
+     * Vraća pozadinski zapisivač promjena, a pri prvom pozivu otvara dnevnik.
      *
-     * @param promjene lista objekata tipa {@link Change} koji se serijaliziraju i spremaju u datoteku
+     * @return zapisivač promjena
+     * @throws IOException ako se dnevnik ne može otvoriti
      */
-    public static synchronized void saveUserAction(List<Change> promjene) {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(FILE_PATH))) {
-            oos.writeObject(promjene);
-            logger.info("Spremljena promjena.");
+    private static synchronized ChangeWriter writer() throws IOException {
+        log();
+        return writer;
+    }
+
+    /**
+     * Vraća opise svih segmenata dnevnika, od najstarijeg do aktivnog, nakon što se zapišu sve predane promjene.
+     *
+     * @return popis segmenata; ako se dnevnik ne može otvoriti, vraća se prazna lista
+     */
+    public static List<ChangeSegment> getSegments() {
+        try {
+            writer().flush();
+            return log().getSegments();
         } catch (IOException e) {
-            logger.error("Pogreška pri serijalizaciji promjena.", e);
+            logger.error("Pogreška pri otvaranju dnevnika promjena.", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Prekinuto čekanje na zapisivanje promjena.", e);
         }
+        return new ArrayList<>();
     }
 
     /**
-     * Učitava i deserijalizira listu promjena iz binarne datoteke.
+     * Čita uzastopne promjene iz jednog segmenta dnevnika.
      *
-     * @return lista promjena korisničkih akcija; ako datoteka ne postoji, vraća se prazna lista
+     * @param segment segment koji se čita
+     * @param first redni broj prve promjene u segmentu, od 0
+     * @param count najveći broj promjena
+     * @return promjene redoslijedom kojim su dodane; ako čitanje ne uspije, vraća se prazna lista
      */
-    public static synchronized List<Change> loadUserActions() {
-        List<Change> userActions = new ArrayList<>();
-        File file = new File(FILE_PATH);
+    public static List<Change> readRange(ChangeSegment segment, long first, int count) {
+        try {
+            return log().readRange(segment, first, count);
+        } catch (IOException e) {
+            logger.error("Pogreška pri čitanju segmenta dnevnika promjena {}.", segment.fileName(), e);
+        }
+        return new ArrayList<>();
+    }
 
-        if (!file.exists()) {
-            return userActions;
+    /**
+     * Pretražuje dnevnik promjena, uključujući i promjene koje su predane, a još nisu bile zapisane.
+     *
+     * @param query uvjeti pretraživanja
+     * @return promjene koje zadovoljavaju upit; ako se dnevnik ne može pročitati, vraća se prazna lista
+     */
+    public static List<Change> queryChanges(ChangeQuery query) {
+        try {
+            writer().flush();
+            return log().query(query);
+        } catch (IOException e) {
+            logger.error("Pogreška pri pretraživanju dnevnika promjena.", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Prekinuto čekanje na zapisivanje promjena.", e);
         }
+        return new ArrayList<>();
+    }
 
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(FILE_PATH))) {
-            userActions = (List<Change>) ois.readObject();
+    /**
+     * Pretražuje promjene zapisane do trenutka u kojem su pročitani zadani segmenti (npr. metodom
+     * {@link #getSegments()}), pa se rezultat može uskladiti s promjenama koje stižu preko pretplate.
+     *
+     * @param query uvjeti pretraživanja
+     * @param segments segmenti dnevnika od najstarijeg do aktivnog
+     * @return promjene koje zadovoljavaju upit; ako se dnevnik ne može pročitati, vraća se prazna lista
+     */
+    public static List<Change> queryChanges(ChangeQuery query, List<ChangeSegment> segments) {
+        if (segments.isEmpty()) return new ArrayList<>();
+        try {
+            return log().query(query, segments);
+        } catch (IOException e) {
+            logger.error("Pogreška pri pretraživanju dnevnika promjena.", e);
         }
-        catch (IOException | ClassNotFoundException e) {
-            logger.error("Pogreška pri deserijalizaciji promjena.", e);
+        return new ArrayList<>();
+    }
+
+    /**
+     * Predaje novu promjenu pozadinskom zapisivaču koji je dodaje na kraj dnevnika.
+     * Ako je red promjena pun, čeka se dok se ne oslobodi mjesto.
+     *
+     * @param change nova promjena koja se dodaje
+     */
+    public static void addNewChange(Change change){
+        try {
+            writer().submit(change);
+        } catch (IOException | IllegalStateException e) {
+            logger.error("Pogreška pri spremanju promjene.", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Prekinuto čekanje na mjesto u redu promjena.", e);
         }
-        return userActions;
     }
 
     /**
-     * Dodaje novu promjenu u postojeću listu i sprema ažuriranu listu u datoteku.
+     * Pretplaćuje primatelja na promjene koje se od sada zapišu u dnevnik, redoslijedom zapisivanja.
+     * Uz svaku promjenu dolazi i njezino mjesto u dnevniku, pa pretplatnik može odbaciti promjene koje su već
+     * sadržane u ranije pročitanim segmentima ({@link LoggedChange#isIncludedIn(List)}).
      *
-     * @param change nova promjena koja se dodaje u listu
+     * @param subscriber pretplatnik koji promjene zahtijeva preko svoje {@link Flow.Subscription}
+     */
+    public static synchronized void subscribe(Flow.Subscriber<? super LoggedChange> subscriber) {
+        try {
+            log();
+            publisher.subscribe(subscriber);
+        } catch (IOException e) {
+            logger.error("Pogreška pri otvaranju dnevnika promjena; pretplata na promjene nije moguća.", e);
+        }
+    }
+
+    private static void publish(List<Change> changes) {
+        SubmissionPublisher<LoggedChange> current = publisher;
+        if (current == null || current.isClosed()) return;
+        // Poziva se na dretvi zapisivača odmah nakon dodavanja, a skupina se uvijek dodaje u jedan segment,
+        // pa su promjene zadnje u aktivnom segmentu.
+        List<ChangeSegment> segments = log.getSegments();
+        ChangeSegment active = segments.get(segments.size() - 1);
+        long index = active.recordCount() - changes.size();
+        for (Change change : changes) {
+            current.offer(new LoggedChange(active.sequence(), index++, change), (subscriber, dropped) -> {
+                logger.debug("Pretplatnik {} ne stiže primati promjene, promjena je odbačena.", subscriber);
+                return false;
+            });
+        }
+    }
+
+    /**
+     * Pri gašenju aplikacije zapisuje sve predane promjene, završava objavljivanje promjena i zatvara dnevnik promjena.
+     * Ako dretva zapisivača ne završi na vrijeme, dnevnik se ostavlja otvoren kako se ne bi zatvorio usred zapisivanja.
      */
-    public static synchronized void addNewChange(Change change){
-        List<Change> promjene = loadUserActions();
-        promjene.add(change);
-        saveUserAction(promjene);
+    public static synchronized void shutdown() {
+        if (log == null) return;
+        writer.close();
+        if (!writer.isStopped()) {
+            // Zatvoreni zapisivač ostaje na mjestu, pa nove promjene i dalje javljaju grešku umjesto da ponovno otvore dnevnik.
+            logger.error("Zapisivač promjena još radi; dnevnik promjena se ne zatvara.");
+            return;
+        }
+        writer = null;
+        publisher.close();
+        publisher = null;
+        try {
+            log.close();
+        } catch (IOException e) {
+            logger.error("Pogreška pri zatvaranju dnevnika promjena.", e);
+        }
+        log = null;
     }
 }
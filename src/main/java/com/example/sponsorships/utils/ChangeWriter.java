@@ -0,0 +1,219 @@
+package com.example.sponsorships.utils;
+
+import com.example.sponsorships.entities.Change;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Pozadinski zapisivač promjena koji više promjena zapisuje u dnevnik jednim zapisivanjem na disk (group commit).
+ * <p>
+ * Promjene se predaju u ograničeni red i odmah se vraća kontrola pozivatelju. Zasebna dretva uzima prvu promjenu
+ * iz reda, čeka najviše <code>writer.flushLatencyMillis</code> milisekundi da se skupi još promjena
+ * (najviše <code>writer.maxBatchSize</code>) i cijelu skupinu zapisuje u {@link ChangeLog}.
+ * Kada je red pun, predaja čeka dok zapisivač ne oslobodi mjesto, pa se memorija ne može nekontrolirano puniti.
+ * </p>
+ * <p>
+ * Nakon svakog uspješnog zapisivanja zapisane promjene predaju se zadanom primatelju (npr. za prikaz novih promjena
+ * bez ponovnog čitanja dnevnika). Pri zatvaranju se prvo zapišu sve promjene koje su već predane.
+ * </p>
+ */
+public class ChangeWriter implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChangeWriter.class);
+    private static final long CLOSE_TIMEOUT_MILLIS = 10_000;
+    private static final Metrics.Histogram appendTime = Metrics.histogram("changelog_append_duration_seconds",
+            "Trajanje jednog zapisivanja skupine promjena u dnevnik.");
+    private static final Metrics.Counter appendedChanges = Metrics.counter("changelog_appended_changes_total",
+            "Broj promjena zapisanih u dnevnik.");
+    private static final Metrics.Counter failedChanges = Metrics.counter("changelog_failed_changes_total",
+            "Broj promjena koje nije bilo moguće zapisati u dnevnik.");
+
+    private final ChangeLog log;
+    private final BlockingQueue<Change> queue;
+    private final long flushLatencyMillis;
+    private final int maxBatchSize;
+    private final Consumer<List<Change>> onWritten;
+    private final Thread thread;
+    private volatile boolean closed;
+    private final ReadWriteLock closing = new ReentrantReadWriteLock();
+
+    private final Object progress = new Object();
+    private long submitted;
+    private long written;
+
+    /**
+     * Stvara zapisivač nad zadanim dnevnikom i pokreće njegovu dretvu.
+     *
+     * @param log dnevnik u koji se promjene zapisuju
+     * @param queueCapacity najveći broj promjena koje čekaju na zapisivanje
+     * @param flushLatencyMillis najdulje vrijeme čekanja na dodatne promjene prije zapisivanja
+     * @param maxBatchSize najveći broj promjena u jednom zapisivanju
+     * @param onWritten primatelj promjena koje su uspješno zapisane, poziva se na dretvi zapisivača
+     */
+    public ChangeWriter(ChangeLog log, int queueCapacity, long flushLatencyMillis, int maxBatchSize,
+                        Consumer<List<Change>> onWritten) {
+        this.log = log;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.flushLatencyMillis = flushLatencyMillis;
+        this.maxBatchSize = maxBatchSize;
+        this.onWritten = onWritten;
+        this.thread = new Thread(this::run, "change-writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Stvara zapisivač sa zadanim postavkama <code>writer.queueCapacity</code>, <code>writer.flushLatencyMillis</code>
+     * i <code>writer.maxBatchSize</code>; za postavke koje nisu navedene koriste se zadane vrijednosti.
+     *
+     * @param log dnevnik u koji se promjene zapisuju
+     * @param props postavke zapisivača
+     * @param onWritten primatelj promjena koje su uspješno zapisane
+     * @return pokrenuti zapisivač
+     */
+    public static ChangeWriter fromProperties(ChangeLog log, Properties props, Consumer<List<Change>> onWritten) {
+        return new ChangeWriter(log,
+                Integer.parseInt(props.getProperty("writer.queueCapacity", "1024")),
+                Long.parseLong(props.getProperty("writer.flushLatencyMillis", "20")),
+                Integer.parseInt(props.getProperty("writer.maxBatchSize", "256")),
+                onWritten);
+    }
+
+    /**
+     * Predaje promjenu na zapisivanje. Ako je red pun, čeka dok se ne oslobodi mjesto.
+     *
+     * @param change promjena koja se zapisuje
+     * @throws InterruptedException ako je dretva prekinuta dok čeka mjesto u redu
+     * @throws IllegalStateException ako je zapisivač zatvoren
+     */
+    public void submit(Change change) throws InterruptedException {
+        // Provjera i stavljanje u red su pod istim zaključavanjem kojim close() označava zatvaranje, pa dretva
+        // zapisivača ne može završiti dok neka promjena tek ulazi u red.
+        closing.readLock().lockInterruptibly();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Zapisivač promjena je zatvoren.");
+            }
+            synchronized (progress) {
+                submitted++;
+            }
+            if (!queue.offer(change)) {
+                logger.debug("Red promjena je pun ({} promjena), čeka se zapisivanje.", queue.size());
+                try {
+                    queue.put(change);
+                } catch (InterruptedException e) {
+                    synchronized (progress) {
+                        submitted--;
+                        progress.notifyAll();
+                    }
+                    throw e;
+                }
+            }
+        } finally {
+            closing.readLock().unlock();
+        }
+    }
+
+    /**
+     * Čeka dok sve promjene predane prije poziva ove metode ne budu zapisane u dnevnik.
+     *
+     * @throws InterruptedException ako je dretva prekinuta dok čeka
+     */
+    public void flush() throws InterruptedException {
+        synchronized (progress) {
+            long target = submitted;
+            while (written < target && thread.isAlive()) {
+                progress.wait(100);
+            }
+        }
+    }
+
+    /**
+     * Zatvara zapisivač: nove promjene se više ne primaju, a sve već predane promjene se zapisuju u dnevnik.
+     * Čeka najviše {@value #CLOSE_TIMEOUT_MILLIS} ms da dretva zapisivača završi; je li završila provjerava se
+     * metodom {@link #isStopped()}.
+     */
+    @Override
+    public void close() {
+        closing.writeLock().lock();
+        try {
+            closed = true;
+        } finally {
+            closing.writeLock().unlock();
+        }
+        try {
+            thread.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (thread.isAlive()) {
+            logger.error("Zapisivač promjena nije završio unutar {} ms; {} promjena nije zapisano.", CLOSE_TIMEOUT_MILLIS, queue.size());
+        }
+    }
+
+    /**
+     * Provjerava je li dretva zapisivača završila, nakon čega zapisivač više ne koristi dnevnik.
+     *
+     * @return {@code true} ako dretva zapisivača više ne radi
+     */
+    public boolean isStopped() {
+        return !thread.isAlive();
+    }
+
+    private void run() {
+        List<Change> batch = new ArrayList<>(maxBatchSize);
+        while (!closed || !queue.isEmpty()) {
+            try {
+                Change first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushLatencyMillis);
+                while (batch.size() < maxBatchSize && !closed) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) break;
+                    Change next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                }
+                queue.drainTo(batch, maxBatchSize - batch.size());
+            } catch (InterruptedException e) {
+                closed = true;
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<Change> batch) {
+        long start = System.nanoTime();
+        try {
+            log.appendAll(batch);
+            appendTime.observeSince(start);
+            appendedChanges.add(batch.size());
+            logger.debug("Zapisano {} promjena u dnevnik.", batch.size());
+            onWritten.accept(List.copyOf(batch));
+        } catch (IOException e) {
+            failedChanges.add(batch.size());
+            logger.error("Pogreška pri zapisivanju {} promjena u dnevnik.", batch.size(), e);
+        } finally {
+            synchronized (progress) {
+                written += batch.size();
+                progress.notifyAll();
+            }
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.example.sponsorships.utils;
+
+import com.example.sponsorships.records.PoolStatistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.Deque;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ograničeni pool veza prema H2 bazi podataka.
+ * <p>
+ * Postavke se iz datoteke <code>conf/database.properties</code> čitaju samo jednom, pri prvom dohvatu pool-a.
+ * Osim obaveznih ključeva <code>databaseURL</code>, <code>username</code> i <code>password</code>,
+ * podržani su i neobavezni ključevi <code>pool.maxSize</code>, <code>pool.acquireTimeoutMillis</code>,
+ * <code>pool.idleTimeoutMillis</code>, <code>pool.validationIntervalMillis</code> i
+ * <code>pool.validationTimeoutSeconds</code>.
+ * </p>
+ * <p>
+ * Posuđene veze su omotači čija metoda {@link Connection#close()} vraća fizičku vezu u pool umjesto da je zatvori,
+ * pa postojeći <code>try-with-resources</code> blokovi rade bez izmjena.
+ * </p>
+ */
+public class ConnectionPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionPool.class);
+    private static final String DATABASE_FILE = "conf/database.properties";
+    private static final Metrics.Histogram acquireTime = Metrics.histogram("db_connection_acquire_seconds",
+            "Vrijeme čekanja na vezu iz pool-a.");
+    private static final Metrics.Histogram holdTime = Metrics.histogram("db_connection_hold_seconds",
+            "Vrijeme od posudbe do vraćanja veze u pool, tj. trajanje jednog rada s bazom.");
+    private static final Metrics.Counter acquireTimeouts = Metrics.counter("db_connection_acquire_timeouts_total",
+            "Broj posudbi veze koje nisu uspjele unutar zadanog vremena čekanja.");
+    private static ConnectionPool instance;
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final int maxSize;
+    private final long acquireTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final long validationIntervalMillis;
+    private final int validationTimeoutSeconds;
+
+    private final Semaphore permits;
+    private final Deque<PooledConnection> idle = new ConcurrentLinkedDeque<>();
+    private final ScheduledExecutorService evictor;
+    private volatile boolean closed;
+
+    private final LongAdder created = new LongAdder();
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    private final LongAdder validationFailures = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    /**
+     * Privatni konstruktor; pool se dohvaća preko {@link #getInstance()}.
+     *
+     * @param props učitane postavke baze podataka i pool-a
+     */
+    private ConnectionPool(Properties props) {
+        this.url = props.getProperty("databaseURL");
+        this.username = props.getProperty("username");
+        this.password = props.getProperty("password");
+        this.maxSize = Integer.parseInt(props.getProperty("pool.maxSize", "10"));
+        this.acquireTimeoutMillis = Long.parseLong(props.getProperty("pool.acquireTimeoutMillis", "5000"));
+        this.idleTimeoutMillis = Long.parseLong(props.getProperty("pool.idleTimeoutMillis", "300000"));
+        this.validationIntervalMillis = Long.parseLong(props.getProperty("pool.validationIntervalMillis", "30000"));
+        this.validationTimeoutSeconds = Integer.parseInt(props.getProperty("pool.validationTimeoutSeconds", "2"));
+        this.permits = new Semaphore(maxSize, true);
+
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "connection-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1000, idleTimeoutMillis / 2);
+        evictor.scheduleWithFixedDelay(this::evictIdleConnections, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Vraća jedinstvenu instancu pool-a, a pri prvom pozivu učitava postavke iz konfiguracijske datoteke.
+     *
+     * @return pool veza
+     * @throws IOException ako se konfiguracijska datoteka ne može pročitati
+     */
+    public static synchronized ConnectionPool getInstance() throws IOException {
+        if (instance == null) {
+            Properties props = new Properties();
+            try (FileReader reader = new FileReader(DATABASE_FILE)) {
+                props.load(reader);
+            }
+            instance = new ConnectionPool(props);
+            logger.info("Pool veza pokrenut (najviše {} veza).", instance.maxSize);
+        }
+        return instance;
+    }
+
+    /**
+     * Zatvara pool ako je pokrenut. Slobodne veze se odmah zatvaraju, a posuđene pri vraćanju.
+     */
+    public static synchronized void shutdown() {
+        if (instance != null) {
+            instance.close();
+            instance = null;
+        }
+    }
+
+    /**
+     * Posuđuje vezu iz pool-a. Ako nema slobodne veze, a pool nije pun, otvara se nova fizička veza.
+     * Ako je pool pun, čeka se najviše <code>pool.acquireTimeoutMillis</code> milisekundi.
+     *
+     * @return veza čije zatvaranje vraća fizičku vezu u pool
+     * @throws SQLException ako veza nije dostupna unutar zadanog vremena ili se ne može otvoriti
+     */
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Pool veza je zatvoren.");
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeouts.increment();
+                acquireTimeouts.increment();
+                throw new SQLTimeoutException("Veza prema bazi nije dostupna nakon " + acquireTimeoutMillis + " ms.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Prekinuto čekanje na vezu prema bazi.", e);
+        }
+
+        try {
+            PooledConnection pooled = pollValidIdle();
+            if (pooled == null) {
+                pooled = new PooledConnection(DriverManager.getConnection(url, username, password));
+                created.increment();
+            }
+            recordWait(System.nanoTime() - start);
+            return pooled.lease();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Vraća trenutne metrike pool-a.
+     *
+     * @return snimka stanja pool-a
+     */
+    public PoolStatistics getStatistics() {
+        long count = acquired.sum();
+        double averageWait = count == 0 ? 0 : totalWaitNanos.sum() / (double) count / 1_000_000;
+        int idleCount = idle.size();
+        return new PoolStatistics(maxSize, maxSize - permits.availablePermits(), idleCount, created.sum(), count,
+                timeouts.sum(), evicted.sum(), validationFailures.sum(), averageWait, maxWaitNanos.get() / 1_000_000.0);
+    }
+
+    /**
+     * Uzima najsvježiju slobodnu vezu i provjerava je ako je dulje vrijeme bila neaktivna.
+     *
+     * @return ispravna slobodna veza ili {@code null} ako takve nema
+     */
+    private PooledConnection pollValidIdle() {
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            if (System.currentTimeMillis() - pooled.lastUsed < validationIntervalMillis || isValid(pooled)) {
+                return pooled;
+            }
+            validationFailures.increment();
+            discard(pooled);
+        }
+        return null;
+    }
+
+    private boolean isValid(PooledConnection pooled) {
+        try {
+            return pooled.physical.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void recordWait(long waitNanos) {
+        acquired.increment();
+        totalWaitNanos.add(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+        acquireTime.observeNanos(waitNanos);
+    }
+
+    /**
+     * Vraća fizičku vezu u pool. Nepotvrđena transakcija se poništava, a veza vraća u auto-commit način rada.
+     *
+     * @param pooled veza koja se vraća
+     */
+    private void release(PooledConnection pooled) {
+        try {
+            if (closed || pooled.physical.isClosed()) {
+                discard(pooled);
+                return;
+            }
+            if (!pooled.physical.getAutoCommit()) {
+                pooled.physical.rollback();
+                pooled.physical.setAutoCommit(true);
+            }
+            pooled.lastUsed = System.currentTimeMillis();
+            idle.offerFirst(pooled);
+        } catch (SQLException e) {
+            logger.warn("Veza odbačena pri vraćanju u pool: {}", e.getMessage());
+            discard(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void evictIdleConnections() {
+        long now = System.currentTimeMillis();
+        for (PooledConnection pooled : idle) {
+            if (now - pooled.lastUsed > idleTimeoutMillis && idle.remove(pooled)) {
+                evicted.increment();
+                discard(pooled);
+            }
+        }
+    }
+
+    private void discard(PooledConnection pooled) {
+        try {
+            pooled.physical.close();
+        } catch (SQLException e) {
+            logger.warn("Pogreška pri zatvaranju veze: {}", e.getMessage());
+        }
+    }
+
+    private void close() {
+        closed = true;
+        evictor.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            discard(pooled);
+        }
+        logger.info("Pool veza zatvoren. {}", getStatistics());
+    }
+
+    /**
+     * Fizička veza koja se čuva u pool-u zajedno s vremenom zadnjeg korištenja.
+     */
+    private final class PooledConnection {
+        private final Connection physical;
+        private volatile long lastUsed = System.currentTimeMillis();
+
+        private PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        /**
+         * Stvara omotač oko fizičke veze za jednu posudbu. Nakon zatvaranja omotač se više ne može koristiti.
+         *
+         * @return omotana veza
+         */
+        private Connection lease() {
+            AtomicBoolean returned = new AtomicBoolean();
+            long leasedAt = System.nanoTime();
+            return (Connection) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "close" -> {
+                                if (returned.compareAndSet(false, true)) {
+                                    holdTime.observeSince(leasedAt);
+                                    release(this);
+                                }
+                                return null;
+                            }
+                            case "isClosed" -> {
+                                return returned.get() || physical.isClosed();
+                            }
+                            case "equals" -> {
+                                return proxy == args[0];
+                            }
+                            case "hashCode" -> {
+                                return System.identityHashCode(proxy);
+                            }
+                            case "toString" -> {
+                                return "Pooled" + physical;
+                            }
+                            default -> {
+                                if (returned.get()) {
+                                    throw new SQLException("Veza je već vraćena u pool.");
+                                }
+                            }
+                        }
+                        try {
+                            return method.invoke(physical, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+    }
+}
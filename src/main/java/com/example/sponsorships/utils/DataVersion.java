@@ -0,0 +1,49 @@
+package com.example.sponsorships.utils;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pomoćna klasa s brojačem verzije podataka u bazi.
+ * <p>
+ * Brojač se povećava nakon svakog potvrđenog upisa kroz {@link DatabaseUtils}, pa se iz njega mogu izvesti oznake
+ * (ETag) odgovora koje se mijenjaju samo kada se podaci promijene. Oznaka sadrži i nasumični broj odabran pri
+ * pokretanju aplikacije, kako oznaka iz prethodnog pokretanja ne bi odgovarala novim podacima.
+ * Izmjene koje u bazu upisuju drugi procesi ne povećavaju brojač.
+ * </p>
+ */
+public class DataVersion {
+
+    /** Privatni konstruktor da se spriječi instanciranje ove pomoćne klase. */
+    private DataVersion() {}
+
+    private static final String EPOCH = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    private static final AtomicLong version = new AtomicLong();
+
+    /**
+     * Vraća trenutnu verziju podataka. Verziju treba dohvatiti prije čitanja podataka, kako upis koji se dogodi
+     * za vrijeme čitanja ne bi ostao neprimijećen.
+     *
+     * @return trenutna verzija
+     */
+    public static long current() {
+        return version.get();
+    }
+
+    /**
+     * Povećava verziju podataka; poziva se nakon svakog potvrđenog upisa.
+     */
+    public static void increment() {
+        version.incrementAndGet();
+    }
+
+    /**
+     * Vraća oznaku zadane verzije jedinstvenu za ovo pokretanje aplikacije.
+     *
+     * @param version verzija dobivena metodom {@link #current()}
+     * @return oznaka verzije
+     */
+    public static String tag(long version) {
+        return EPOCH + "-" + version;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.sponsorships.utils;
+
+import com.example.sponsorships.interfaces.UserStore;
+import com.example.sponsorships.records.UserAccount;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.Optional;
+
+/**
+ * Spremište korisničkih računa u tablici <code>Users</code> baze podataka.
+ * <p>
+ * Korisničko ime je zaštićeno jedinstvenim ograničenjem, pa se prijava svodi na jedan dohvat po indeksu,
+ * a istodobne registracije istog korisničkog imena razrješava baza: uspijeva samo prvi upis.
+ * </p>
+ */
+public class DatabaseUserStore implements UserStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseUserStore.class);
+
+    @Override
+    public Optional<UserAccount> find(String username) throws IOException {
+        try {
+            return DatabaseUtils.findUserAccount(username);
+        } catch (SQLException e) {
+            throw new IOException("Korisnik nije dohvaćen iz baze: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public boolean register(UserAccount account) throws IOException {
+        try {
+            return DatabaseUtils.insertUserAccount(account);
+        } catch (SQLException e) {
+            throw new IOException("Korisnik nije spremljen u bazu: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Jednokratno prebacuje korisnike iz tekstualne datoteke u bazu, ako je tablica korisnika još prazna.
+     * Datoteka se ne mijenja, a korisnici koji već postoje u bazi se preskaču.
+     *
+     * @param usersFile datoteka korisnika u formatu <code>korisničko ime,sažetak lozinke,admin</code>
+     * @return broj prebačenih korisnika
+     */
+    public int importFrom(Path usersFile) {
+        if (!Files.exists(usersFile)) return 0;
+        try {
+            if (DatabaseUtils.countUserAccounts() > 0) return 0;
+            int imported = DatabaseUtils.importUserAccounts(UserDirectory.readAccounts(usersFile).values());
+            logger.info("U bazu je prebačeno {} korisnika iz {}.", imported, usersFile);
+            return imported;
+        } catch (SQLException | IOException e) {
+            logger.error("Korisnici iz {} nisu prebačeni u bazu: {}", usersFile, e.getMessage());
+            return 0;
+        }
+    }
+}
@@ -2,244 +2,326 @@ package com.example.sponsorships.utils;
 
 import com.example.sponsorships.entities.*;
 import com.example.sponsorships.enums.CITY;
+import com.example.sponsorships.enums.EXTENSION_OUTCOME;
+import com.example.sponsorships.enums.INSERT_OUTCOME;
+import com.example.sponsorships.enums.SORT_ORDER;
+import com.example.sponsorships.exceptions.DataAccessException;
 import com.example.sponsorships.exceptions.ItemAlreadyExistsException;
+import com.example.sponsorships.records.BatchInsertReport;
+import com.example.sponsorships.records.BatchRowResult;
+import com.example.sponsorships.records.CacheStatistics;
+import com.example.sponsorships.records.Page;
+import com.example.sponsorships.records.ProgramExtensionCount;
+import com.example.sponsorships.records.SponsorInvestment;
+import com.example.sponsorships.records.UserAccount;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.FileReader;
 import java.io.IOException;
 import java.sql.*;
 import java.sql.Date;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class DatabaseUtils {
     private DatabaseUtils() {}
 
     private static final Logger logger = LoggerFactory.getLogger(DatabaseUtils.class);
-    private static final Map<Long, Address> addressesMap = new HashMap<>();
-    private static final String DATABASE_FILE = "conf/database.properties";
+    private static final EntityCache<Long, Address> addressCache = new EntityCache<>("addresses", 1000);
+    private static final EntityCache<Long, Person> personCache = new EntityCache<>("persons", 1000);
+    private static final EntityCache<Long, Sponsor> sponsorCache = new EntityCache<>("sponsors", 1000);
+    private static final String OPERATION_HELP = "Trajanje rada s bazom, uključujući čekanje na vezu.";
+    private static final String FAILURE_HELP = "Broj neuspjelih radova s bazom.";
+    private static final Metrics.Histogram queryTime = Metrics.histogram("db_operation_duration_seconds", OPERATION_HELP, "operation", "query");
+    private static final Metrics.Histogram updateTime = Metrics.histogram("db_operation_duration_seconds", OPERATION_HELP, "operation", "update");
+    private static final Metrics.Histogram transactionTime = Metrics.histogram("db_operation_duration_seconds", OPERATION_HELP, "operation", "transaction");
+    private static final Metrics.Counter queryFailures = Metrics.counter("db_operation_failures_total", FAILURE_HELP, "operation", "query");
+    private static final Metrics.Counter updateFailures = Metrics.counter("db_operation_failures_total", FAILURE_HELP, "operation", "update");
+    private static final Metrics.Counter transactionFailures = Metrics.counter("db_operation_failures_total", FAILURE_HELP, "operation", "transaction");
     private static final String FIRST_NAME = "first_name";
     private static final String LAST_NAME = "last_name";
     private static final String DATE_OF_BIRTH = "date_of_birth";
+    private static final String SPONSOR_COLUMNS = """
+               s.id AS sponsor_id, s.name AS sponsor_name, s.email,
+               sa.id AS sponsor_address_id, sa.street_name AS sponsor_street, sa.house_number AS sponsor_house, sa.city AS sponsor_city,
+               p.id AS contact_person_id, p.first_name, p.last_name, p.date_of_birth,
+               pa.id AS contact_address_id, pa.street_name AS contact_street, pa.house_number AS contact_house, pa.city AS contact_city
+    """;
+    private static final String SPONSOR_JOINS = """
+        JOIN Addresses sa ON s.address_id = sa.id
+        JOIN Persons p ON s.contact_person_id = p.id
+        JOIN Addresses pa ON p.address_id = pa.id
+    """;
+    private static final String SPONSOR_SELECT = "SELECT " + SPONSOR_COLUMNS + " FROM Sponsors s " + SPONSOR_JOINS;
+    private static final String PROGRAM_SELECT = "SELECT pr.id, pr.name, pr.daily_amount, pr.description, pr.start_date, pr.end_date, "
+            + SPONSOR_COLUMNS + " FROM Programs pr JOIN Sponsors s ON pr.sponsor_id = s.id " + SPONSOR_JOINS;
+    private static final int STREAM_FETCH_SIZE = 500;
+    private static final String UNIQUE_VIOLATION = "23505";
 
     @FunctionalInterface
-    interface SQLConsumer<T> {
+    public interface SQLConsumer<T> {
         void accept(T t) throws SQLException;
     }
     @FunctionalInterface
-    interface SQLFunction<T, R> {
+    public interface SQLFunction<T, R> {
         R apply(T t) throws SQLException;
     }
     public static Connection connectToDatabase() throws SQLException, IOException {
-        Properties props = new Properties();
-        try (FileReader reader = new FileReader(DATABASE_FILE)) {
-            props.load(reader);
+        return ConnectionPool.getInstance().getConnection();
+    }
+    public static <R> R inTransaction(SQLFunction<UnitOfWork, R> work) throws SQLException, IOException {
+        long start = System.nanoTime();
+        try (UnitOfWork unitOfWork = new UnitOfWork(connectToDatabase())) {
+            R result = work.apply(unitOfWork);
+            unitOfWork.commit();
+            return result;
+        } catch (SQLException | IOException | RuntimeException e) {
+            transactionFailures.increment();
+            throw e;
+        } finally {
+            transactionTime.observeSince(start);
         }
-        return DriverManager.getConnection(props.getProperty("databaseURL"), props.getProperty("username"), props.getProperty("password"));
     }
-    private static <R> void executeQuery(String sql, SQLFunction<PreparedStatement, R> function, SQLConsumer<PreparedStatement> paramSetter) {
+    private static <R> R query(String sql, SQLFunction<PreparedStatement, R> function, SQLConsumer<PreparedStatement> paramSetter)
+            throws SQLException, IOException {
+        long start = System.nanoTime();
         try (Connection conn = connectToDatabase(); PreparedStatement ps = conn.prepareStatement(sql)) {
             if (paramSetter != null) paramSetter.accept(ps);
-            function.apply(ps);
+            return function.apply(ps);
+        } catch (SQLException | IOException | RuntimeException e) {
+            queryFailures.increment();
+            throw e;
+        } finally {
+            queryTime.observeSince(start);
+        }
+    }
+    private static <R> R executeQuery(String sql, SQLFunction<PreparedStatement, R> function, SQLConsumer<PreparedStatement> paramSetter) {
+        try {
+            return query(sql, function, paramSetter);
         } catch (Exception e) {
             logger.error(e.getMessage());
+            return null;
         }
     }
-    private static int executeUpdate(String sql, SQLConsumer<PreparedStatement> paramSetter, boolean returnGeneratedKey) {
+    private static int update(String sql, SQLConsumer<PreparedStatement> paramSetter, boolean returnGeneratedKey)
+            throws SQLException, IOException {
+        long start = System.nanoTime();
         try (Connection conn = connectToDatabase(); PreparedStatement ps = conn.prepareStatement(sql, returnGeneratedKey ? Statement.RETURN_GENERATED_KEYS : Statement.NO_GENERATED_KEYS)) {
             paramSetter.accept(ps);
-            ps.executeUpdate();
-            if (returnGeneratedKey) {
-                try (ResultSet keys = ps.getGeneratedKeys()) {
-                    if (keys.next()) return keys.getInt(1);
-                }
+            int updated = ps.executeUpdate();
+            if (updated > 0) DataVersion.increment();
+            if (!returnGeneratedKey) return updated;
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                if (keys.next()) return keys.getInt(1);
             }
+            return 0;
+        } catch (SQLException | IOException | RuntimeException e) {
+            updateFailures.increment();
+            throw e;
+        } finally {
+            updateTime.observeSince(start);
+        }
+    }
+    private static int executeUpdate(String sql, SQLConsumer<PreparedStatement> paramSetter, boolean returnGeneratedKey) {
+        try {
+            return update(sql, paramSetter, returnGeneratedKey);
         } catch (Exception e) {
             logger.error(e.getMessage());
+            return 0;
         }
-        return 0;
     }
-    public static void deleteById(String tableName, Long id) {
+    public static void deleteById(String tableName, Long id) throws SQLException, IOException {
         String sql = "DELETE FROM " + tableName + " WHERE ID = ?";
-        try (Connection conn = connectToDatabase();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setLong(1, id);
-            ps.executeUpdate();
+        try {
+            update(sql, ps -> ps.setLong(1, id), false);
         } catch (SQLException | IOException e) {
             logger.error("Error deleting from {}: {}", tableName, e.getMessage());
+            throw e;
+        } finally {
+            switch (tableName.toLowerCase()) {
+                case "addresses" -> invalidateAddress(id);
+                case "persons" -> invalidatePerson(id);
+                case "sponsors" -> sponsorCache.invalidate(id);
+                default -> { /* ostale tablice nemaju predmemoriju */ }
+            }
         }
     }
-    private static void loadAddresses() {
-        String sql = "SELECT id, street_name, house_number, city FROM Addresses";
-        executeQuery(sql, ps -> {
+    private static void invalidateAddress(long id) {
+        addressCache.invalidate(id);
+        personCache.invalidateIf(p -> p.getAddress() != null && p.getAddress().getId() == id);
+        sponsorCache.invalidateIf(s -> s.getAddress().getId() == id || s.getContactPerson().getAddress().getId() == id);
+    }
+    private static void invalidatePerson(long id) {
+        personCache.invalidate(id);
+        sponsorCache.invalidateIf(s -> s.getContactPerson().getId() == id);
+    }
+    public static Address getAddressById(Long id) {
+        Address cached = addressCache.get(id);
+        if (cached != null) return cached;
+        String sql = "SELECT id, street_name, house_number, city FROM Addresses WHERE id = ?";
+        return executeQuery(sql, ps -> {
             try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    Address address = new AddressBuilder()
-                            .setId(rs.getLong("id"))
-                            .setStreetName(rs.getString("street_name"))
-                            .setHouseNumber(rs.getString("house_number"))
-                            .setCity(CITY.getCityByName(rs.getString("city"))).createAddress();
-                    addressesMap.put(address.getId(), address);
-                }
+                if (!rs.next()) return null;
+                Address address = new AddressBuilder()
+                        .setId(rs.getLong("id"))
+                        .setStreetName(rs.getString("street_name"))
+                        .setHouseNumber(rs.getString("house_number"))
+                        .setCity(CITY.getCityByName(rs.getString("city"))).createAddress();
+                addressCache.put(address.getId(), address);
+                return address;
             }
-            return null;
-        }, null);
+        }, ps -> ps.setLong(1, id));
     }
-    public static Address getAddressById(Long id) {
-        if (addressesMap.isEmpty()) loadAddresses();
-        return addressesMap.get(id);
+    public static Person getPersonById(Long id) {
+        Person cached = personCache.get(id);
+        if (cached != null) return cached;
+        String sql = """
+        SELECT p.id, p.first_name, p.last_name, p.date_of_birth,
+               a.id AS address_id, a.street_name, a.house_number, a.city
+        FROM Persons p
+        JOIN Addresses a ON p.address_id = a.id
+        WHERE p.id = ?
+    """;
+        return executeQuery(sql, ps -> {
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return null;
+                Address address = new Address(rs.getLong("address_id"), rs.getString("street_name"),
+                        rs.getString("house_number"), CITY.getCityByName(rs.getString("city")));
+                Date dateOfBirth = rs.getDate(DATE_OF_BIRTH);
+                Person person = new Person(rs.getLong("id"), rs.getString(FIRST_NAME), rs.getString(LAST_NAME),
+                        dateOfBirth != null ? dateOfBirth.toLocalDate() : null, address);
+                addressCache.put(address.getId(), address);
+                personCache.put(person.getId(), person);
+                return person;
+            }
+        }, ps -> ps.setLong(1, id));
+    }
+    public static List<CacheStatistics> getCacheStatistics() {
+        return List.of(addressCache.getStatistics(), personCache.getStatistics(), sponsorCache.getStatistics());
     }
     public static int addAddress(String city, String street, String house) {
+        Address address = new Address(null, street, house, CITY.getCityByName(city));
+        try {
+            return inTransaction(uow -> {
+                long id = insertAddresses(uow, List.of(address)).get(0);
+                recordAddressChanges(uow, List.of(address));
+                return (int) id;
+            });
+        } catch (SQLException | IOException e) {
+            logger.error("Error adding address: {}", e.getMessage());
+            return 0;
+        }
+    }
+    private static List<Long> insertAddresses(UnitOfWork uow, List<Address> addresses) throws SQLException {
         String sql = "INSERT INTO ADDRESSES (city, street_name, house_number) VALUES (?, ?, ?)";
-        return executeUpdate(sql, ps -> {
-            ps.setString(1, city);
-            ps.setString(2, street);
-            ps.setString(3, house);
-            ChangeManager.addNewChange(new Change("Dodana nova adresa.", Session.getSession().getCurrentUser().username(), "", street + " " + house + ", " + city));
-        }, true);
+        try (PreparedStatement ps = uow.getConnection().prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            for (Address address : addresses) {
+                ps.setString(1, address.getCity().getCityName());
+                ps.setString(2, address.getStreetName());
+                ps.setString(3, address.getHouseNumber());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+            return readGeneratedKeys(ps, addresses.size());
+        }
+    }
+    private static void recordAddressChanges(UnitOfWork uow, List<Address> addresses) {
+        for (Address address : addresses) {
+            uow.recordChange(new Change("Dodana nova adresa.", Session.getSession().getCurrentUser().username(), "", address.toString()));
+        }
+    }
+    private static List<Long> readGeneratedKeys(PreparedStatement ps, int expected) throws SQLException {
+        List<Long> ids = new ArrayList<>(expected);
+        try (ResultSet keys = ps.getGeneratedKeys()) {
+            while (keys.next()) ids.add(keys.getLong(1));
+        }
+        if (ids.size() != expected) {
+            throw new SQLException("Expected " + expected + " generated keys, got " + ids.size());
+        }
+        return ids;
     }
     public static void updateAddress(long id, String city, String street, String house) {
         String sql = "UPDATE ADDRESSES SET city = ?, street_name = ?, house_number = ? WHERE id = ?";
-        executeUpdate(sql, ps -> {
+        int updated = executeUpdate(sql, ps -> {
             ps.setString(1, city);
             ps.setString(2, street);
             ps.setString(3, house);
             ps.setLong(4, id);
         }, false);
+        invalidateAddress(id);
+        if (updated > 0) addressCache.put(id, new Address(id, street, house, CITY.getCityByName(city)));
     }
     public static int addPerson(String firstName, String lastName, LocalDate dob, String city, String street, String house) throws SQLException, IOException {
-        try (Connection conn = connectToDatabase()) {
-            conn.setAutoCommit(false);
-            int addressId = addAddress(city, street, house);
-            String sql = "INSERT INTO Persons (first_name, last_name, date_of_birth, address_id) VALUES (?, ?, ?, ?)";
-            try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-                ps.setString(1, firstName);
-                ps.setString(2, lastName);
-                ps.setDate(3, Date.valueOf(dob));
-                ps.setInt(4, addressId);
-                ps.executeUpdate();
-                try (ResultSet keys = ps.getGeneratedKeys()) {
-                    if (keys.next()) {
-                        conn.commit();
-                        ChangeManager.addNewChange(new Change("Dodana nova osoba.", Session.getSession().getCurrentUser().username(), "", firstName + " " + lastName));
-                        return keys.getInt(1);
-                    }
-                }
+        Address address = new Address(null, street, house, CITY.getCityByName(city));
+        return inTransaction(uow -> {
+            List<Long> addressIds = insertAddresses(uow, List.of(address));
+            long id = insertPersons(uow, List.of(new Person(null, firstName, lastName, dob, address)), addressIds).get(0);
+            recordAddressChanges(uow, List.of(address));
+            uow.recordChange(new Change("Dodana nova osoba.", Session.getSession().getCurrentUser().username(), "", firstName + " " + lastName));
+            return (int) id;
+        });
+    }
+    private static List<Long> insertPersons(UnitOfWork uow, List<Person> persons, List<Long> addressIds) throws SQLException {
+        String sql = "INSERT INTO Persons (first_name, last_name, date_of_birth, address_id) VALUES (?, ?, ?, ?)";
+        try (PreparedStatement ps = uow.getConnection().prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            for (int i = 0; i < persons.size(); i++) {
+                Person person = persons.get(i);
+                ps.setString(1, person.getName());
+                ps.setString(2, person.getSurname());
+                ps.setDate(3, Date.valueOf(person.getDateOfBirth()));
+                ps.setLong(4, addressIds.get(i));
+                ps.addBatch();
             }
+            ps.executeBatch();
+            return readGeneratedKeys(ps, persons.size());
         }
-        return 0;
+    }
+    private static Sponsor mapSponsor(ResultSet rs) throws SQLException {
+        Address sponsorAddress = new Address(rs.getLong("sponsor_address_id"), rs.getString("sponsor_street"),
+                rs.getString("sponsor_house"), CITY.getCityByName(rs.getString("sponsor_city")));
+        Address contactAddress = new Address(rs.getLong("contact_address_id"), rs.getString("contact_street"),
+                rs.getString("contact_house"), CITY.getCityByName(rs.getString("contact_city")));
+        Date dateOfBirth = rs.getDate(DATE_OF_BIRTH);
+        Person contactPerson = new Person(rs.getLong("contact_person_id"), rs.getString(FIRST_NAME), rs.getString(LAST_NAME),
+                dateOfBirth != null ? dateOfBirth.toLocalDate() : null, contactAddress);
+        Sponsor sponsor = new Sponsor(rs.getLong("sponsor_id"), rs.getString("sponsor_name"), rs.getString("email"), sponsorAddress, contactPerson);
+        addressCache.put(sponsorAddress.getId(), sponsorAddress);
+        addressCache.put(contactAddress.getId(), contactAddress);
+        personCache.put(contactPerson.getId(), contactPerson);
+        sponsorCache.put(sponsor.getId(), sponsor);
+        return sponsor;
     }
     public static List<Sponsor> loadSponsors() {
-        List<Sponsor> sponsors = new ArrayList<>();
-
-        String sql = """
-        SELECT s.id AS sponsor_id, s.name AS sponsor_name, s.email,
-               sa.id AS sponsor_address_id, sa.street_name AS sponsor_street, sa.house_number AS sponsor_house, sa.city AS sponsor_city,
-               p.id AS contact_person_id, p.first_name, p.last_name, p.date_of_birth,
-               pa.id AS contact_address_id, pa.street_name AS contact_street, pa.house_number AS contact_house, pa.city AS contact_city
-        FROM Sponsors s
-        JOIN Addresses sa ON s.address_id = sa.id
-        JOIN Persons p ON s.contact_person_id = p.id
-        JOIN Addresses pa ON p.address_id = pa.id
-    """;
-
-        try (Connection connection = connectToDatabase();
-             Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
-            while (rs.next()) {
-                Long sponsorId = rs.getLong("sponsor_id");
-                String sponsorName = rs.getString("sponsor_name");
-                String email = rs.getString("email");
-
-                Long sponsorAddressId = rs.getLong("sponsor_address_id");
-                String sponsorStreet = rs.getString("sponsor_street");
-                String sponsorHouse = rs.getString("sponsor_house");
-                CITY sponsorCity = CITY.getCityByName(rs.getString("sponsor_city"));
-                Address sponsorAddress = new Address(sponsorAddressId, sponsorStreet, sponsorHouse, sponsorCity);
-
-                Long contactPersonId = rs.getLong("contact_person_id");
-                String firstName = rs.getString(FIRST_NAME);
-                String lastName = rs.getString(LAST_NAME);
-                LocalDate dateOfBirth = rs.getDate(DATE_OF_BIRTH).toLocalDate();
-
-                Long contactAddressId = rs.getLong("contact_address_id");
-                String contactStreet = rs.getString("contact_street");
-                String contactHouse = rs.getString("contact_house");
-                CITY contactCity = CITY.getCityByName(rs.getString("contact_city"));
-                Address contactAddress = new Address(contactAddressId, contactStreet, contactHouse, contactCity);
-
-                Person contactPerson = new Person(contactPersonId, firstName, lastName, dateOfBirth, contactAddress);
-
-                Sponsor sponsor = new Sponsor(sponsorId, sponsorName, email, sponsorAddress, contactPerson);
-                sponsors.add(sponsor);
+        List<Sponsor> sponsors = executeQuery(SPONSOR_SELECT, ps -> {
+            List<Sponsor> loaded = new ArrayList<>();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    loaded.add(mapSponsor(rs));
+                }
             }
-
-        } catch (SQLException | IOException e) {
-            logger.error("Error loading sponsors: {}", e.getMessage());
-        }
-
-        return sponsors;
+            return loaded;
+        }, null);
+        return sponsors != null ? sponsors : new ArrayList<>();
     }
     public static Sponsor getSponsorById(Long id) throws SQLException, IOException {
-        String sql = """
-        SELECT s.id AS sponsor_id, s.name AS sponsor_name, s.email,
-               sa.id AS address_id, sa.street_name AS street_name, sa.house_number AS house_number, sa.city AS city,
-               p.id AS contact_person_id, p.first_name, p.last_name, p.date_of_birth,
-               pa.id AS contact_address_id, pa.street_name AS contact_street, pa.house_number AS contact_house, pa.city AS contact_city
-        FROM Sponsors s
-        JOIN Addresses sa ON s.address_id = sa.id
-        JOIN Persons p ON s.contact_person_id = p.id
-        JOIN Addresses pa ON p.address_id = pa.id
-        WHERE s.id= ?
-    """;
-
-        try (Connection connection = connectToDatabase(); PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setLong(1, id);
-            ResultSet rs = stmt.executeQuery();
-
-            if (!rs.next()) {
-                throw new SQLException("No sponsor found with ID: " + id);
-            }
-
-            Long sponsorId = rs.getLong("id");
-            String sponsorName = rs.getString("name");
-            String email = rs.getString("email");
-            if (sponsorName == null || email == null) {
-                throw new SQLException("Required sponsor information is missing.");
-            }
-
-            Long sponsorAddressId = rs.getLong("address_id");
-            String sponsorStreet = rs.getString("street_name");
-            String sponsorHouse = rs.getString("house_number");
-            String sponsorCity = rs.getString("city");
-            if (sponsorStreet == null || sponsorHouse == null || sponsorCity == null) {
-                throw new SQLException("Address details are incomplete.");
-            }
-            Address sponsorAddress = getAddressById(sponsorAddressId);
-
-            Long contactPersonId = rs.getLong("contact_person_id");
-            String firstName = rs.getString(FIRST_NAME);
-            String lastName = rs.getString(LAST_NAME);
-            LocalDate dateOfBirth = rs.getDate(DATE_OF_BIRTH) != null ? rs.getDate(DATE_OF_BIRTH).toLocalDate() : null;
-            if (firstName == null || lastName == null || dateOfBirth == null) {
-                throw new SQLException("Contact person details are incomplete.");
-            }
-
-            Long contactAddressId = rs.getLong("contact_address_id");
-            String contactStreet = rs.getString("contact_street");
-            String contactHouse = rs.getString("contact_house");
-            String contactCity = rs.getString("contact_city");
-            if (contactStreet == null || contactHouse == null || contactCity == null) {
-                throw new SQLException("Contact address details are incomplete.");
+        Sponsor cached = sponsorCache.get(id);
+        if (cached != null) return cached;
+        String sql = SPONSOR_SELECT + " WHERE s.id = ?";
+
+        return query(sql, stmt -> {
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    throw new SQLException("No sponsor found with ID: " + id);
+                }
+                return mapSponsor(rs);
             }
-            Address contactAddress = new Address(contactAddressId, contactStreet, contactHouse, CITY.getCityByName(contactCity));
-
-            Person contactPerson = new Person(contactPersonId, firstName, lastName, dateOfBirth, contactAddress);
-
-            return new Sponsor(sponsorId, sponsorName, email, sponsorAddress, contactPerson);
-        }
+        }, stmt -> stmt.setLong(1, id));
     }
     public static void updatePerson(long id, String firstName, String lastName, LocalDate dob, long addressId) {
         String sql = "UPDATE Persons SET first_name = ?, last_name = ?, date_of_birth = ?, address_id = ? WHERE id = ?";
@@ -250,113 +332,351 @@ public class DatabaseUtils {
             ps.setLong(4, addressId);
             ps.setLong(5, id);
         }, false);
+        invalidatePerson(id);
     }
     public static int addSponsor(String sponsorName, String email, Person person, Address contactAddress, String sponsorCity, String sponsorStreet, String sponsorHouse) {
-        try (Connection conn = connectToDatabase()) {
-            conn.setAutoCommit(false);
-            int sponsorAddressId = addAddress(sponsorCity, sponsorStreet, sponsorHouse);
-            int contactPersonId = addPerson(person.getName(), person.getSurname(), person.getDateOfBirth(), contactAddress.getCity().getCityName(), contactAddress.getStreetName(), contactAddress.getHouseNumber());
-            String sql = "INSERT INTO Sponsors (name, email, address_id, contact_person_id) VALUES (?, ?, ?, ?)";
-            try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-                ps.setString(1, sponsorName);
-                ps.setString(2, email);
-                ps.setInt(3, sponsorAddressId);
-                ps.setInt(4, contactPersonId);
-                ps.executeUpdate();
-                try (ResultSet keys = ps.getGeneratedKeys()) {
-                    if (keys.next()) {
-                        conn.commit();
-                        ChangeManager.addNewChange(new Change("Dodana novi sponzor.", Session.getSession().getCurrentUser().username(), "", sponsorName));
-                        return keys.getInt(1);
-                    }
-                }
-            }
+        Address sponsorAddress = new Address(null, sponsorStreet, sponsorHouse, CITY.getCityByName(sponsorCity));
+        Person contactPerson = new Person(null, person.getName(), person.getSurname(), person.getDateOfBirth(), contactAddress);
+        Sponsor sponsor = new Sponsor(null, sponsorName, email, sponsorAddress, contactPerson);
+        try {
+            return inTransaction(uow -> {
+                long id = insertSponsorsWithContacts(uow, List.of(sponsor)).get(0);
+                String user = Session.getSession().getCurrentUser().username();
+                recordAddressChanges(uow, List.of(sponsorAddress, contactAddress));
+                uow.recordChange(new Change("Dodana nova osoba.", user, "", person.getName() + " " + person.getSurname()));
+                uow.recordChange(new Change("Dodana novi sponzor.", user, "", sponsorName));
+                return (int) id;
+            });
         } catch (Exception e) {
             logger.error("Error adding sponsor: {}", e.getMessage());
         }
         return 0;
     }
-    public static void updateSponsor(Sponsor sponsor) {
+    private static List<Long> insertSponsorsWithContacts(UnitOfWork uow, List<Sponsor> sponsors) throws SQLException {
+        List<Address> addresses = new ArrayList<>(sponsors.size() * 2);
+        List<Person> contactPersons = new ArrayList<>(sponsors.size());
+        for (Sponsor sponsor : sponsors) {
+            addresses.add(sponsor.getAddress());
+            addresses.add(sponsor.getContactPerson().getAddress());
+            contactPersons.add(sponsor.getContactPerson());
+        }
+        List<Long> addressIds = insertAddresses(uow, addresses);
+        List<Long> contactAddressIds = new ArrayList<>(sponsors.size());
+        for (int i = 0; i < sponsors.size(); i++) contactAddressIds.add(addressIds.get(2 * i + 1));
+        List<Long> contactPersonIds = insertPersons(uow, contactPersons, contactAddressIds);
+
+        String sql = "INSERT INTO Sponsors (name, email, address_id, contact_person_id) VALUES (?, ?, ?, ?)";
+        try (PreparedStatement ps = uow.getConnection().prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            for (int i = 0; i < sponsors.size(); i++) {
+                ps.setString(1, sponsors.get(i).getName());
+                ps.setString(2, sponsors.get(i).getEmail());
+                ps.setLong(3, addressIds.get(2 * i));
+                ps.setLong(4, contactPersonIds.get(i));
+                ps.addBatch();
+            }
+            ps.executeBatch();
+            return readGeneratedKeys(ps, sponsors.size());
+        }
+    }
+    public static BatchInsertReport insertSponsors(Collection<Sponsor> sponsors, int chunkSize) {
+        return insertInChunks(List.copyOf(sponsors), "Sponsors", Sponsor::getName, chunkSize,
+                DatabaseUtils::insertSponsorsWithContacts, "sponzora");
+    }
+    public static void updateSponsor(Sponsor sponsor) throws SQLException, IOException {
         Address sponsorAddress = sponsor.getAddress();
-        updateAddress(sponsorAddress.getId(), sponsorAddress.getCity().getCityName(),
-                sponsorAddress.getStreetName(), sponsorAddress.getHouseNumber());
-
         Person contactPerson = sponsor.getContactPerson();
         Address personAddress = contactPerson.getAddress();
-        updateAddress(personAddress.getId(), personAddress.getCity().getCityName(),
-                personAddress.getStreetName(), personAddress.getHouseNumber());
-
-        updatePerson(contactPerson.getId(), contactPerson.getName(),
-                contactPerson.getSurname(), contactPerson.getDateOfBirth(),
-                personAddress.getId());
-
-        String sql = "UPDATE Sponsors SET name = ?, email = ? WHERE id = ?";
-        executeUpdate(sql, ps -> {
-            ps.setString(1, sponsor.getName());
-            ps.setString(2, sponsor.getEmail());
-            ps.setLong(3, sponsor.getId());
-        }, false);
+        try {
+            inTransaction(uow -> {
+                for (Address address : List.of(sponsorAddress, personAddress)) {
+                    update(uow, "UPDATE Addresses SET city = ?, street_name = ?, house_number = ? WHERE id = ?", ps -> {
+                        ps.setString(1, address.getCity().getCityName());
+                        ps.setString(2, address.getStreetName());
+                        ps.setString(3, address.getHouseNumber());
+                        ps.setLong(4, address.getId());
+                    });
+                }
+                update(uow, "UPDATE Persons SET first_name = ?, last_name = ?, date_of_birth = ?, address_id = ? WHERE id = ?", ps -> {
+                    ps.setString(1, contactPerson.getName());
+                    ps.setString(2, contactPerson.getSurname());
+                    ps.setDate(3, Date.valueOf(contactPerson.getDateOfBirth()));
+                    ps.setLong(4, personAddress.getId());
+                    ps.setLong(5, contactPerson.getId());
+                });
+                return update(uow, "UPDATE Sponsors SET name = ?, email = ? WHERE id = ?", ps -> {
+                    ps.setString(1, sponsor.getName());
+                    ps.setString(2, sponsor.getEmail());
+                    ps.setLong(3, sponsor.getId());
+                });
+            });
+        } finally {
+            // Predmemorija se samo poništava: pozivatelj i dalje drži i mijenja iste objekte, pa bi spremljena referenca
+            // mogla sadržavati izmjene koje nikad nisu zapisane u bazu.
+            invalidateAddress(sponsorAddress.getId());
+            invalidateAddress(personAddress.getId());
+            invalidatePerson(contactPerson.getId());
+            sponsorCache.invalidate(sponsor.getId());
+        }
     }
-    public static void insertProgram(String name, long sponsorId, double dailyAmount, String description, LocalDate startDate, LocalDate endDate) throws ItemAlreadyExistsException {
-        // Prvo provjeri postoji li program s istim imenom
-        if (programExists(name)) {
-            throw new ItemAlreadyExistsException("Program s nazivom '" + name + "' već postoji.");
+    private static int update(UnitOfWork uow, String sql, SQLConsumer<PreparedStatement> paramSetter) throws SQLException {
+        try (PreparedStatement ps = uow.getConnection().prepareStatement(sql)) {
+            paramSetter.accept(ps);
+            return ps.executeUpdate();
         }
-
+    }
+    public static void insertProgram(String name, long sponsorId, double dailyAmount, String description, LocalDate startDate, LocalDate endDate)
+            throws ItemAlreadyExistsException, SQLException, IOException {
+        Sponsor sponsor = getSponsorById(sponsorId);
+        if (sponsor == null) throw new SQLException("Sponsor " + sponsorId + " does not exist.");
+        Program program = new Program(null, name, sponsor, (long) dailyAmount, description, startDate, endDate);
+        try {
+            inTransaction(uow -> insertProgramRows(uow, List.of(program)));
+        } catch (SQLException e) {
+            if (isUniqueViolation(e)) throw new ItemAlreadyExistsException("Program s nazivom '" + name + "' već postoji.", e);
+            throw e;
+        }
+    }
+    public static BatchInsertReport insertPrograms(Collection<Program> programs, int chunkSize) {
+        return insertInChunks(List.copyOf(programs), "Programs", Program::getName, chunkSize,
+                DatabaseUtils::insertProgramRows, "programa");
+    }
+    private static List<Long> insertProgramRows(UnitOfWork uow, List<Program> programs) throws SQLException {
         String sql = "INSERT INTO Programs (name, sponsor_id, daily_amount, description, start_date, end_date) VALUES (?, ?, ?, ?, ?, ?)";
-        executeUpdate(sql, ps -> {
-            ps.setString(1, name);
-            ps.setLong(2, sponsorId);
-            ps.setDouble(3, dailyAmount);
-            ps.setString(4, description);
-            ps.setDate(5, Date.valueOf(startDate));
-            ps.setDate(6, Date.valueOf(endDate));
-        }, true);
-    }
-    private static boolean programExists(String name) {
-        String sql = "SELECT 1 FROM Programs WHERE name = ?";
-        try (Connection conn = connectToDatabase();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, name);
-            try (ResultSet rs = ps.executeQuery()) {
-                return rs.next();
+        try (PreparedStatement ps = uow.getConnection().prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            for (Program program : programs) {
+                ps.setString(1, program.getName());
+                ps.setLong(2, program.getSponsor().getId());
+                ps.setDouble(3, program.getDailyAmount());
+                ps.setString(4, program.getDescription());
+                ps.setDate(5, Date.valueOf(program.getStartDate()));
+                ps.setDate(6, Date.valueOf(program.getEndDate()));
+                ps.addBatch();
             }
-        } catch (SQLException | IOException e) {
-            logger.error(e.getMessage());
-            return false;
+            ps.executeBatch();
+            return readGeneratedKeys(ps, programs.size());
         }
     }
+    @FunctionalInterface
+    private interface BatchInserter<T> {
+        List<Long> insert(UnitOfWork uow, List<T> rows) throws SQLException;
+    }
+    private static <T> BatchInsertReport insertInChunks(List<T> input, String tableName, Function<T, String> nameOf, int chunkSize,
+                                                        BatchInserter<T> inserter, String entityLabel) {
+        if (chunkSize <= 0) throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        long start = System.nanoTime();
+        BatchRowResult[] results = new BatchRowResult[input.size()];
+
+        Set<String> existingNames;
+        try {
+            existingNames = findExistingNames(tableName, input.stream().map(nameOf).collect(Collectors.toSet()));
+        } catch (SQLException | IOException e) {
+            logger.error("Error checking existing names in {}: {}", tableName, e.getMessage());
+            for (int i = 0; i < input.size(); i++) results[i] = new BatchRowResult(i, nameOf.apply(input.get(i)), INSERT_OUTCOME.FAILED, null);
+            return new BatchInsertReport(Arrays.asList(results), 0);
+        }
 
-    public static List<Program> loadPrograms() {
-        List<Program> programs = new ArrayList<>();
-        String sql = "SELECT id, name, sponsor_id, daily_amount, description, start_date, end_date FROM Programs";
-
-        try (Connection connection = connectToDatabase();
-             Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        List<Integer> pending = new ArrayList<>();
+        Set<String> seenNames = new HashSet<>();
+        for (int i = 0; i < input.size(); i++) {
+            String name = nameOf.apply(input.get(i));
+            if (existingNames.contains(name) || !seenNames.add(name)) {
+                results[i] = new BatchRowResult(i, name, INSERT_OUTCOME.DUPLICATE_NAME, null);
+            } else {
+                pending.add(i);
+            }
+        }
 
-            while (rs.next()) {
-                Long id = rs.getLong("id");
-                String name = rs.getString("name");
-                Long sponsorId = rs.getLong("sponsor_id");
-                Long dailyAmount = rs.getLong("daily_amount");
-                String description = rs.getString("description");
-                LocalDate startDate = rs.getDate("start_date").toLocalDate();
-                LocalDate endDate = rs.getDate("end_date").toLocalDate();
+        // Svaki komad je jedna transakcija: ako ne uspije, ne unosi se nijedan njegov redak i svi dobivaju ishod FAILED,
+        // a komadi prije i poslije njega ostaju uneseni. Iznimka je kršenje jedinstvenosti naziva (npr. isti naziv unesen
+        // istodobno iz druge sesije): tada se redci komada unose jedan po jedan, pa samo sudareni redak dobiva
+        // DUPLICATE_NAME.
+        int inserted = 0;
+        for (int from = 0; from < pending.size(); from += chunkSize) {
+            List<Integer> chunk = pending.subList(from, Math.min(from + chunkSize, pending.size()));
+            List<T> rows = chunk.stream().map(input::get).toList();
+            try {
+                List<Long> ids = insertChunk(rows, inserter, entityLabel);
+                for (int i = 0; i < chunk.size(); i++) {
+                    results[chunk.get(i)] = new BatchRowResult(chunk.get(i), nameOf.apply(rows.get(i)), INSERT_OUTCOME.INSERTED, ids.get(i));
+                }
+                inserted += rows.size();
+            } catch (SQLException e) {
+                if (!isUniqueViolation(e) || rows.size() == 1) {
+                    logger.error("Error inserting batch into {}: {}", tableName, e.getMessage());
+                    INSERT_OUTCOME outcome = isUniqueViolation(e) ? INSERT_OUTCOME.DUPLICATE_NAME : INSERT_OUTCOME.FAILED;
+                    for (int i = 0; i < chunk.size(); i++) {
+                        results[chunk.get(i)] = new BatchRowResult(chunk.get(i), nameOf.apply(rows.get(i)), outcome, null);
+                    }
+                    continue;
+                }
+                logger.warn("Name collision in batch for {}, inserting {} rows one by one.", tableName, rows.size());
+                for (int i = 0; i < chunk.size(); i++) {
+                    BatchRowResult result = insertSingleRow(chunk.get(i), rows.get(i), nameOf, inserter, tableName, entityLabel);
+                    if (result.outcome() == INSERT_OUTCOME.INSERTED) inserted++;
+                    results[chunk.get(i)] = result;
+                }
+            } catch (IOException e) {
+                logger.error("Error inserting batch into {}: {}", tableName, e.getMessage());
+                for (int i = 0; i < chunk.size(); i++) {
+                    results[chunk.get(i)] = new BatchRowResult(chunk.get(i), nameOf.apply(rows.get(i)), INSERT_OUTCOME.FAILED, null);
+                }
+            }
+        }
 
-                Sponsor sponsor = getSponsorById(sponsorId);
-                programs.add(new Program(id, name, sponsor, dailyAmount, description, startDate, endDate));
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        double rowsPerSecond = seconds > 0 ? inserted / seconds : 0;
+        logger.info("Batch insert into {}: {} of {} rows inserted, {} rows/s.", tableName, inserted, input.size(), String.format("%.1f", rowsPerSecond));
+        return new BatchInsertReport(Arrays.asList(results), rowsPerSecond);
+    }
+    private static <T> List<Long> insertChunk(List<T> rows, BatchInserter<T> inserter, String entityLabel) throws SQLException, IOException {
+        return inTransaction(uow -> {
+            List<Long> keys = inserter.insert(uow, rows);
+            uow.recordChange(new Change("Skupno dodano " + rows.size() + " " + entityLabel + ".",
+                    Session.getSession().getCurrentUser().username(), "", ""));
+            return keys;
+        });
+    }
+    private static <T> BatchRowResult insertSingleRow(int index, T row, Function<T, String> nameOf, BatchInserter<T> inserter,
+                                                      String tableName, String entityLabel) {
+        try {
+            return new BatchRowResult(index, nameOf.apply(row), INSERT_OUTCOME.INSERTED, insertChunk(List.of(row), inserter, entityLabel).get(0));
+        } catch (SQLException e) {
+            if (isUniqueViolation(e)) return new BatchRowResult(index, nameOf.apply(row), INSERT_OUTCOME.DUPLICATE_NAME, null);
+            logger.error("Error inserting row into {}: {}", tableName, e.getMessage());
+        } catch (IOException e) {
+            logger.error("Error inserting row into {}: {}", tableName, e.getMessage());
+        }
+        return new BatchRowResult(index, nameOf.apply(row), INSERT_OUTCOME.FAILED, null);
+    }
+    private static boolean isUniqueViolation(SQLException e) {
+        for (SQLException current = e; current != null; current = current.getNextException()) {
+            if (UNIQUE_VIOLATION.equals(current.getSQLState())) return true;
+        }
+        return false;
+    }
+    private static Set<String> findExistingNames(String tableName, Set<String> names) throws SQLException, IOException {
+        Set<String> existing = new HashSet<>();
+        if (names.isEmpty()) return existing;
+        String sql = "SELECT name FROM " + tableName + " WHERE name = ANY(?)";
+        return query(sql, ps -> {
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) existing.add(rs.getString(1));
             }
+            return existing;
+        }, ps -> ps.setArray(1, ps.getConnection().createArrayOf("VARCHAR", names.toArray())));
+    }
 
+    private static Program mapProgram(ResultSet rs, Map<Long, Sponsor> sponsorsById) throws SQLException {
+        Long sponsorId = rs.getLong("sponsor_id");
+        Sponsor sponsor = sponsorsById.get(sponsorId);
+        if (sponsor == null) {
+            sponsor = mapSponsor(rs);
+            sponsorsById.put(sponsorId, sponsor);
+        }
+        return new Program(rs.getLong("id"), rs.getString("name"), sponsor, rs.getLong("daily_amount"),
+                rs.getString("description"), rs.getDate("start_date").toLocalDate(), rs.getDate("end_date").toLocalDate());
+    }
+    public static List<Program> loadPrograms() {
+        List<Program> programs = executeQuery(PROGRAM_SELECT, ps -> {
+            List<Program> loaded = new ArrayList<>();
+            Map<Long, Sponsor> sponsorsById = new HashMap<>();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    loaded.add(mapProgram(rs, sponsorsById));
+                }
+            }
+            return loaded;
+        }, null);
+        return programs != null ? programs : new ArrayList<>();
+    }
+    public static Page<Program> queryProgramsPage(Long afterId, int pageSize, SORT_ORDER order) throws SQLException, IOException {
+        Map<Long, Sponsor> sponsorsById = new HashMap<>();
+        return queryPage(PROGRAM_SELECT, "pr.id", afterId, pageSize, order, rs -> mapProgram(rs, sponsorsById), Program::getId);
+    }
+    public static Page<Sponsor> querySponsorsPage(Long afterId, int pageSize, SORT_ORDER order) throws SQLException, IOException {
+        return queryPage(SPONSOR_SELECT, "s.id", afterId, pageSize, order, DatabaseUtils::mapSponsor, Sponsor::getId);
+    }
+    private static <T> Page<T> queryPage(String select, String keyColumn, Long afterId, int pageSize, SORT_ORDER order,
+                                         SQLFunction<ResultSet, T> mapper, Function<T, Long> keyExtractor)
+            throws SQLException, IOException {
+        String sql = select + (afterId != null ? " WHERE " + keyColumn + " " + order.getKeysetOperator() + " ?" : "")
+                + " ORDER BY " + keyColumn + " " + order.getSqlKeyword() + " LIMIT ?";
+        List<T> items = new ArrayList<>();
+        boolean[] hasMore = new boolean[1];
+        query(sql, ps -> {
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (items.size() == pageSize) {
+                        hasMore[0] = true;
+                        break;
+                    }
+                    items.add(mapper.apply(rs));
+                }
+            }
+            return null;
+        }, ps -> {
+            int index = 1;
+            if (afterId != null) ps.setLong(index++, afterId);
+            ps.setInt(index, pageSize + 1);
+        });
+        Long nextKey = hasMore[0] ? keyExtractor.apply(items.get(items.size() - 1)) : null;
+        return new Page<>(items, nextKey);
+    }
+    public static Stream<Program> streamPrograms() {
+        Map<Long, Sponsor> sponsorsById = new HashMap<>();
+        return streamQuery(PROGRAM_SELECT + " ORDER BY pr.id", rs -> mapProgram(rs, sponsorsById));
+    }
+    public static Stream<Sponsor> streamSponsors() {
+        return streamQuery(SPONSOR_SELECT + " ORDER BY s.id", DatabaseUtils::mapSponsor);
+    }
+    private static <T> Stream<T> streamQuery(String sql, SQLFunction<ResultSet, T> mapper) {
+        Connection conn;
+        PreparedStatement ps;
+        ResultSet rs;
+        try {
+            conn = connectToDatabase();
         } catch (SQLException | IOException e) {
-            logger.error("Error loading programs: {}", e.getMessage());
+            queryFailures.increment();
+            throw new DataAccessException("Error opening stream: " + e.getMessage(), e);
         }
-
-        return programs;
+        try {
+            ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            rs = ps.executeQuery();
+        } catch (SQLException e) {
+            queryFailures.increment();
+            closeQuietly(conn);
+            throw new DataAccessException("Error opening stream: " + e.getMessage(), e);
+        }
+        Spliterator<T> rows = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    if (!rs.next()) return false;
+                    action.accept(mapper.apply(rs));
+                    return true;
+                } catch (SQLException e) {
+                    queryFailures.increment();
+                    throw new DataAccessException("Error reading stream: " + e.getMessage(), e);
+                }
+            }
+        };
+        return StreamSupport.stream(rows, false).onClose(() -> {
+            closeQuietly(rs);
+            closeQuietly(ps);
+            closeQuietly(conn);
+        });
     }
-    public static void updateProgram(Program program) {
+    private static void closeQuietly(AutoCloseable resource) {
+        try {
+            resource.close();
+        } catch (Exception e) {
+            logger.warn("Error closing resource: {}", e.getMessage());
+        }
+    }
+    public static void updateProgram(Program program) throws SQLException, IOException {
         String sql = "UPDATE Programs SET name = ?, sponsor_id = ?, daily_amount = ?, description = ?, start_date = ?, end_date = ? WHERE id = ?";
-        executeUpdate(sql, ps -> {
+        inTransaction(uow -> update(uow, sql, ps -> {
             ps.setString(1, program.getName());
             ps.setLong(2, program.getSponsor().getId());
             ps.setDouble(3, program.getDailyAmount());
@@ -364,80 +684,187 @@ public class DatabaseUtils {
             ps.setDate(5, java.sql.Date.valueOf(program.getStartDate()));
             ps.setDate(6, java.sql.Date.valueOf(program.getEndDate()));
             ps.setLong(7, program.getId());
-        }, false);
+        }));
     }
-    public static void requestProgramExtension(Long programId, int daysRequested, String token) {
-        String sql = "INSERT INTO ProgramExtensionRequests (program_id, days_requested, status, token) VALUES (?, ?, 'PENDING', ?)";
-        executeUpdate(sql, ps -> {
-            ps.setLong(1, programId);
-            ps.setInt(2, daysRequested);
-            ps.setString(3, token);
-        }, false);
+    public static List<SponsorInvestment> loadSponsorInvestments() throws SQLException, IOException {
+        String sql = """
+            SELECT s.id, s.name,
+                   COALESCE(SUM(CAST(FLOOR(pr.daily_amount) AS BIGINT) * (DATEDIFF(DAY, pr.start_date, pr.end_date) + 1)), 0) AS total
+            FROM Sponsors s
+            LEFT JOIN Programs pr ON pr.sponsor_id = s.id
+            GROUP BY s.id, s.name
+            ORDER BY s.id
+        """;
+        List<SponsorInvestment> investments = new ArrayList<>();
+        query(sql, ps -> {
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    investments.add(new SponsorInvestment(rs.getLong("id"), rs.getString("name"), rs.getLong("total")));
+                }
+            }
+            return null;
+        }, null);
+        return investments;
     }
-    public static void updateProgramExtensionStatus(String token, String status) {
-        String sql = "UPDATE PROGRAMEXTENSIONREQUESTS SET status = ? WHERE token = ?";
-        executeUpdate(sql, ps -> {
+    public static List<ProgramExtensionCount> loadExtensionRequestCounts() throws SQLException, IOException {
+        String sql = """
+            SELECT pr.id, pr.name, COUNT(*) AS request_count
+            FROM ProgramExtensionRequests er
+            JOIN Programs pr ON er.program_id = pr.id
+            GROUP BY pr.id, pr.name
+            ORDER BY pr.id
+        """;
+        List<ProgramExtensionCount> counts = new ArrayList<>();
+        query(sql, ps -> {
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    counts.add(new ProgramExtensionCount(rs.getLong("id"), rs.getString("name"), rs.getLong("request_count")));
+                }
+            }
+            return null;
+        }, null);
+        return counts;
+    }
+    public static Optional<UserAccount> findUserAccount(String username) throws SQLException, IOException {
+        String sql = "SELECT username, password_hash, admin FROM Users WHERE username = ?";
+        return query(sql, ps -> {
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return Optional.empty();
+                return Optional.of(new UserAccount(rs.getString("username"), rs.getString("password_hash"), rs.getBoolean("admin")));
+            }
+        }, ps -> ps.setString(1, username));
+    }
+    public static boolean insertUserAccount(UserAccount account) throws SQLException, IOException {
+        String sql = "INSERT INTO Users (username, password_hash, admin) VALUES (?, ?, ?)";
+        try {
+            update(sql, ps -> {
+                ps.setString(1, account.username());
+                ps.setString(2, account.passwordHash());
+                ps.setBoolean(3, account.admin());
+            }, false);
+            return true;
+        } catch (SQLIntegrityConstraintViolationException e) {
+            return false;
+        }
+    }
+    public static long countUserAccounts() throws SQLException, IOException {
+        return query("SELECT COUNT(*) FROM Users", ps -> {
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }, null);
+    }
+    public static int importUserAccounts(Collection<UserAccount> accounts) throws SQLException, IOException {
+        String sql = "INSERT INTO Users (username, password_hash, admin) SELECT ?, ?, ? WHERE NOT EXISTS (SELECT 1 FROM Users WHERE username = ?)";
+        return inTransaction(uow -> {
+            int imported = 0;
+            try (PreparedStatement ps = uow.getConnection().prepareStatement(sql)) {
+                for (UserAccount account : accounts) {
+                    ps.setString(1, account.username());
+                    ps.setString(2, account.passwordHash());
+                    ps.setBoolean(3, account.admin());
+                    ps.setString(4, account.username());
+                    ps.addBatch();
+                }
+                for (int count : ps.executeBatch()) {
+                    if (count > 0) imported += count;
+                }
+            }
+            return imported;
+        });
+    }
+    public static String requestProgramExtension(Long programId, int daysRequested, LongFunction<String> tokenForRequest) {
+        String insertSql = "INSERT INTO ProgramExtensionRequests (program_id, days_requested, status) VALUES (?, ?, 'PENDING')";
+        String updateTokenSql = "UPDATE ProgramExtensionRequests SET token = ? WHERE id = ?";
+        try {
+            return inTransaction(uow -> {
+                long requestId;
+                try (PreparedStatement ps = uow.getConnection().prepareStatement(insertSql, Statement.RETURN_GENERATED_KEYS)) {
+                    ps.setLong(1, programId);
+                    ps.setInt(2, daysRequested);
+                    ps.executeUpdate();
+                    try (ResultSet keys = ps.getGeneratedKeys()) {
+                        if (!keys.next()) throw new SQLException("Nije vraćen identifikator zahtjeva za produženje.");
+                        requestId = keys.getLong(1);
+                    }
+                }
+                String token = tokenForRequest.apply(requestId);
+                try (PreparedStatement ps = uow.getConnection().prepareStatement(updateTokenSql)) {
+                    ps.setString(1, token);
+                    ps.setLong(2, requestId);
+                    ps.executeUpdate();
+                }
+                return token;
+            });
+        } catch (SQLException | IOException e) {
+            logger.error("Greška prilikom spremanja zahtjeva za produženje: {}", e.getMessage());
+            return null;
+        }
+    }
+    public static Optional<Long> findExtensionRequestId(String token) throws SQLException, IOException {
+        String sql = "SELECT id FROM ProgramExtensionRequests WHERE token = ?";
+        return query(sql, ps -> {
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? Optional.of(rs.getLong("id")) : Optional.<Long>empty();
+            }
+        }, ps -> ps.setString(1, token));
+    }
+    private static boolean markExtensionRequestProcessed(UnitOfWork uow, String token, String status) throws SQLException {
+        String sql = "UPDATE ProgramExtensionRequests SET status = ? WHERE token = ? AND status = 'PENDING'";
+        try (PreparedStatement ps = uow.getConnection().prepareStatement(sql)) {
             ps.setString(1, status);
             ps.setString(2, token);
-        }, false);
+            return ps.executeUpdate() == 1;
+        }
     }
-    public static void acceptExtensionRequest(String token) {
+    public static EXTENSION_OUTCOME acceptExtensionRequest(String token, String username) {
         String selectExtensionSql = "SELECT program_id, days_requested FROM ProgramExtensionRequests WHERE token = ?";
-        String selectEndDateSql = "SELECT end_date FROM Programs WHERE id = ?";
+        String selectEndDateSql = "SELECT end_date FROM Programs WHERE id = ? FOR UPDATE";
         String updateEndDateSql = "UPDATE Programs SET end_date = ? WHERE id = ?";
-        String updateStatusSql = "UPDATE ProgramExtensionRequests SET status = 'APPROVED' WHERE token = ?";
-
-        try (Connection conn = connectToDatabase()) {
-            conn.setAutoCommit(false);
-
-            long programId = 0;
-            int daysRequested = 0;
-
-            try (PreparedStatement ps = conn.prepareStatement(selectExtensionSql)) {
-                ps.setString(1, token);
-                try (ResultSet rs = ps.executeQuery()) {
-                    if (rs.next()) {
+        try {
+            return inTransaction(uow -> {
+                if (!markExtensionRequestProcessed(uow, token, "APPROVED")) return EXTENSION_OUTCOME.ALREADY_PROCESSED;
+                long programId;
+                int daysRequested;
+                try (PreparedStatement ps = uow.getConnection().prepareStatement(selectExtensionSql)) {
+                    ps.setString(1, token);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        rs.next();
                         programId = rs.getLong("program_id");
                         daysRequested = rs.getInt("days_requested");
-                    } else {
-                        logger.warn("Zahtjev za produženje nije pronađen za token: {}", token);
-                        return;
                     }
                 }
-            }
-
-            LocalDate endDate;
-            try (PreparedStatement ps = conn.prepareStatement(selectEndDateSql)) {
-                ps.setLong(1, programId);
-                try (ResultSet rs = ps.executeQuery()) {
-                    if (rs.next()) {
+                LocalDate endDate;
+                try (PreparedStatement ps = uow.getConnection().prepareStatement(selectEndDateSql)) {
+                    ps.setLong(1, programId);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        if (!rs.next()) throw new SQLException("Program nije pronađen za ID: " + programId);
                         endDate = rs.getDate("end_date").toLocalDate();
-                    } else {
-                        logger.warn("Program nije pronađen za ID: {}", programId);
-                        return;
                     }
                 }
-            }
-            LocalDate newEndDate = endDate.plusDays(daysRequested);
-            try (PreparedStatement ps = conn.prepareStatement(updateEndDateSql)) {
-                ps.setDate(1, java.sql.Date.valueOf(newEndDate));
-                ps.setLong(2, programId);
-                ps.executeUpdate();
-            }
-            try (PreparedStatement ps = conn.prepareStatement(updateStatusSql)) {
-                ps.setString(1, token);
-                ps.executeUpdate();
-            }
-            conn.commit();
-            ChangeManager.addNewChange(new Change(
-                    "Zahtjev za produženje prihvaćen.",
-                    Session.getSession().getCurrentUser().username(),
-                    endDate.toString(),
-                    newEndDate.toString()
-            ));
-        } catch (Exception e) {
+                LocalDate newEndDate = endDate.plusDays(daysRequested);
+                try (PreparedStatement ps = uow.getConnection().prepareStatement(updateEndDateSql)) {
+                    ps.setDate(1, java.sql.Date.valueOf(newEndDate));
+                    ps.setLong(2, programId);
+                    ps.executeUpdate();
+                }
+                uow.recordChange(new Change("Zahtjev za produženje prihvaćen.", username,
+                        endDate.toString(), newEndDate.toString()));
+                return EXTENSION_OUTCOME.APPLIED;
+            });
+        } catch (SQLException | IOException e) {
             logger.error("Greška prilikom prihvaćanja zahtjeva za produženje: {}", e.getMessage());
+            return EXTENSION_OUTCOME.FAILED;
+        }
+    }
+    public static EXTENSION_OUTCOME denyExtensionRequest(String token) {
+        try {
+            return inTransaction(uow -> markExtensionRequestProcessed(uow, token, "REJECTED")
+                    ? EXTENSION_OUTCOME.APPLIED : EXTENSION_OUTCOME.ALREADY_PROCESSED);
+        } catch (SQLException | IOException e) {
+            logger.error("Greška prilikom odbijanja zahtjeva za produženje: {}", e.getMessage());
+            return EXTENSION_OUTCOME.FAILED;
         }
     }
-    public static void denyExtensionRequest(String token) { updateProgramExtensionStatus(token, "REJECTED"); }
 }
@@ -0,0 +1,141 @@
+package com.example.sponsorships.utils;
+
+import com.example.sponsorships.records.CacheStatistics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * Ograničena predmemorija entiteta sigurna za višedretveno korištenje.
+ * <p>
+ * Kada se dosegne kapacitet, izbacuje se zapis koji je najdulje bio nekorišten (LRU).
+ * Broje se pogoci, promašaji i izbacivanja kako bi se mogla pratiti učinkovitost predmemorije.
+ * </p>
+ *
+ * @param <K> tip ključa (najčešće ID entiteta)
+ * @param <V> tip entiteta
+ */
+public class EntityCache<K, V> {
+
+    private final String name;
+    private final int capacity;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LinkedHashMap<K, V> entries;
+
+    /**
+     * Konstruktor koji stvara praznu predmemoriju zadanog kapaciteta.
+     *
+     * @param name naziv predmemorije (koristi se u metrikama)
+     * @param capacity najveći broj zapisa
+     */
+    public EntityCache(String name, int capacity) {
+        this.name = name;
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                if (size() > EntityCache.this.capacity) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Dohvaća entitet iz predmemorije.
+     *
+     * @param key ključ entiteta
+     * @return entitet ili {@code null} ako nije u predmemoriji
+     */
+    public V get(K key) {
+        lock.lock();
+        try {
+            V value = entries.get(key);
+            if (value == null) {
+                misses.increment();
+            } else {
+                hits.increment();
+            }
+            return value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sprema ili osvježava entitet u predmemoriji.
+     *
+     * @param key ključ entiteta
+     * @param value entitet
+     */
+    public void put(K key, V value) {
+        lock.lock();
+        try {
+            entries.put(key, value);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Uklanja entitet iz predmemorije.
+     *
+     * @param key ključ entiteta
+     */
+    public void invalidate(K key) {
+        lock.lock();
+        try {
+            entries.remove(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Uklanja sve entitete koji zadovoljavaju zadani uvjet, npr. sve sponzore koji sadrže izmijenjenu adresu.
+     *
+     * @param condition uvjet za uklanjanje
+     */
+    public void invalidateIf(Predicate<V> condition) {
+        lock.lock();
+        try {
+            entries.values().removeIf(condition);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Prazni cijelu predmemoriju.
+     */
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            entries.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Vraća trenutne metrike predmemorije.
+     *
+     * @return snimka metrika
+     */
+    public CacheStatistics getStatistics() {
+        lock.lock();
+        try {
+            return new CacheStatistics(name, entries.size(), capacity, hits.sum(), misses.sum(), evictions.sum());
+        } finally {
+            lock.unlock();
+        }
+    }
+}
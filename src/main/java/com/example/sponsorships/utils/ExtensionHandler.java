@@ -1,6 +1,8 @@
 package com.example.sponsorships.utils;
 
 import com.example.sponsorships.entities.Change;
+import com.example.sponsorships.enums.EXTENSION_OUTCOME;
+import com.example.sponsorships.records.ExtensionToken;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpExchange;
 import org.slf4j.Logger;
@@ -8,17 +10,38 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 /**
  * Handler klasa za obradu HTTP zahtjeva vezanih za produženje programa.
  * <p>
  * Ova klasa se koristi u jednostavnom HTTP serveru za prihvaćanje ili odbijanje zahtjeva za produženje programa
- * na temelju pristiglog URL tokena i akcije.
+ * na temelju pristiglog URL tokena i akcije. Potpis i istek tokena provjeravaju se prije bilo kakvog upita u bazu,
+ * pa se krivotvoreni tokeni odbijaju odgovorom 403, a istekli odgovorom 410. Stari UUID tokeni iz poveznica poslanih
+ * prije uvođenja potpisanih tokena prihvaćaju se samo ako ih baza poznaje; oni nemaju rok trajanja.
+ * Obrada je idempotentna: status zahtjeva mijenja se samo ako je još <code>PENDING</code>, pa ponovljeni klik
+ * nikada ne produžuje program dvaput, a nedavno obrađeni zahtjevi prepoznaju se bez upita u bazu.
  */
 public class ExtensionHandler implements HttpHandler {
 
+    private static final String ALREADY_PROCESSED_TEXT = "This request has already been processed.";
+
+    private final ProcessedRequestCache processed;
+
+    /**
+     * Stvara handler koji obrađene zahtjeve pamti zadano vrijeme.
+     *
+     * @param processedTtl koliko dugo se obrađeni zahtjev pamti, pa se ponovljeni klik odbija bez upita u bazu
+     */
+    public ExtensionHandler(Duration processedTtl) {
+        this.processed = new ProcessedRequestCache(processedTtl);
+    }
+
     /**
      * Obrada HTTP zahtjeva koji uključuju akcije "accept" ili "deny" vezane uz zahtjev za produženje programa.
      *
@@ -38,32 +61,89 @@ public class ExtensionHandler implements HttpHandler {
         logger.info("Received action: {}", action);
         logger.info("Received token: {}", token);
 
-        String responseText;
-        if (action != null && token != null) {
-            switch (action) {
-                case "accept":
-                    responseText = "Extension approved successfully!";
-                    DatabaseUtils.acceptExtensionRequest(token);
-                    ChangeManager.addNewChange(new Change("Extension request approved.",
-                            Session.getSession().getCurrentUser().username(), "PENDING", "APPROVED"));
-                    break;
-                case "deny":
-                    responseText = "Extension denied.";
-                    DatabaseUtils.denyExtensionRequest(token);
-                    ChangeManager.addNewChange(new Change("Extension request approved.",
-                            Session.getSession().getCurrentUser().username(), "PENDING", "REJECTED"));
-                    break;
-                default:
-                    responseText = "Unknown action.";
-                    break;
+        if (action == null || token == null) {
+            sendResponse(exchange, 200, "Missing parameters.");
+            return;
+        }
+        if (!action.equals("accept") && !action.equals("deny")) {
+            sendResponse(exchange, 200, "Unknown action.");
+            return;
+        }
+        long requestId;
+        if (TokenGenerator.isLegacyToken(token)) {
+            Optional<Long> legacy;
+            try {
+                legacy = DatabaseUtils.findExtensionRequestId(token);
+            } catch (SQLException | IOException e) {
+                logger.error("Greška prilikom dohvata zahtjeva za produženje: {}", e.getMessage());
+                sendResponse(exchange, 500, "The request could not be processed. Please try again later.");
+                return;
+            }
+            if (legacy.isEmpty()) {
+                logger.warn("Odbijen nepoznati stari token za produženje.");
+                sendResponse(exchange, 403, "Invalid token.");
+                return;
             }
+            requestId = legacy.get();
         } else {
-            responseText = "Missing parameters.";
+            Optional<ExtensionToken> verified = TokenGenerator.verifyExtensionToken(token);
+            if (verified.isEmpty()) {
+                logger.warn("Odbijen neispravan token za produženje.");
+                sendResponse(exchange, 403, "Invalid token.");
+                return;
+            }
+            requestId = verified.get().requestId();
+            if (verified.get().isExpiredAt(Instant.now())) {
+                logger.info("Odbijen istekli token za zahtjev {}.", requestId);
+                sendResponse(exchange, 410, "This link has expired.");
+                return;
+            }
+        }
+        if (processed.contains(requestId)) {
+            sendResponse(exchange, 200, ALREADY_PROCESSED_TEXT);
+            return;
+        }
+
+        Session session = Session.getSession();
+        String username = session == null ? null : session.getCurrentUser().username();
+        boolean accept = action.equals("accept");
+        EXTENSION_OUTCOME outcome = accept
+                ? DatabaseUtils.acceptExtensionRequest(token, username)
+                : DatabaseUtils.denyExtensionRequest(token);
+        if (outcome != EXTENSION_OUTCOME.FAILED) processed.add(requestId);
+
+        String responseText;
+        switch (outcome) {
+            case APPLIED:
+                responseText = accept ? "Extension approved successfully!" : "Extension denied.";
+                ChangeManager.addNewChange(new Change(accept ? "Extension request approved." : "Extension request denied.",
+                        username, "PENDING", accept ? "APPROVED" : "REJECTED"));
+                break;
+            case ALREADY_PROCESSED:
+                logger.info("Zahtjev {} je već obrađen.", requestId);
+                responseText = ALREADY_PROCESSED_TEXT;
+                break;
+            default:
+                sendResponse(exchange, 500, "The request could not be processed. Please try again later.");
+                return;
         }
 
-        exchange.sendResponseHeaders(200, responseText.length());
+        sendResponse(exchange, 200, responseText);
+    }
+
+    /**
+     * Šalje tekstualni odgovor sa zadanim statusnim kodom.
+     *
+     * @param exchange objekt koji predstavlja HTTP zahtjev
+     * @param status statusni kod odgovora
+     * @param responseText tekst odgovora
+     * @throws IOException u slučaju problema sa slanjem odgovora
+     */
+    private void sendResponse(HttpExchange exchange, int status, String responseText) throws IOException {
+        byte[] body = responseText.getBytes();
+        exchange.sendResponseHeaders(status, body.length);
         try (OutputStream os = exchange.getResponseBody()) {
-            os.write(responseText.getBytes());
+            os.write(body);
         }
     }
 
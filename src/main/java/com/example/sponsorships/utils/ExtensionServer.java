@@ -0,0 +1,216 @@
+package com.example.sponsorships.utils;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pomoćna klasa koja pokreće i zaustavlja ugrađeni HTTP server za odgovore na zahtjeve za produženje programa.
+ * Metrike aplikacije (<code>/metrics</code>, {@link Metrics}) i JSON sučelje samo za čitanje (adrese ispod
+ * <code>/api/</code>, {@link ApiHandler}) ne poslužuju se na istom portu, jer vraćaju podatke sponzora bez prijave, a
+ * port za produženja mora biti dostupan sponzorima. Za njih se pokreće zaseban administrativni server vezan na
+ * <code>server.admin.address</code> (zadano <code>127.0.0.1</code>, dostupan samo s istog računala) i
+ * <code>server.admin.port</code> (8081).
+ * <p>
+ * Svaki zahtjev obrađuje se na vlastitoj virtualnoj dretvi, pa zahtjevi koji čekaju na bazu ne zadržavaju ostale.
+ * Postavke se čitaju iz neobavezne datoteke <code>conf/server.properties</code>: <code>server.port</code> (8080),
+ * <code>server.backlog</code> (najveći broj dolaznih veza koje čekaju na prihvaćanje; 0 znači zadanu vrijednost sustava),
+ * <code>server.shutdownSeconds</code> (koliko se pri gašenju najdulje čeka na zahtjeve koji su u obradi)
+ * i <code>server.processedTtlMinutes</code> (koliko dugo se obrađeni zahtjevi za produženje pamte u memoriji; 60).
+ * </p>
+ * <p>
+ * Pri gašenju se novi zahtjevi odbijaju odgovorom 503, a server se zaustavlja čim završe zahtjevi u obradi,
+ * bez čekanja cijelog vremena <code>server.shutdownSeconds</code>.
+ * </p>
+ */
+public class ExtensionServer {
+
+    /** Privatni konstruktor da se spriječi instanciranje ove pomoćne klase. */
+    private ExtensionServer() {}
+
+    private static final Logger logger = LoggerFactory.getLogger(ExtensionServer.class);
+    private static final String CONFIG_FILE = "conf/server.properties";
+
+    private static HttpServer server;
+    private static HttpServer adminServer;
+    private static ExecutorService executor;
+    private static int shutdownSeconds;
+    private static final AtomicInteger inFlight = new AtomicInteger();
+    private static volatile boolean draining;
+
+    /**
+     * Pokreće server prema postavkama ako već nije pokrenut.
+     *
+     * @throws IOException ako se server ili administrativni server ne mogu vezati na zadani port
+     */
+    public static synchronized void start() throws IOException {
+        if (server != null) return;
+        Properties settings = loadSettings();
+        int port = Integer.parseInt(settings.getProperty("server.port", "8080"));
+        int backlog = Integer.parseInt(settings.getProperty("server.backlog", "0"));
+        shutdownSeconds = Integer.parseInt(settings.getProperty("server.shutdownSeconds", "5"));
+
+        // Bez TCP_NODELAY tijelo odgovora poslano nakon zaglavlja čeka ~40 ms na potvrdu klijenta (Nagle i odgođeni ACK).
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        server = HttpServer.create(new InetSocketAddress(port), backlog);
+        Duration processedTtl = Duration.ofMinutes(Long.parseLong(settings.getProperty("server.processedTtlMinutes", "60")));
+        HttpContext context = server.createContext("/extension-response", new ExtensionHandler(processedTtl));
+        context.getFilters().add(new InFlightFilter());
+        context.getFilters().add(new RequestMetricsFilter());
+
+        InetSocketAddress adminAddress = new InetSocketAddress(
+                settings.getProperty("server.admin.address", "127.0.0.1").trim(),
+                Integer.parseInt(settings.getProperty("server.admin.port", "8081")));
+        try {
+            adminServer = HttpServer.create(adminAddress, backlog);
+        } catch (IOException e) {
+            // Nepokrenuti HttpServer pri zaustavljanju ne oslobađa port, pa se prvo pokreće.
+            server.start();
+            server.stop(0);
+            server = null;
+            throw e;
+        }
+        HttpContext metrics = adminServer.createContext("/metrics", new MetricsHandler());
+        metrics.getFilters().add(new InFlightFilter());
+        HttpContext api = adminServer.createContext("/api/", new ApiHandler());
+        api.getFilters().add(new InFlightFilter());
+        api.getFilters().add(new RequestMetricsFilter());
+        draining = false;
+        executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("http-", 0).factory());
+        server.setExecutor(executor);
+        adminServer.setExecutor(executor);
+        server.start();
+        adminServer.start();
+        logger.info("HTTP server pokrenut na portu {}, a administrativni server na {}.",
+                server.getAddress().getPort(), adminServer.getAddress());
+    }
+
+    /**
+     * Vraća port na kojem server sluša.
+     *
+     * @return port servera, ili -1 ako server nije pokrenut
+     */
+    public static synchronized int getPort() {
+        return server == null ? -1 : server.getAddress().getPort();
+    }
+
+    /**
+     * Vraća port na kojem sluša administrativni server s adresama <code>/metrics</code> i <code>/api/</code>.
+     *
+     * @return port administrativnog servera, ili -1 ako server nije pokrenut
+     */
+    public static synchronized int getAdminPort() {
+        return adminServer == null ? -1 : adminServer.getAddress().getPort();
+    }
+
+    /**
+     * Zaustavlja server: nove veze se više ne prihvaćaju, a na zahtjeve u obradi čeka se najviše
+     * <code>server.shutdownSeconds</code> sekundi.
+     */
+    public static synchronized void stop() {
+        if (server == null) return;
+        draining = true;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(shutdownSeconds);
+        try {
+            while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        server.stop(0);
+        adminServer.stop(0);
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(shutdownSeconds, TimeUnit.SECONDS)) {
+                logger.warn("Neki HTTP zahtjevi nisu dovršeni prije gašenja servera.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        server = null;
+        adminServer = null;
+        executor = null;
+        logger.info("HTTP server zaustavljen.");
+    }
+
+    /**
+     * Filtar koji broji zahtjeve u obradi i za vrijeme gašenja odbija nove zahtjeve.
+     */
+    private static class InFlightFilter extends Filter {
+
+        @Override
+        public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+            if (draining) {
+                exchange.sendResponseHeaders(503, -1);
+                exchange.close();
+                return;
+            }
+            inFlight.incrementAndGet();
+            try {
+                chain.doFilter(exchange);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+
+        @Override
+        public String description() {
+            return "Brojanje zahtjeva u obradi";
+        }
+    }
+
+    /**
+     * Filtar koji broji zahtjeve po statusnom kodu odgovora i bilježi njihovo trajanje.
+     */
+    private static class RequestMetricsFilter extends Filter {
+
+        @Override
+        public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+            String path = exchange.getHttpContext().getPath();
+            long start = System.nanoTime();
+            try {
+                chain.doFilter(exchange);
+            } finally {
+                Metrics.histogram("http_request_duration_seconds", "Trajanje obrade HTTP zahtjeva.", "path", path)
+                        .observeSince(start);
+                Metrics.counter("http_requests_total", "Broj HTTP zahtjeva po statusnom kodu odgovora.",
+                        "path", path, "status", String.valueOf(exchange.getResponseCode())).increment();
+            }
+        }
+
+        @Override
+        public String description() {
+            return "Metrike HTTP zahtjeva";
+        }
+    }
+
+    private static Properties loadSettings() {
+        Properties settings = new Properties();
+        if (Files.exists(Path.of(CONFIG_FILE))) {
+            try (FileReader reader = new FileReader(CONFIG_FILE)) {
+                settings.load(reader);
+            } catch (IOException e) {
+                logger.warn("Postavke HTTP servera nisu učitane, koriste se zadane: {}", e.getMessage());
+            }
+        }
+        return settings;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.sponsorships.utils;
+
+import com.example.sponsorships.interfaces.UserStore;
+import com.example.sponsorships.records.UserAccount;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Spremište korisničkih računa u tekstualnoj datoteci <code>files/users.txt</code>, s dohvatom preko
+ * imenika korisnika u memoriji ({@link UserDirectory}).
+ */
+public class FileUserStore implements UserStore {
+
+    @Override
+    public Optional<UserAccount> find(String username) {
+        return UserDirectory.find(username);
+    }
+
+    @Override
+    public boolean register(UserAccount account) throws IOException {
+        return UserDirectory.register(account);
+    }
+}
@@ -1,24 +1,32 @@
 package com.example.sponsorships.utils;
 
-import com.example.sponsorships.exceptions.NoPropertyFoundException;
+import com.example.sponsorships.enums.USER_STORE;
 import com.example.sponsorships.exceptions.UsernameTakenException;
 import com.example.sponsorships.exceptions.NoSuchUserException;
+import com.example.sponsorships.interfaces.UserStore;
 import com.example.sponsorships.records.User;
+import com.example.sponsorships.records.UserAccount;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Base64;
+import java.util.Properties;
 
 /**
  * {@code FileUtils} je pomoćna klasa za upravljanje datotekama vezanim uz korisnike.
  * <p>
- * Sadrži metode za hashiranje lozinke, spremanje korisnika, provjeru korisničkih podataka i dohvat korisnika
- * iz tekstualne datoteke. Također uključuje rukovanje specifičnim iznimkama kao što su {@link UsernameTakenException},
- * {@link NoPropertyFoundException} i {@link NoSuchUserException}.
+ * Sadrži metode za hashiranje lozinke, spremanje korisnika te provjeru korisničkih podataka i dohvat korisnika.
+ * Korisnici se spremaju u spremište ({@link UserStore}) odabrano postavkom <code>users.store</code> iz neobavezne datoteke
+ * <code>conf/users.properties</code>: <code>DATABASE</code> (zadano) za tablicu <code>Users</code> u bazi ili
+ * <code>FILE</code> za tekstualnu datoteku <code>files/users.txt</code>. Pri prvom korištenju baze korisnici iz
+ * tekstualne datoteke jednokratno se prebacuju u bazu.
+ * Također uključuje rukovanje specifičnim iznimkama kao što su {@link UsernameTakenException} i {@link NoSuchUserException}.
  * </p>
  */
 public class FileUtils {
@@ -30,6 +38,14 @@ public class FileUtils {
 
     private static final Logger logger = LoggerFactory.getLogger(FileUtils.class);
     private static final String FILEPATH = "files/users.txt";
+    private static final String CONFIG_FILE = "conf/users.properties";
+    private static final Metrics.Histogram loginTime = Metrics.histogram("login_duration_seconds",
+            "Trajanje provjere korisničkog imena i lozinke pri prijavi.");
+    private static final Metrics.Counter successfulLogins = Metrics.counter("logins_total",
+            "Broj pokušaja prijave po ishodu.", "result", "success");
+    private static final Metrics.Counter failedLogins = Metrics.counter("logins_total",
+            "Broj pokušaja prijave po ishodu.", "result", "failure");
+    private static UserStore userStore;
 
     /**
      * Hashira danu lozinku korištenjem SHA-256 algoritma i kodira ju u Base64.
@@ -49,116 +65,96 @@ public class FileUtils {
     }
 
     /**
-     * Sprema korisnika u datoteku, ali prije toga provjerava postoji li korisnik s istim usernameom.
+     * Vraća spremište korisnika, a pri prvom pozivu ga odabire prema postavkama.
      *
-     * @param user korisnik koji se sprema
-     * @throws UsernameTakenException ako username već postoji u datoteci
+     * @return spremište korisnika
      */
-    public static void saveUserToFile(User user) throws UsernameTakenException {
-        if (doesUserExist(user.username())) {
-            throw new UsernameTakenException("Username '" + user.username() + "' već postoji.");
-        }
-
-        String hashedPassword = hashPassword(user.password());
-        try (FileWriter fw = new FileWriter(FILEPATH, true);
-             BufferedWriter bw = new BufferedWriter(fw)) {
-
-            bw.write(user.username() + "," + hashedPassword + "," + user.admin());
-            bw.newLine();
-
-        } catch (IOException e) {
-            logger.error("Pogreška pri spremanju korisnika.", e);
+    private static synchronized UserStore userStore() {
+        if (userStore == null) {
+            Properties settings = new Properties();
+            if (Files.exists(Path.of(CONFIG_FILE))) {
+                try (FileReader reader = new FileReader(CONFIG_FILE)) {
+                    settings.load(reader);
+                } catch (IOException e) {
+                    logger.warn("Postavke korisnika nisu učitane, koriste se zadane: {}", e.getMessage());
+                }
+            }
+            USER_STORE type = USER_STORE.DATABASE;
+            try {
+                type = USER_STORE.valueOf(settings.getProperty("users.store", type.name()).trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                logger.warn("Nepoznato spremište korisnika '{}', koristi se {}.", settings.getProperty("users.store"), type);
+            }
+            if (type == USER_STORE.DATABASE) {
+                DatabaseUserStore store = new DatabaseUserStore();
+                store.importFrom(Path.of(FILEPATH));
+                userStore = store;
+            } else {
+                userStore = new FileUserStore();
+            }
+            logger.info("Korisnici se spremaju u spremište {}.", type);
         }
+        return userStore;
     }
 
     /**
-     * Provjerava postoji li korisnik s određenim korisničkim imenom u datoteci.
+     * Sprema korisnika ako korisničko ime nije zauzeto. Provjera i spremanje izvode se atomarno
+     * ({@link UserStore#register(UserAccount)}), pa ni istodobne registracije ne mogu spremiti isto korisničko ime.
      *
-     * @param username korisničko ime za provjeru
-     * @return {@code true} ako korisnik postoji, inače {@code false}
-     * @throws NoPropertyFoundException ako podaci o korisniku nisu potpuni
+     * @param user korisnik koji se sprema
+     * @throws UsernameTakenException ako username već postoji u datoteci
+     * @throws IOException ako spremanje korisnika ne uspije
      */
-    private static boolean doesUserExist(String username) {
-        try (BufferedReader reader = new BufferedReader(new FileReader(FILEPATH))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length < 3) {
-                    throw new NoPropertyFoundException("Nepotpuni podaci u datoteci za korisnika.");
-                }
-                if (parts[0].equals(username)) {
-                    return true;
-                }
-            }
-        } catch (IOException e) {
-            logger.error("Greška prilikom provjere korisnika: {}", e.getMessage());
+    public static void saveUserToFile(User user) throws UsernameTakenException, IOException {
+        if (!userStore().register(new UserAccount(user.username(), hashPassword(user.password()), user.admin()))) {
+            throw new UsernameTakenException("Username '" + user.username() + "' već postoji.");
         }
-        return false;
     }
 
     /**
-     * Provjerava korisničko ime i lozinku na temelju sadržaja datoteke.
+     * Provjerava korisničko ime i lozinku prema spremištu korisnika.
      *
      * @param enteredUsername uneseni username
      * @param enteredPassword unesena lozinka
      * @return {@code true} ako je autentifikacija uspješna, inače {@code false}
-     * @throws NoPropertyFoundException ako nedostaju potrebni atributi korisnika
+     * @throws IOException ako spremište korisnika nije dostupno
      */
-    public static boolean checkUser(String enteredUsername, String enteredPassword){
-        try (BufferedReader reader = new BufferedReader(new FileReader(FILEPATH))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length < 3) {
-                    throw new NoPropertyFoundException("Nepotpuni podaci u datoteci za korisnika.");
-                }
-                String username = parts[0];
-                String storedPassword = parts[1];
-
-                if (username.equals(enteredUsername)) {
-                    String hashedEnteredPassword = hashPassword(enteredPassword);
-                    return hashedEnteredPassword.equals(storedPassword);
-                }
-            }
-        } catch (IOException e) {
-            logger.error(e.getMessage());
-        }
-        return false;
+    public static boolean checkUser(String enteredUsername, String enteredPassword) throws IOException {
+        return userStore().find(enteredUsername)
+                .filter(account -> passwordMatches(account, enteredPassword))
+                .isPresent();
     }
 
     /**
-     * Dohvaća korisnika na temelju korisničkog imena i lozinke.
+     * Dohvaća korisnika na temelju korisničkog imena i lozinke jednim dohvatom iz spremišta korisnika
+     * i jednom provjerom sažetka lozinke.
      *
      * @param enteredUsername uneseni username
      * @param enteredPassword unesena lozinka
      * @return {@link User} objekt ako su podaci ispravni
      * @throws NoSuchUserException ako korisnik ne postoji ili je lozinka netočna
-     * @throws NoPropertyFoundException ako podaci o korisniku nisu potpuni
+     * @throws IOException ako spremište korisnika nije dostupno, pa se korisnik ne može provjeriti
      */
-    public static User findUser(String enteredUsername, String enteredPassword) throws NoSuchUserException {
-        try (BufferedReader reader = new BufferedReader(new FileReader(FILEPATH))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length < 3) {
-                    throw new NoPropertyFoundException("Nepotpuni podaci u datoteci za korisnika.");
-                }
-                String username = parts[0];
-                String storedPassword = parts[1];
-                boolean admin = Boolean.parseBoolean(parts[2].trim());
-
-                if (username.equals(enteredUsername)) {
-                    String hashedEnteredPassword = hashPassword(enteredPassword);
-                    if (hashedEnteredPassword.equals(storedPassword)) {
-                        return new User(enteredUsername, enteredPassword, admin);
-                    } else {
-                        throw new NoSuchUserException("Neispravna lozinka za korisnika.");
-                    }
-                }
+    public static User findUser(String enteredUsername, String enteredPassword) throws NoSuchUserException, IOException {
+        long start = System.nanoTime();
+        try {
+            UserAccount account = userStore().find(enteredUsername)
+                    .orElseThrow(() -> new NoSuchUserException("Korisnik '" + enteredUsername + "' nije pronađen."));
+            if (!passwordMatches(account, enteredPassword)) {
+                throw new NoSuchUserException("Neispravna lozinka za korisnika.");
             }
-        } catch (IOException e) {
-            logger.error(e.getMessage());
+            successfulLogins.increment();
+            return new User(enteredUsername, enteredPassword, account.admin());
+        } catch (RuntimeException e) {
+            failedLogins.increment();
+            throw e;
+        } finally {
+            loginTime.observeSince(start);
         }
-        throw new NoSuchUserException("Korisnik '" + enteredUsername + "' nije pronađen.");
+    }
+
+    private static boolean passwordMatches(UserAccount account, String enteredPassword) {
+        return MessageDigest.isEqual(hashPassword(enteredPassword).getBytes(StandardCharsets.UTF_8),
+                account.passwordHash().getBytes(StandardCharsets.UTF_8));
     }
 }
@@ -23,6 +23,13 @@ public class MailSender {
      */
     private MailSender() {}
 
+    private static final Metrics.Histogram sendTime = Metrics.histogram("mail_send_duration_seconds",
+            "Trajanje slanja jedne poruke e-pošte.");
+    private static final Metrics.Counter sentMails = Metrics.counter("mail_sends_total",
+            "Broj pokušaja slanja e-pošte po ishodu.", "result", "success");
+    private static final Metrics.Counter failedMails = Metrics.counter("mail_sends_total",
+            "Broj pokušaja slanja e-pošte po ishodu.", "result", "failure");
+
     /**
      * Šalje HTML e-mail poruku na zadanu adresu.
      *
@@ -61,6 +68,15 @@ public class MailSender {
         msg.setSubject(subject);
         msg.setContent(htmlContent, "text/html; charset=utf-8");
 
-        Transport.send(msg);
+        long start = System.nanoTime();
+        try {
+            Transport.send(msg);
+            sentMails.increment();
+        } catch (MessagingException e) {
+            failedMails.increment();
+            throw e;
+        } finally {
+            sendTime.observeSince(start);
+        }
     }
 }
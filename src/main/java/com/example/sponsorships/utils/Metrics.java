@@ -0,0 +1,248 @@
+package com.example.sponsorships.utils;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pomoćna klasa s registrom brojača i histograma trajanja koje aplikacija izlaže na adresi <code>/metrics</code>
+ * u tekstualnom formatu Prometheusa.
+ * <p>
+ * Metrike se registriraju pri prvom dohvatu po nazivu i oznakama, a svaki sljedeći dohvat vraća istu instancu, pa se
+ * mjesta koja se često izvršavaju mogu spremiti u statičko polje. Brojači i histogrami koriste {@link LongAdder}, pa
+ * bilježenje ne zaključava i ne usporava dretve koje se natječu. Pri svakom dohvatu metrika dodaju se i trenutne
+ * vrijednosti JVM-a: zauzeće heapa, broj i trajanje skupljanja smeća te broj dretvi.
+ * </p>
+ */
+public class Metrics {
+
+    /** Privatni konstruktor da se spriječi instanciranje ove pomoćne klase. */
+    private Metrics() {}
+
+    /** Gornje granice razreda histograma trajanja, u sekundama. */
+    private static final double[] DURATION_BUCKETS =
+            {0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+
+    private static final Map<String, Family> families = new ConcurrentSkipListMap<>();
+
+    /**
+     * Vraća brojač zadanog naziva i oznaka, a registrira ga ako još ne postoji.
+     *
+     * @param name naziv metrike, npr. <code>mail_sent_total</code>
+     * @param help kratak opis metrike
+     * @param labels parovi naziva i vrijednosti oznaka, npr. <code>"result", "success"</code>
+     * @return brojač
+     */
+    public static Counter counter(String name, String help, String... labels) {
+        return (Counter) family(name, help, "counter").series.computeIfAbsent(labelText(labels), l -> new Counter());
+    }
+
+    /**
+     * Vraća histogram trajanja zadanog naziva i oznaka, a registrira ga ako još ne postoji.
+     *
+     * @param name naziv metrike, npr. <code>mail_send_duration_seconds</code>
+     * @param help kratak opis metrike
+     * @param labels parovi naziva i vrijednosti oznaka
+     * @return histogram
+     */
+    public static Histogram histogram(String name, String help, String... labels) {
+        return (Histogram) family(name, help, "histogram").series.computeIfAbsent(labelText(labels), l -> new Histogram());
+    }
+
+    /**
+     * Ispisuje sve registrirane metrike i trenutne vrijednosti JVM-a u tekstualnom formatu Prometheusa (verzija 0.0.4).
+     *
+     * @return tekst metrika
+     */
+    public static String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+        for (Map.Entry<String, Family> entry : families.entrySet()) {
+            Family family = entry.getValue();
+            header(out, entry.getKey(), family.help, family.type);
+            for (Map.Entry<String, Object> series : family.series.entrySet()) {
+                if (series.getValue() instanceof Counter counter) {
+                    sample(out, entry.getKey(), series.getKey(), counter.get());
+                } else {
+                    ((Histogram) series.getValue()).write(out, entry.getKey(), series.getKey());
+                }
+            }
+        }
+        writeJvmMetrics(out);
+        return out.toString();
+    }
+
+    private static Family family(String name, String help, String type) {
+        Family family = families.computeIfAbsent(name, n -> new Family(help, type));
+        if (!family.type.equals(type)) {
+            throw new IllegalArgumentException("Metrika " + name + " je već registrirana kao " + family.type + ".");
+        }
+        return family;
+    }
+
+    private static String labelText(String... labels) {
+        if (labels.length % 2 != 0) throw new IllegalArgumentException("Oznake moraju biti parovi naziva i vrijednosti.");
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (!text.isEmpty()) text.append(',');
+            text.append(labels[i]).append("=\"").append(escape(labels[i + 1])).append('"');
+        }
+        return text.toString();
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static void header(StringBuilder out, String name, String help, String type) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, double value) {
+        out.append(name);
+        if (!labels.isEmpty()) out.append('{').append(labels).append('}');
+        out.append(' ').append(format(value)).append('\n');
+    }
+
+    private static String format(double value) {
+        if (value == Double.POSITIVE_INFINITY) return "+Inf";
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) return Long.toString((long) value);
+        return Double.toString(value);
+    }
+
+    private static void writeJvmMetrics(StringBuilder out) {
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        header(out, "jvm_memory_heap_used_bytes", "Zauzeće heapa u bajtovima.", "gauge");
+        sample(out, "jvm_memory_heap_used_bytes", "", heap.getUsed());
+        header(out, "jvm_memory_heap_committed_bytes", "Heap rezerviran od operacijskog sustava u bajtovima.", "gauge");
+        sample(out, "jvm_memory_heap_committed_bytes", "", heap.getCommitted());
+        header(out, "jvm_memory_heap_max_bytes", "Najveća veličina heapa u bajtovima, ili -1 ako nije ograničena.", "gauge");
+        sample(out, "jvm_memory_heap_max_bytes", "", heap.getMax());
+
+        header(out, "jvm_gc_collections_total", "Broj skupljanja smeća po skupljaču.", "counter");
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            sample(out, "jvm_gc_collections_total", labelText("gc", gc.getName()), Math.max(0, gc.getCollectionCount()));
+        }
+        header(out, "jvm_gc_collection_seconds_total", "Ukupno trajanje skupljanja smeća po skupljaču, u sekundama.", "counter");
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            sample(out, "jvm_gc_collection_seconds_total", labelText("gc", gc.getName()), Math.max(0, gc.getCollectionTime()) / 1000.0);
+        }
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        header(out, "jvm_threads_live", "Broj živih platformskih dretvi.", "gauge");
+        sample(out, "jvm_threads_live", "", threads.getThreadCount());
+        header(out, "jvm_threads_daemon", "Broj živih daemon dretvi.", "gauge");
+        sample(out, "jvm_threads_daemon", "", threads.getDaemonThreadCount());
+        header(out, "jvm_threads_peak", "Najveći broj istodobno živih platformskih dretvi.", "gauge");
+        sample(out, "jvm_threads_peak", "", threads.getPeakThreadCount());
+    }
+
+    /**
+     * Skup mjerenja jedne metrike s različitim vrijednostima oznaka.
+     *
+     * @param help kratak opis metrike
+     * @param type vrsta metrike u formatu Prometheusa
+     * @param series mjerenja po tekstu oznaka
+     */
+    private record Family(String help, String type, Map<String, Object> series) {
+        private Family(String help, String type) {
+            this(help, type, new ConcurrentSkipListMap<>());
+        }
+    }
+
+    /**
+     * Brojač koji se samo povećava.
+     */
+    public static final class Counter {
+
+        private final LongAdder value = new LongAdder();
+
+        private Counter() {}
+
+        /** Povećava brojač za jedan. */
+        public void increment() {
+            value.increment();
+        }
+
+        /**
+         * Povećava brojač za zadani iznos.
+         *
+         * @param amount iznos povećanja
+         */
+        public void add(long amount) {
+            value.add(amount);
+        }
+
+        /**
+         * Vraća trenutnu vrijednost brojača.
+         *
+         * @return vrijednost brojača
+         */
+        public long get() {
+            return value.sum();
+        }
+    }
+
+    /**
+     * Histogram trajanja s fiksnim razredima od 0,5 ms do 10 s.
+     */
+    public static final class Histogram {
+
+        private final LongAdder[] buckets = new LongAdder[DURATION_BUCKETS.length + 1];
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sumNanos = new LongAdder();
+
+        private Histogram() {
+            Arrays.setAll(buckets, i -> new LongAdder());
+        }
+
+        /**
+         * Bilježi trajanje od zadanog trenutka do sada.
+         *
+         * @param startNanos trenutak početka dobiven s {@link System#nanoTime()}
+         */
+        public void observeSince(long startNanos) {
+            observeNanos(System.nanoTime() - startNanos);
+        }
+
+        /**
+         * Bilježi jedno trajanje.
+         *
+         * @param nanos trajanje u nanosekundama
+         */
+        public void observeNanos(long nanos) {
+            double seconds = nanos / 1e9;
+            int bucket = 0;
+            while (bucket < DURATION_BUCKETS.length && seconds > DURATION_BUCKETS[bucket]) bucket++;
+            buckets[bucket].increment();
+            count.increment();
+            sumNanos.add(nanos);
+        }
+
+        /**
+         * Vraća broj zabilježenih trajanja.
+         *
+         * @return broj mjerenja
+         */
+        public long count() {
+            return count.sum();
+        }
+
+        private void write(StringBuilder out, String name, String labels) {
+            String prefix = labels.isEmpty() ? "" : labels + ",";
+            long cumulative = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                cumulative += buckets[i].sum();
+                double bound = i < DURATION_BUCKETS.length ? DURATION_BUCKETS[i] : Double.POSITIVE_INFINITY;
+                sample(out, name + "_bucket", prefix + "le=\"" + format(bound) + "\"", cumulative);
+            }
+            sample(out, name + "_sum", labels, sumNanos.sum() / 1e9);
+            sample(out, name + "_count", labels, cumulative);
+        }
+    }
+}
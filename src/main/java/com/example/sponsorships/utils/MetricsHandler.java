@@ -0,0 +1,36 @@
+package com.example.sponsorships.utils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Handler klasa koja na zahtjev <code>GET /metrics</code> vraća metrike aplikacije u tekstualnom formatu Prometheusa.
+ */
+public class MetricsHandler implements HttpHandler {
+
+    /**
+     * Obrada HTTP zahtjeva za dohvat metrika.
+     *
+     * @param exchange objekt koji predstavlja dolazni HTTP zahtjev i omogućuje slanje odgovora
+     * @throws IOException u slučaju problema sa slanjem odgovora
+     */
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("GET")) {
+            exchange.getResponseHeaders().set("Allow", "GET");
+            exchange.sendResponseHeaders(405, -1);
+            exchange.close();
+            return;
+        }
+        byte[] body = Metrics.scrape().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+}
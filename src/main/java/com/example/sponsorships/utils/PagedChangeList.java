@@ -0,0 +1,190 @@
+package com.example.sponsorships.utils;
+
+import com.example.sponsorships.entities.Change;
+import com.example.sponsorships.records.ChangeSegment;
+import javafx.application.Platform;
+import javafx.collections.ObservableListBase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Lista promjena za {@link javafx.scene.control.TableView} koja promjene iz dnevnika učitava po stranicama,
+ * od najnovije prema starijima.
+ * <p>
+ * Veličina liste odgovara broju promjena u dnevniku u trenutku stvaranja liste, ali se promjene dohvaćaju tek kada ih
+ * tablica zatraži za prikaz. Dok se stranica učitava u pozadini, njezini elementi su {@code null}, a nakon učitavanja
+ * lista obavještava tablicu da ih ponovno iscrta. U memoriji se čuva najviše zadani broj stranica; stranica koja je
+ * najdulje bila nekorištena izbacuje se (LRU) i po potrebi ponovno učitava. Stranica čije učitavanje ne uspije
+ * pamti se s praznim redovima, pa se ne učitava ponovno pri svakom iscrtavanju tablice.
+ * </p>
+ * <p>
+ * Promjene zapisane nakon stvaranja liste dodaju se na njezin početak metodom {@link #prependAll(List)}. U memoriji se
+ * čuva najviše jedna stranica takvih promjena; starije od njih postaju dio raspona koji se učitava po stranicama
+ * iz dnevnika. Stranice su poravnate od najstarije promjene, pa se rastom liste ne pomiču.
+ * </p>
+ * <p>
+ * Sve metode liste moraju se pozivati s JavaFX dretve.
+ * </p>
+ */
+public class PagedChangeList extends ObservableListBase<Change> {
+
+    private static final Logger logger = LoggerFactory.getLogger(PagedChangeList.class);
+    private static final ExecutorService loader =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("change-page-", 0).factory());
+
+    private final List<ChangeSegment> segments;
+    private final long snapshotSize;
+    private final int pageSize;
+    private final EntityCache<Integer, List<Change>> pages;
+    private final Set<Integer> loading = new HashSet<>();
+    private final List<Change> recent = new ArrayList<>();
+    private int pagedSize;
+
+    /**
+     * Stvara listu nad zadanim segmentima dnevnika.
+     *
+     * @param segments segmenti dnevnika od najstarijeg do najnovijeg, s brojem promjena u trenutku stvaranja liste
+     * @param pageSize broj promjena na jednoj stranici
+     * @param cachedPages najveći broj stranica koje se čuvaju u memoriji
+     */
+    public PagedChangeList(List<ChangeSegment> segments, int pageSize, int cachedPages) {
+        this.segments = List.copyOf(segments);
+        this.snapshotSize = segments.stream().mapToLong(ChangeSegment::recordCount).sum();
+        this.pagedSize = (int) Math.min(Integer.MAX_VALUE, snapshotSize);
+        this.pageSize = pageSize;
+        this.pages = new EntityCache<>("changePages", cachedPages);
+    }
+
+    /**
+     * Stvara listu nad zadanim stanjem dnevnika promjena, s veličinom stranice <code>view.pageSize</code>
+     * i brojem stranica u memoriji <code>view.cachedPages</code> iz postavki dnevnika promjena.
+     *
+     * @param segments segmenti dnevnika od najstarijeg do najnovijeg, s brojem promjena u trenutku čitanja
+     * @return lista promjena od najnovije prema starijima
+     */
+    public static PagedChangeList ofSegments(List<ChangeSegment> segments) {
+        return new PagedChangeList(segments,
+                Integer.parseInt(ChangeManager.getSetting("view.pageSize", "200")),
+                Integer.parseInt(ChangeManager.getSetting("view.cachedPages", "10")));
+    }
+
+    /**
+     * Vraća promjenu na zadanom mjestu, gdje je 0 najnovija promjena. Ako stranica s tom promjenom nije u memoriji,
+     * pokreće se njezino učitavanje i vraća se {@code null}.
+     *
+     * @param index mjesto promjene
+     * @return promjena, ili {@code null} ako se stranica još učitava
+     */
+    @Override
+    public Change get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Indeks " + index + " izvan liste veličine " + size() + ".");
+        }
+        // Položaj promjene od najstarije, kojim su određene stranice
+        int position = size() - 1 - index;
+        if (position >= pagedSize) return recent.get(position - pagedSize);
+        int page = position / pageSize;
+        List<Change> changes = pages.get(page);
+        // Zadnja stranica učitana prije nego što je lista narasla je nepotpuna, pa se učitava ponovno
+        if (changes == null || changes.size() < pageLength(page)) {
+            loadPage(page);
+            return null;
+        }
+        return changes.get(position - page * pageSize);
+    }
+
+    @Override
+    public int size() {
+        return pagedSize + recent.size();
+    }
+
+    /**
+     * Dodaje nove promjene na početak liste, tako da zadnja od njih postane prva u listi.
+     *
+     * @param changes nove promjene redoslijedom kojim su zapisane u dnevnik
+     */
+    public void prependAll(List<Change> changes) {
+        if (changes.isEmpty()) return;
+        recent.addAll(changes);
+        int folded = recent.size() - pageSize;
+        if (folded > 0) {
+            recent.subList(0, folded).clear();
+            pagedSize += folded;
+        }
+        beginChange();
+        nextAdd(0, changes.size());
+        endChange();
+    }
+
+    private int pageLength(int page) {
+        return Math.min(pageSize, pagedSize - page * pageSize);
+    }
+
+    private void loadPage(int page) {
+        if (!loading.add(page)) return;
+        int first = page * pageSize;
+        int count = pageLength(page);
+        CompletableFuture.supplyAsync(() -> readRange(first, count), loader).whenComplete((changes, error) ->
+                Platform.runLater(() -> {
+                    loading.remove(page);
+                    List<Change> loaded = changes;
+                    if (error != null) {
+                        logger.error("Pogreška pri učitavanju stranice {} dnevnika promjena.", page, error);
+                        loaded = Collections.nCopies(count, null);
+                    }
+                    pages.put(page, loaded);
+                    beginChange();
+                    for (int i = 0; i < loaded.size(); i++) {
+                        nextSet(size() - 1 - (first + i), null);
+                    }
+                    endChange();
+                }));
+    }
+
+    private List<Change> readRange(long start, int count) {
+        long end = start + count;
+        List<Change> changes = new ArrayList<>(count);
+        long segmentStart = 0;
+        for (ChangeSegment segment : end > snapshotSize ? currentSegments() : segments) {
+            long segmentEnd = segmentStart + segment.recordCount();
+            if (segmentEnd > start && segmentStart < end) {
+                long from = Math.max(start, segmentStart) - segmentStart;
+                int length = (int) (Math.min(end, segmentEnd) - segmentStart - from);
+                List<Change> read = ChangeManager.readRange(segment, from, length);
+                changes.addAll(read);
+                // Promjene koje nije bilo moguće pročitati ostaju prazni redovi, da ostali ne promijene mjesto.
+                for (int i = read.size(); i < length; i++) changes.add(null);
+            }
+            segmentStart = segmentEnd;
+        }
+        for (int i = changes.size(); i < count; i++) changes.add(null);
+        return changes;
+    }
+
+    /**
+     * Vraća segmente iz trenutka stvaranja liste, nastavljene promjenama koje su nakon toga dodane u dnevnik:
+     * zadnji segment s trenutnim brojem promjena i svi segmenti nastali nakon njega.
+     *
+     * @return segmenti od najstarijeg do aktivnog
+     */
+    private List<ChangeSegment> currentSegments() {
+        if (segments.isEmpty()) return segments;
+        long lastSequence = segments.get(segments.size() - 1).sequence();
+        List<ChangeSegment> current = ChangeManager.getSegments();
+        if (current.isEmpty() || current.get(0).sequence() > lastSequence) return segments;
+        List<ChangeSegment> extended = new ArrayList<>(segments.subList(0, segments.size() - 1));
+        for (ChangeSegment segment : current) {
+            if (segment.sequence() >= lastSequence) extended.add(segment);
+        }
+        return extended;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.sponsorships.utils;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Skup nedavno obrađenih zahtjeva za produženje, po identifikatoru zahtjeva.
+ * <p>
+ * Klijenti e-pošte i skeneri poveznica često istu poveznicu otvore više puta. Zahtjev koji je već obrađen pamti se
+ * zadano vrijeme, pa se ponovljeni klik prepoznaje jednim dohvatom iz mape, bez upita u bazu. Istekli zapisi
+ * uklanjaju se pri dohvatu i povremeno pri dodavanju.
+ * </p>
+ */
+public class ProcessedRequestCache {
+
+    private static final int SWEEP_INTERVAL = 1024;
+
+    private final long ttlNanos;
+    private final ConcurrentHashMap<Long, Long> expiresAt = new ConcurrentHashMap<>();
+    private final AtomicInteger additions = new AtomicInteger();
+
+    /**
+     * Stvara prazan skup u kojem se zahtjevi pamte zadano vrijeme.
+     *
+     * @param ttl koliko dugo se obrađeni zahtjev pamti
+     */
+    public ProcessedRequestCache(Duration ttl) {
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * Provjerava je li zahtjev nedavno obrađen.
+     *
+     * @param requestId identifikator zahtjeva za produženje
+     * @return {@code true} ako je zahtjev obrađen, a zapis o tome još nije istekao
+     */
+    public boolean contains(long requestId) {
+        Long expiry = expiresAt.get(requestId);
+        if (expiry == null) return false;
+        if (System.nanoTime() - expiry < 0) return true;
+        expiresAt.remove(requestId, expiry);
+        return false;
+    }
+
+    /**
+     * Bilježi da je zahtjev obrađen.
+     *
+     * @param requestId identifikator zahtjeva za produženje
+     */
+    public void add(long requestId) {
+        long now = System.nanoTime();
+        expiresAt.put(requestId, now + ttlNanos);
+        if (additions.incrementAndGet() % SWEEP_INTERVAL == 0) {
+            expiresAt.values().removeIf(expiry -> now - expiry >= 0);
+        }
+    }
+
+    /**
+     * Vraća broj zapamćenih zahtjeva, uključujući one koji su istekli, a još nisu uklonjeni.
+     *
+     * @return broj zapisa
+     */
+    public int size() {
+        return expiresAt.size();
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.sponsorships.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Pomoćna klasa za verzionirane migracije sheme baze podataka.
+ * <p>
+ * Pri pokretanju aplikacije izvršava sve migracije čija je verzija veća od zadnje verzije zapisane u tablici
+ * <code>schema_version</code>. Svaka naredba je napisana tako da se može sigurno ponoviti
+ * (<code>IF NOT EXISTS</code>), pa se postojeće baze kreirane prije uvođenja migracija samo nadograđuju.
+ * </p>
+ */
+public class SchemaMigrator {
+
+    /** Privatni konstruktor da se spriječi instanciranje ove pomoćne klase. */
+    private SchemaMigrator() {}
+
+    private static final Logger logger = LoggerFactory.getLogger(SchemaMigrator.class);
+    private static final int PROGRAM_NAME_LENGTH = 255;
+
+    /**
+     * Jedna migracija sheme.
+     *
+     * @param version redni broj verzije sheme
+     * @param description kratki opis migracije
+     * @param preparation priprema postojećih podataka koja se izvršava prije naredbi, u istoj transakciji
+     * @param statements SQL naredbe koje se izvršavaju redom
+     */
+    private record Migration(int version, String description, DatabaseUtils.SQLConsumer<Connection> preparation,
+                             List<String> statements) {
+        private Migration(int version, String description, List<String> statements) {
+            this(version, description, conn -> {}, statements);
+        }
+    }
+
+    private static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "Početna shema", List.of(
+                    """
+                    CREATE TABLE IF NOT EXISTS Addresses (
+                        id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                        street_name VARCHAR(255) NOT NULL,
+                        house_number VARCHAR(20) NOT NULL,
+                        city VARCHAR(100) NOT NULL
+                    )""",
+                    """
+                    CREATE TABLE IF NOT EXISTS Persons (
+                        id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                        first_name VARCHAR(100) NOT NULL,
+                        last_name VARCHAR(100) NOT NULL,
+                        date_of_birth DATE,
+                        address_id BIGINT
+                    )""",
+                    """
+                    CREATE TABLE IF NOT EXISTS Sponsors (
+                        id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                        name VARCHAR(255) NOT NULL,
+                        email VARCHAR(255) NOT NULL,
+                        address_id BIGINT,
+                        contact_person_id BIGINT
+                    )""",
+                    """
+                    CREATE TABLE IF NOT EXISTS Programs (
+                        id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                        name VARCHAR(255) NOT NULL,
+                        sponsor_id BIGINT NOT NULL,
+                        daily_amount DECIMAL(12, 2) NOT NULL,
+                        description VARCHAR(2000),
+                        start_date DATE NOT NULL,
+                        end_date DATE NOT NULL
+                    )""",
+                    """
+                    CREATE TABLE IF NOT EXISTS ProgramExtensionRequests (
+                        id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                        program_id BIGINT NOT NULL,
+                        days_requested INT NOT NULL,
+                        status VARCHAR(20) NOT NULL,
+                        token VARCHAR(255)
+                    )""")),
+            new Migration(2, "Indeksi za česte upite i jedinstveni naziv programa", SchemaMigrator::renameDuplicateProgramNames, List.of(
+                    "ALTER TABLE Programs ADD CONSTRAINT IF NOT EXISTS uq_programs_name UNIQUE (name)",
+                    "CREATE INDEX IF NOT EXISTS idx_programs_sponsor_id ON Programs (sponsor_id)",
+                    "CREATE INDEX IF NOT EXISTS idx_extension_requests_token ON ProgramExtensionRequests (token)",
+                    "CREATE INDEX IF NOT EXISTS idx_extension_requests_program_id ON ProgramExtensionRequests (program_id)",
+                    "CREATE INDEX IF NOT EXISTS idx_sponsors_contact_person_id ON Sponsors (contact_person_id)",
+                    "CREATE INDEX IF NOT EXISTS idx_sponsors_address_id ON Sponsors (address_id)")),
+            new Migration(3, "Tablica korisnika s jedinstvenim korisničkim imenom", List.of(
+                    """
+                    CREATE TABLE IF NOT EXISTS Users (
+                        id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                        username VARCHAR(255) NOT NULL,
+                        password_hash VARCHAR(255) NOT NULL,
+                        admin BOOLEAN DEFAULT FALSE NOT NULL
+                    )""",
+                    "ALTER TABLE Users ADD CONSTRAINT IF NOT EXISTS uq_users_username UNIQUE (username)"))
+    );
+
+    /**
+     * Dovodi shemu baze podataka na zadnju verziju.
+     * Ako neka migracija ne uspije, prekida se izvođenje, a sljedeće migracije se ne pokušavaju.
+     *
+     * @return verzija sheme nakon migracije, ili -1 ako migracija nije uspjela
+     */
+    public static int migrate() {
+        try (Connection conn = DatabaseUtils.connectToDatabase()) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("""
+                        CREATE TABLE IF NOT EXISTS schema_version (
+                            version INT PRIMARY KEY,
+                            description VARCHAR(255) NOT NULL,
+                            installed_on TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL
+                        )""");
+            }
+            int current = currentVersion(conn);
+            for (Migration migration : MIGRATIONS) {
+                if (migration.version() <= current) continue;
+                apply(conn, migration);
+                current = migration.version();
+            }
+            return current;
+        } catch (SQLException | IOException e) {
+            logger.error("Migracija sheme nije uspjela: {}", e.getMessage());
+            return -1;
+        }
+    }
+
+    private static int currentVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    /**
+     * Prije uvođenja jedinstvenog naziva programa preimenuje programe čiji se naziv ponavlja, jer bi inače dodavanje
+     * ograničenja zauvijek rušilo migraciju. Prvi program (najmanji ID) zadržava naziv, a ostalima se nazivu dodaje
+     * njihov ID, npr. <code>Ljetni kamp (42)</code>. Svako preimenovanje se zapisuje u dnevnik.
+     *
+     * @param conn veza na kojoj se izvršava migracija
+     * @throws SQLException ako čitanje ili preimenovanje ne uspije
+     */
+    private static void renameDuplicateProgramNames(Connection conn) throws SQLException {
+        String duplicates = """
+                SELECT p.id, p.name FROM Programs p
+                WHERE EXISTS (SELECT 1 FROM Programs q WHERE q.name = p.name AND q.id < p.id)
+                ORDER BY p.id""";
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(duplicates);
+             PreparedStatement rename = conn.prepareStatement("UPDATE Programs SET name = ? WHERE id = ?")) {
+            while (rs.next()) {
+                long id = rs.getLong("id");
+                String name = rs.getString("name");
+                String suffix = " (" + id + ")";
+                String newName = name.substring(0, Math.min(name.length(), PROGRAM_NAME_LENGTH - suffix.length())) + suffix;
+                rename.setString(1, newName);
+                rename.setLong(2, id);
+                rename.executeUpdate();
+                logger.warn("Naziv programa {} se ponavlja, program {} je preimenovan u '{}'.", name, id, newName);
+            }
+        }
+    }
+
+    private static void apply(Connection conn, Migration migration) throws SQLException {
+        conn.setAutoCommit(false);
+        try (Statement stmt = conn.createStatement()) {
+            migration.preparation().accept(conn);
+            for (String sql : migration.statements()) {
+                stmt.execute(sql);
+            }
+            try (PreparedStatement ps = conn.prepareStatement("INSERT INTO schema_version (version, description) VALUES (?, ?)")) {
+                ps.setInt(1, migration.version());
+                ps.setString(2, migration.description());
+                ps.executeUpdate();
+            }
+            conn.commit();
+            logger.info("Primijenjena migracija V{}: {}", migration.version(), migration.description());
+        } catch (SQLException e) {
+            conn.rollback();
+            throw new SQLException("V" + migration.version() + " (" + migration.description() + "): " + e.getMessage(), e);
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+}
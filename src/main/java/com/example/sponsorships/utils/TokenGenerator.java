@@ -1,5 +1,26 @@
 package com.example.sponsorships.utils;
 
+import com.example.sponsorships.records.ExtensionToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.Properties;
 import java.util.UUID;
 
 /**
@@ -8,6 +29,16 @@ import java.util.UUID;
  * Klasa koristi {@link UUID} kako bi generirala sigurne i nasumične stringove
  * koji se mogu koristiti kao tokeni za potvrdu, sesije, produženja i sl.
  * </p>
+ * <p>
+ * Tokeni za odgovor na zahtjev za produženje su potpisani (HMAC-SHA256) i sami opisuju zahtjev: sadrže identifikator
+ * programa i zahtjeva, broj dana i vrijeme isteka, pa se krivotvoreni ili istekli tokeni odbijaju bez upita u bazu.
+ * Token ima oblik <code>sadržaj.potpis</code>, oba dijela kodirana u Base64 prikladnom za URL.
+ * Poveznice poslane prije uvođenja potpisanih tokena sadrže UUID bez točke ({@link #isLegacyToken(String)}); takvi se
+ * tokeni i dalje prihvaćaju, ali samo ako postoje u bazi.
+ * Tajni ključ (<code>token.secret</code>, Base64) i trajanje tokena u danima (<code>token.ttlDays</code>, zadano 14)
+ * čitaju se iz datoteke <code>conf/token.properties</code>. Ako ključ nije zadan, generira se nasumični ključ i
+ * zapisuje u tu datoteku, kako bi već poslani tokeni vrijedili i nakon ponovnog pokretanja aplikacije.
+ * </p>
  */
 public class TokenGenerator {
 
@@ -16,6 +47,17 @@ public class TokenGenerator {
      */
     private TokenGenerator() {}
 
+    private static final Logger logger = LoggerFactory.getLogger(TokenGenerator.class);
+    private static final String CONFIG_FILE = "conf/token.properties";
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int PAYLOAD_LENGTH = Long.BYTES + Long.BYTES + Integer.BYTES + Long.BYTES;
+    private static final int SIGNATURE_LENGTH = 32;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private static volatile Mac prototype;
+    private static Duration ttl;
+
     /**
      * Generira novi jedinstveni token u obliku UUID stringa.
      *
@@ -24,4 +66,114 @@ public class TokenGenerator {
     public static String generateToken() {
         return UUID.randomUUID().toString();
     }
+
+    /**
+     * Generira potpisani token za odgovor na zahtjev za produženje programa, koji vrijedi
+     * <code>token.ttlDays</code> dana od trenutka generiranja.
+     *
+     * @param programId identifikator programa
+     * @param requestId identifikator zahtjeva za produženje
+     * @param days broj dana za koji se traži produženje
+     * @return potpisani token prikladan za URL
+     */
+    public static String generateExtensionToken(long programId, long requestId, int days) {
+        Instant expiresAt = Instant.now().plus(ttl());
+        byte[] payload = ByteBuffer.allocate(PAYLOAD_LENGTH)
+                .putLong(programId).putLong(requestId).putInt(days).putLong(expiresAt.getEpochSecond())
+                .array();
+        return ENCODER.encodeToString(payload) + "." + ENCODER.encodeToString(mac().doFinal(payload));
+    }
+
+    /**
+     * Provjerava potpis tokena za odgovor na zahtjev za produženje i vraća njegov sadržaj.
+     * Istek tokena se ne provjerava, nego ga provjerava pozivatelj metodom {@link ExtensionToken#isExpiredAt(Instant)}.
+     *
+     * @param token token iz poveznice
+     * @return sadržaj tokena, ili prazan {@link Optional} ako token nije ispravnog oblika ili potpis nije valjan
+     */
+    public static Optional<ExtensionToken> verifyExtensionToken(String token) {
+        if (token == null) return Optional.empty();
+        int dot = token.indexOf('.');
+        if (dot < 0) return Optional.empty();
+        byte[] payload;
+        byte[] signature;
+        try {
+            payload = DECODER.decode(token.substring(0, dot).getBytes(StandardCharsets.US_ASCII));
+            signature = DECODER.decode(token.substring(dot + 1).getBytes(StandardCharsets.US_ASCII));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        if (payload.length != PAYLOAD_LENGTH || signature.length != SIGNATURE_LENGTH) return Optional.empty();
+        if (!MessageDigest.isEqual(mac().doFinal(payload), signature)) return Optional.empty();
+        ByteBuffer in = ByteBuffer.wrap(payload);
+        return Optional.of(new ExtensionToken(in.getLong(), in.getLong(), in.getInt(), Instant.ofEpochSecond(in.getLong())));
+    }
+
+    /**
+     * Provjerava je li token stari, nepotpisani UUID token iz poveznica poslanih prije uvođenja potpisanih tokena.
+     * Takav token ne opisuje zahtjev, pa se zahtjev mora potražiti u bazi.
+     *
+     * @param token token iz poveznice
+     * @return {@code true} ako je token UUID, inače {@code false}
+     */
+    public static boolean isLegacyToken(String token) {
+        if (token == null || token.indexOf('.') >= 0) return false;
+        try {
+            return UUID.fromString(token).toString().equalsIgnoreCase(token);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static Duration ttl() {
+        mac();
+        return ttl;
+    }
+
+    private static Mac mac() {
+        Mac mac = prototype;
+        if (mac == null) mac = prototype();
+        try {
+            return (Mac) mac.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("HMAC nije moguće kopirati.", e);
+        }
+    }
+
+    private static synchronized Mac prototype() {
+        if (prototype != null) return prototype;
+        Properties settings = new Properties();
+        if (Files.exists(Path.of(CONFIG_FILE))) {
+            try (FileReader reader = new FileReader(CONFIG_FILE)) {
+                settings.load(reader);
+            } catch (IOException e) {
+                logger.warn("Postavke tokena nisu učitane, koriste se zadane: {}", e.getMessage());
+            }
+        }
+        ttl = Duration.ofDays(Long.parseLong(settings.getProperty("token.ttlDays", "14")));
+        String secret = settings.getProperty("token.secret");
+        if (secret == null || secret.isBlank()) {
+            byte[] key = new byte[32];
+            new SecureRandom().nextBytes(key);
+            secret = Base64.getEncoder().encodeToString(key);
+            settings.setProperty("token.secret", secret);
+            try {
+                Files.createDirectories(Path.of(CONFIG_FILE).getParent());
+                try (FileWriter writer = new FileWriter(CONFIG_FILE)) {
+                    settings.store(writer, "Tajni ključ za potpisivanje tokena za produženje");
+                }
+                logger.info("Generiran novi ključ za potpisivanje tokena u {}.", CONFIG_FILE);
+            } catch (IOException e) {
+                logger.warn("Ključ za potpisivanje tokena nije spremljen; tokeni neće vrijediti nakon ponovnog pokretanja: {}", e.getMessage());
+            }
+        }
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(new SecretKeySpec(Base64.getDecoder().decode(secret), ALGORITHM));
+            prototype = mac;
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new IllegalStateException("Ključ za potpisivanje tokena nije ispravan.", e);
+        }
+        return prototype;
+    }
 }
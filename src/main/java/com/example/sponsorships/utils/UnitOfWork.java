@@ -0,0 +1,96 @@
+package com.example.sponsorships.utils;
+
+import com.example.sponsorships.entities.Change;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Jedinica rada koja sve izmjene izvršava na jednoj vezi prema bazi unutar jedne transakcije.
+ * <p>
+ * Promjene za dnevnik promjena ({@link Change}) prikupljaju se tijekom rada, a u {@link ChangeManager}
+ * se zapisuju tek nakon uspješne potvrde transakcije. Ako se jedinica rada zatvori bez potvrde,
+ * transakcija se poništava, a prikupljene promjene odbacuju. Svaka potvrda povećava {@link DataVersion}.
+ * </p>
+ */
+public class UnitOfWork implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(UnitOfWork.class);
+
+    private final Connection connection;
+    private final List<Change> pendingChanges = new ArrayList<>();
+    private boolean committed;
+
+    /**
+     * Konstruktor koji otvara transakciju na zadanoj vezi. Ako se transakcija ne može otvoriti, veza se zatvara
+     * jer pozivatelj tada nema jedinicu rada koju bi zatvorio.
+     *
+     * @param connection veza na kojoj se izvršavaju sve izmjene
+     * @throws SQLException ako se auto-commit način rada ne može isključiti
+     */
+    UnitOfWork(Connection connection) throws SQLException {
+        this.connection = connection;
+        try {
+            connection.setAutoCommit(false);
+        } catch (SQLException e) {
+            try {
+                connection.close();
+            } catch (SQLException closeFailure) {
+                e.addSuppressed(closeFailure);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Dohvaća vezu na kojoj se izvršavaju izmjene.
+     *
+     * @return veza prema bazi
+     */
+    public Connection getConnection() {
+        return connection;
+    }
+
+    /**
+     * Bilježi promjenu koja će se zapisati u dnevnik promjena nakon potvrde transakcije.
+     *
+     * @param change promjena za zapis
+     */
+    public void recordChange(Change change) {
+        pendingChanges.add(change);
+    }
+
+    /**
+     * Potvrđuje transakciju i zatim zapisuje sve prikupljene promjene.
+     *
+     * @throws SQLException ako potvrda transakcije ne uspije
+     */
+    public void commit() throws SQLException {
+        connection.commit();
+        committed = true;
+        DataVersion.increment();
+        pendingChanges.forEach(ChangeManager::addNewChange);
+        pendingChanges.clear();
+    }
+
+    /**
+     * Poništava nepotvrđenu transakciju i vraća vezu.
+     *
+     * @throws SQLException ako se veza ne može zatvoriti
+     */
+    @Override
+    public void close() throws SQLException {
+        try {
+            if (!committed) {
+                connection.rollback();
+                logger.warn("Transakcija poništena, odbačeno {} promjena.", pendingChanges.size());
+            }
+        } finally {
+            connection.close();
+        }
+    }
+}
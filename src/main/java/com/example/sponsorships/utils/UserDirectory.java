@@ -0,0 +1,252 @@
+package com.example.sponsorships.utils;
+
+import com.example.sponsorships.records.UserAccount;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Imenik korisnika učitan iz datoteke korisnika u memoriju, s korisničkim imenom kao ključem.
+ * <p>
+ * Datoteka se čita jednom, pri prvom korištenju, pa je dohvat korisnika jedno traženje u tablici raspršenja.
+ * Pozadinska dretva preko {@link WatchService} prati direktorij datoteke i ponovno je učitava kada se datoteka
+ * promijeni na disku, npr. kada je uredi administrator. Ponovno učitani imenik zamjenjuje stari u cijelosti.
+ * Nakon učitavanja i nakon svakog vlastitog upisa pamte se veličina i vrijeme izmjene datoteke, pa se obavijesti
+ * izazvane registracijom u ovoj aplikaciji prepoznaju i datoteka se zbog njih ne čita ponovno.
+ * </p>
+ * <p>
+ * Registracija ({@link #register(UserAccount)}) i ponovno učitavanje izvode se pod istim zaključavanjem, pa se
+ * jedinstvenost korisničkog imena provjerava jednim dohvatom iz imenika, a zapis u datoteku i imenik uvijek ostaju
+ * usklađeni. Dodavanje u datoteku dodatno je zaštićeno zaključavanjem datoteke ({@link FileChannel#lock()}),
+ * kako se ne bi preklopilo s upisom iz drugog procesa.
+ * </p>
+ */
+public class UserDirectory {
+
+    /** Privatni konstruktor da se spriječi instanciranje ove pomoćne klase. */
+    private UserDirectory() {}
+
+    private static final Logger logger = LoggerFactory.getLogger(UserDirectory.class);
+    private static final Path FILE_PATH = Path.of("files/users.txt");
+
+    private static final ReentrantLock writeLock = new ReentrantLock();
+    private static volatile ConcurrentMap<String, UserAccount> users;
+    private static WatchService watchService;
+    private static FileState knownState;
+
+    /**
+     * Dohvaća korisnički račun prema korisničkom imenu.
+     *
+     * @param username korisničko ime
+     * @return račun korisnika, ili prazan {@link Optional} ako korisnik ne postoji
+     */
+    public static Optional<UserAccount> find(String username) {
+        return username == null ? Optional.empty() : Optional.ofNullable(users().get(username));
+    }
+
+    /**
+     * Provjerava postoji li korisnik s zadanim korisničkim imenom.
+     *
+     * @param username korisničko ime
+     * @return {@code true} ako korisnik postoji, inače {@code false}
+     */
+    public static boolean contains(String username) {
+        return users().containsKey(username);
+    }
+
+    /**
+     * Atomarno registrira novi račun: ako korisničko ime nije zauzeto, dodaje račun na kraj datoteke korisnika
+     * i u imenik. Ako zapisivanje u datoteku ne uspije, račun se ne dodaje ni u imenik.
+     *
+     * @param account novi korisnički račun
+     * @return {@code true} ako je račun registriran, {@code false} ako je korisničko ime zauzeto
+     * @throws IOException ako zapisivanje u datoteku ne uspije
+     */
+    public static boolean register(UserAccount account) throws IOException {
+        writeLock.lock();
+        try {
+            ConcurrentMap<String, UserAccount> current = users();
+            if (current.containsKey(account.username())) return false;
+            append(account);
+            current.put(account.username(), account);
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Vraća broj korisnika u imeniku.
+     *
+     * @return broj korisnika
+     */
+    public static int size() {
+        return users().size();
+    }
+
+    /**
+     * Zaustavlja praćenje promjena datoteke korisnika.
+     */
+    public static synchronized void shutdown() {
+        if (watchService == null) return;
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            logger.warn("Pogreška pri zatvaranju praćenja datoteke korisnika: {}", e.getMessage());
+        }
+        watchService = null;
+    }
+
+    private static ConcurrentMap<String, UserAccount> users() {
+        ConcurrentMap<String, UserAccount> current = users;
+        if (current != null) return current;
+        synchronized (UserDirectory.class) {
+            if (users == null) {
+                users = load();
+                startWatching();
+            }
+            return users;
+        }
+    }
+
+    private static ConcurrentMap<String, UserAccount> load() {
+        try {
+            knownState = FileState.of(FILE_PATH);
+            ConcurrentMap<String, UserAccount> loaded = readAccounts(FILE_PATH);
+            logger.info("Učitano {} korisnika iz {}.", loaded.size(), FILE_PATH);
+            return loaded;
+        } catch (IOException e) {
+            logger.error("Pogreška pri čitanju datoteke korisnika: {}", e.getMessage());
+            return new ConcurrentHashMap<>();
+        }
+    }
+
+    /**
+     * Čita sve korisnike iz datoteke korisnika. Nepotpuni retci se preskaču uz upozorenje.
+     *
+     * @param file datoteka korisnika
+     * @return korisnički računi prema korisničkom imenu; prazno ako datoteka ne postoji
+     * @throws IOException ako čitanje datoteke ne uspije
+     */
+    static ConcurrentMap<String, UserAccount> readAccounts(Path file) throws IOException {
+        ConcurrentMap<String, UserAccount> loaded = new ConcurrentHashMap<>();
+        if (!Files.exists(file)) return loaded;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) continue;
+                String[] parts = line.split(",");
+                if (parts.length < 3) {
+                    logger.warn("Nepotpuni podaci u datoteci korisnika u retku {}; redak je preskočen.", lineNumber);
+                    continue;
+                }
+                loaded.putIfAbsent(parts[0], new UserAccount(parts[0], parts[1], Boolean.parseBoolean(parts[2].trim())));
+            }
+        }
+        return loaded;
+    }
+
+    private static void append(UserAccount account) throws IOException {
+        Files.createDirectories(FILE_PATH.toAbsolutePath().getParent());
+        byte[] line = (account.username() + "," + account.passwordHash() + "," + account.admin() + System.lineSeparator())
+                .getBytes(StandardCharsets.UTF_8);
+        try (FileChannel channel = FileChannel.open(FILE_PATH,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+             FileLock ignored = channel.lock()) {
+            // Datoteka koju je upravo stvorio ovaj upis je prazna, a postojeća mora odgovarati zadnjem poznatom stanju.
+            boolean unchanged = knownState == null ? channel.size() == 0 : knownState.equals(FileState.of(FILE_PATH));
+            ByteBuffer buffer = ByteBuffer.wrap(line);
+            while (buffer.hasRemaining()) channel.write(buffer);
+            channel.force(false);
+            if (unchanged) knownState = FileState.of(FILE_PATH);
+        }
+    }
+
+    private static void reload() {
+        writeLock.lock();
+        try {
+            if (Objects.equals(knownState, FileState.of(FILE_PATH))) return;
+            users = load();
+        } catch (IOException e) {
+            logger.warn("Stanje datoteke korisnika nije moguće pročitati, datoteka se učitava ponovno: {}", e.getMessage());
+            users = load();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private static void startWatching() {
+        Path directory = FILE_PATH.toAbsolutePath().getParent();
+        try {
+            Files.createDirectories(directory);
+            watchService = directory.getFileSystem().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            Thread watcher = new Thread(() -> watch(watchService), "user-directory-watcher");
+            watcher.setDaemon(true);
+            watcher.start();
+        } catch (IOException e) {
+            logger.error("Praćenje datoteke korisnika nije pokrenuto; promjene na disku neće se učitati: {}", e.getMessage());
+        }
+    }
+
+    private static void watch(WatchService service) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.context() instanceof Path file && file.equals(FILE_PATH.getFileName())) changed = true;
+                }
+                if (changed) reload();
+                if (!key.reset()) break;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            logger.debug("Praćenje datoteke korisnika je zaustavljeno.");
+        }
+    }
+
+    /**
+     * Veličina i vrijeme izmjene datoteke korisnika u trenutku kada je imenik s njom bio usklađen.
+     *
+     * @param size veličina datoteke u bajtovima
+     * @param modified vrijeme zadnje izmjene datoteke
+     */
+    private record FileState(long size, FileTime modified) {
+
+        private static FileState of(Path file) throws IOException {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                return new FileState(attributes.size(), attributes.lastModifiedTime());
+            } catch (NoSuchFileException e) {
+                return null;
+            }
+        }
+    }
+}
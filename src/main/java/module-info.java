@@ -5,6 +5,7 @@ module com.example.sponsorships {
     requires java.sql;
     requires jakarta.mail;
     requires jdk.httpserver;
+    requires java.management;
 
     opens com.example.sponsorships to javafx.fxml;
     exports com.example.sponsorships.main;
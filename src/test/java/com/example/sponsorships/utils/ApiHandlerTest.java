@@ -0,0 +1,93 @@
+package com.example.sponsorships.utils;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ApiHandlerTest {
+
+    private HttpServer server;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        TestDatabase.useFresh("api");
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/", new ApiHandler());
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+        ConnectionPool.shutdown();
+    }
+
+    @Test
+    void currentTagInIfNoneMatchGivesNotModified() throws IOException {
+        SchemaMigrator.migrate();
+        HttpURLConnection first = get("/api/programs", null);
+        assertEquals(200, first.getResponseCode());
+        String etag = first.getHeaderField("ETag");
+        assertNotNull(etag);
+        assertTrue(body(first).startsWith("{\"items\":["));
+
+        HttpURLConnection repeated = get("/api/programs", etag);
+        assertEquals(304, repeated.getResponseCode());
+        assertEquals(etag, repeated.getHeaderField("ETag"));
+        assertEquals(304, get("/api/sponsors", "W/" + etag).getResponseCode());
+
+        DataVersion.increment();
+        assertEquals(200, get("/api/programs", etag).getResponseCode());
+    }
+
+    @Test
+    void invalidParametersGiveBadRequest() throws IOException {
+        SchemaMigrator.migrate();
+        assertEquals(400, get("/api/programs?limit=0", null).getResponseCode());
+        assertEquals(400, get("/api/programs?limit=501", null).getResponseCode());
+        assertEquals(400, get("/api/sponsors?after=prvi", null).getResponseCode());
+        HttpURLConnection order = get("/api/sponsors?order=sideways", null);
+        assertEquals(400, order.getResponseCode());
+        assertTrue(errorBody(order).contains("order"));
+        assertEquals(404, get("/api/nepostojeci", null).getResponseCode());
+    }
+
+    @Test
+    void databaseFailureGivesServiceUnavailableAndIsNotCached() throws IOException {
+        // Baza bez migracija nema tablice, pa upit ne uspije
+        assertEquals(503, get("/api/programs", null).getResponseCode());
+        assertEquals(503, get("/api/statistics/investments", null).getResponseCode());
+
+        SchemaMigrator.migrate();
+        assertEquals(200, get("/api/programs", null).getResponseCode());
+    }
+
+    private HttpURLConnection get(String path, String ifNoneMatch) throws IOException {
+        URI uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + path);
+        HttpURLConnection connection = (HttpURLConnection) uri.toURL().openConnection();
+        if (ifNoneMatch != null) connection.setRequestProperty("If-None-Match", ifNoneMatch);
+        return connection;
+    }
+
+    private static String body(HttpURLConnection connection) throws IOException {
+        try (InputStream in = connection.getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String errorBody(HttpURLConnection connection) throws IOException {
+        try (InputStream in = connection.getErrorStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.sponsorships.utils;
+
+import com.example.sponsorships.entities.Change;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Uspoređuje veličinu zapisa te brzinu kodiranja i dekodiranja promjena kodekom {@link ChangeCodec} i Java
+ * serijalizacijom liste promjena, kojom je bila zapisana stara datoteka promjena.
+ * Pokreće se samo profilom <code>benchmarks</code> ({@code mvn test -Pbenchmarks}).
+ */
+@Tag("benchmark")
+class ChangeCodecBenchmarkTest {
+
+    private static final int CHANGES = 20_000;
+    private static final int WARMUP_ROUNDS = 10;
+    private static final int ROUNDS = 20;
+    private static final String[] DESCRIPTIONS = {"Dodavanje sponzora", "Brisanje sponzora", "Izmjena sponzora",
+            "Dodavanje programa", "Izmjena programa", "Brisanje programa", "Zahtjev za produženje prihvaćen.",
+            "Extension request denied."};
+
+    @Test
+    void compareWithJavaSerialization() throws Exception {
+        List<Change> changes = sampleChanges();
+
+        byte[] serialized = serialize(changes);
+        List<byte[]> encoded = encode(changes);
+        long encodedBytes = encoded.stream().mapToLong(record -> record.length).sum();
+        assertEquals(changes.get(CHANGES - 1).getNewValue(), decode(encoded).get(CHANGES - 1).getNewValue());
+        assertEquals(CHANGES, deserialize(serialized).size());
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            serialize(changes);
+            deserialize(serialized);
+            decode(encode(changes));
+        }
+        double serializeNanos = 0;
+        double deserializeNanos = 0;
+        double encodeNanos = 0;
+        double decodeNanos = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            serialize(changes);
+            serializeNanos += System.nanoTime() - start;
+            start = System.nanoTime();
+            deserialize(serialized);
+            deserializeNanos += System.nanoTime() - start;
+            start = System.nanoTime();
+            List<byte[]> records = encode(changes);
+            encodeNanos += System.nanoTime() - start;
+            start = System.nanoTime();
+            decode(records);
+            decodeNanos += System.nanoTime() - start;
+        }
+
+        double perRecord = (double) ROUNDS * CHANGES;
+        System.out.printf("%n%-20s %14s %16s %16s%n", "format", "bajtova/zapis", "kodiranje ns", "dekodiranje ns");
+        System.out.printf("%-20s %14.1f %16.0f %16.0f%n", "Java serijalizacija",
+                (double) serialized.length / CHANGES, serializeNanos / perRecord, deserializeNanos / perRecord);
+        System.out.printf("%-20s %14.1f %16.0f %16.0f%n", "ChangeCodec",
+                (double) encodedBytes / CHANGES, encodeNanos / perRecord, decodeNanos / perRecord);
+        assertTrue(encodedBytes < serialized.length);
+    }
+
+    private static List<Change> sampleChanges() {
+        Random random = new Random(42);
+        LocalDateTime time = LocalDateTime.of(2025, 1, 1, 8, 0);
+        List<Change> changes = new ArrayList<>(CHANGES);
+        for (int i = 0; i < CHANGES; i++) {
+            time = time.plusSeconds(random.nextInt(600));
+            changes.add(new Change(DESCRIPTIONS[random.nextInt(DESCRIPTIONS.length)], time, "korisnik" + random.nextInt(50),
+                    "Sponzor " + random.nextInt(5_000), "Sponzor " + random.nextInt(5_000) + " d.o.o."));
+        }
+        return changes;
+    }
+
+    private static byte[] serialize(List<Change> changes) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(new ArrayList<>(changes));
+        }
+        return bytes.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Change> deserialize(byte[] serialized) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+            return (List<Change>) in.readObject();
+        }
+    }
+
+    private static List<byte[]> encode(List<Change> changes) {
+        ChangeCodec codec = new ChangeCodec();
+        List<byte[]> records = new ArrayList<>(changes.size());
+        for (Change change : changes) records.add(codec.encode(change));
+        return records;
+    }
+
+    private static List<Change> decode(List<byte[]> records) throws IOException {
+        ChangeCodec codec = new ChangeCodec();
+        List<Change> changes = new ArrayList<>(records.size());
+        for (byte[] record : records) changes.add(codec.decode(ByteBuffer.wrap(record)));
+        return changes;
+    }
+}
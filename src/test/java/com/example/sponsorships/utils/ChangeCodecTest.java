@@ -0,0 +1,147 @@
+package com.example.sponsorships.utils;
+
+import com.example.sponsorships.entities.Change;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeCodecTest {
+
+    private static final int JOURNAL_MAGIC = 0x434A524E;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTripPreservesAllFieldsAndNulls() throws IOException {
+        ChangeCodec encoder = new ChangeCodec();
+        ChangeCodec decoder = new ChangeCodec();
+        List<Change> changes = List.of(
+                new Change("Dodavanje sponzora", LocalDateTime.of(2025, 3, 1, 12, 30, 15, 123_000_000), "ana", "", "Čokolada d.o.o."),
+                new Change(null, null, null, null, null),
+                new Change("Izmjena", LocalDateTime.of(1965, 7, 4, 8, 0), "ana", "stari \"naziv\"", "novi\nnaziv"));
+        for (Change change : changes) {
+            assertSameChange(change, decoder.decode(ByteBuffer.wrap(encoder.encode(change))));
+        }
+    }
+
+    @Test
+    void timestampIsStoredWithMillisecondPrecision() throws IOException {
+        ChangeCodec codec = new ChangeCodec();
+        LocalDateTime time = LocalDateTime.of(2025, 3, 1, 12, 30, 15, 123_456_789);
+        Change decoded = new ChangeCodec().decode(ByteBuffer.wrap(codec.encode(new Change("Opis", time, "ana", null, null))));
+        assertEquals(LocalDateTime.of(2025, 3, 1, 12, 30, 15, 123_000_000), decoded.getTimestamp());
+    }
+
+    @Test
+    void repeatedDescriptionAndUserAreWrittenAsDictionaryEntries() {
+        ChangeCodec codec = new ChangeCodec();
+        Change change = new Change("Dodavanje programa za ljetni kamp", LocalDateTime.of(2025, 3, 1, 12, 0), "administrator", null, null);
+        int first = codec.encode(change).length;
+        int repeated = codec.encode(change).length;
+        assertTrue(repeated < first - 40, "ponovljeni zapis ima " + repeated + " bajtova, prvi " + first);
+        assertEquals(List.of("Dodavanje programa za ljetni kamp", "administrator"), codec.dictionary());
+    }
+
+    @Test
+    void fullDictionaryDecodesRecordsInAnyOrder() throws IOException {
+        ChangeCodec encoder = new ChangeCodec();
+        byte[] first = encoder.encode(new Change("Brisanje", LocalDateTime.of(2025, 1, 1, 0, 0), "ana", "a", null));
+        byte[] second = encoder.encode(new Change("Brisanje", LocalDateTime.of(2025, 1, 2, 0, 0), "marko", "b", null));
+        byte[] third = encoder.encode(new Change("Brisanje", LocalDateTime.of(2025, 1, 3, 0, 0), "marko", "c", null));
+
+        ChangeCodec reader = new ChangeCodec(encoder.dictionary());
+        assertEquals("c", reader.decode(ByteBuffer.wrap(third)).getOldValue());
+        assertEquals("marko", reader.decode(ByteBuffer.wrap(second)).getUser());
+        assertEquals("ana", reader.decode(ByteBuffer.wrap(first)).getUser());
+        assertEquals(encoder.dictionary(), reader.dictionary());
+    }
+
+    @Test
+    void resetForgetsEntriesOfUnwrittenRecords() {
+        ChangeCodec codec = new ChangeCodec();
+        Change change = new Change("Opis", LocalDateTime.of(2025, 1, 1, 0, 0), "ana", null, null);
+        int mark = codec.mark();
+        byte[] discarded = codec.encode(change);
+        codec.reset(mark);
+        assertTrue(codec.dictionary().isEmpty());
+        assertArrayEquals(discarded, codec.encode(change));
+    }
+
+    @Test
+    void unknownDictionaryEntryIsRejected() {
+        ChangeCodec encoder = new ChangeCodec();
+        Change change = new Change("Opis", LocalDateTime.of(2025, 1, 1, 0, 0), "ana", null, null);
+        encoder.encode(change);
+        byte[] reference = encoder.encode(change);
+        assertThrows(IOException.class, () -> new ChangeCodec().decode(ByteBuffer.wrap(reference)));
+        assertThrows(IOException.class, () -> new ChangeCodec().decode(ByteBuffer.wrap(new byte[]{0, (byte) 0x80})));
+    }
+
+    @Test
+    void firstVersionJournalIsRewrittenToCurrentVersion() throws IOException {
+        Path path = directory.resolve("legacy.journal");
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(file);
+        out.writeInt(JOURNAL_MAGIC);
+        out.writeByte(1);
+        writeV1Record(out, "2024-05-06T07:08:09", "Dodavanje sponzora", "ana", null, "Čokolada d.o.o.");
+        writeV1Record(out, null, "Brisanje sponzora", "ana", "Čokolada d.o.o.", null);
+        Files.write(path, file.toByteArray());
+
+        try (ChangeJournal journal = ChangeJournal.open(path)) {
+            List<Change> changes = journal.readAll();
+            assertEquals(2, changes.size());
+            assertSameChange(new Change("Dodavanje sponzora", LocalDateTime.of(2024, 5, 6, 7, 8, 9), "ana", null, "Čokolada d.o.o."), changes.get(0));
+            assertSameChange(new Change("Brisanje sponzora", null, "ana", "Čokolada d.o.o.", null), changes.get(1));
+        }
+        assertEquals(ChangeCodec.FORMAT_VERSION, Files.readAllBytes(path)[Integer.BYTES]);
+    }
+
+    @Test
+    void unsupportedJournalVersionIsRejected() throws IOException {
+        Path path = directory.resolve("future.journal");
+        Files.write(path, ByteBuffer.allocate(5).putInt(JOURNAL_MAGIC).put((byte) 9).array());
+        assertThrows(IOException.class, () -> ChangeJournal.open(path));
+        assertThrows(IOException.class, () -> ChangeJournal.decodeAll(ByteBuffer.wrap(Files.readAllBytes(path))));
+    }
+
+    private static void writeV1Record(DataOutputStream out, String... values) throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        DataOutputStream fields = new DataOutputStream(payload);
+        for (String value : values) {
+            if (value == null) {
+                fields.writeInt(-1);
+                continue;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            fields.writeInt(bytes.length);
+            fields.write(bytes);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload.toByteArray());
+        out.writeInt(payload.size());
+        out.writeInt((int) crc.getValue());
+        out.write(payload.toByteArray());
+    }
+
+    private static void assertSameChange(Change expected, Change actual) {
+        assertEquals(expected.getDescription(), actual.getDescription());
+        assertEquals(expected.getTimestamp(), actual.getTimestamp());
+        assertEquals(expected.getUser(), actual.getUser());
+        assertEquals(expected.getOldValue(), actual.getOldValue());
+        assertEquals(expected.getNewValue(), actual.getNewValue());
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.sponsorships.utils;
+
+import com.example.sponsorships.entities.Change;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeJournalTest {
+
+    private static final LocalDateTime TIME = LocalDateTime.of(2025, 3, 1, 12, 0);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void truncatedTailRecordIsCutOffOnOpen() throws IOException {
+        Path path = directory.resolve("changes.journal");
+        long sizeBeforeLast = writeThreeChanges(path);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            // Prekid pri pisanju zadnjeg zapisa: na disku je samo dio zapisa
+            channel.truncate(channel.size() - 3);
+        }
+
+        assertRecoveredTwoAndAppendable(path, sizeBeforeLast);
+    }
+
+    @Test
+    void tailRecordWithWrongChecksumIsCutOffOnOpen() throws IOException {
+        Path path = directory.resolve("changes.journal");
+        long sizeBeforeLast = writeThreeChanges(path);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer lastByte = ByteBuffer.allocate(1);
+            channel.read(lastByte, channel.size() - 1);
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) (lastByte.get(0) ^ 0xFF)}), channel.size() - 1);
+        }
+
+        assertRecoveredTwoAndAppendable(path, sizeBeforeLast);
+    }
+
+    @Test
+    void recordLargerThanMaximumIsRejectedWithoutWriting() throws IOException {
+        Path path = directory.resolve("changes.journal");
+        try (ChangeJournal journal = ChangeJournal.open(path)) {
+            journal.append(change("Prva", "ana"));
+            long size = journal.size();
+            Change oversized = new Change("Velika", TIME, "novi", "x".repeat(17 * 1024 * 1024), null);
+            assertThrows(IOException.class, () -> journal.appendAll(List.of(change("Druga", "ana"), oversized)));
+            assertEquals(size, journal.size());
+            // Rječnik je vraćen, pa se "novi" nakon ponovnog otvaranja ispravno dekodira
+            journal.append(change("Treća", "novi"));
+        }
+        try (ChangeJournal journal = ChangeJournal.open(path)) {
+            List<Change> changes = journal.readAll();
+            assertEquals(List.of("Prva", "Treća"), changes.stream().map(Change::getDescription).toList());
+            assertEquals("novi", changes.get(1).getUser());
+        }
+    }
+
+    @Test
+    void readRangeMatchesReadAllAcrossBlocks() throws IOException {
+        Path path = directory.resolve("changes.journal");
+        try (ChangeJournal journal = ChangeJournal.open(path)) {
+            for (int i = 0; i < 150; i++) journal.append(change("Promjena " + i, "korisnik" + i % 7));
+        }
+        try (ChangeJournal journal = ChangeJournal.open(path)) {
+            journal.append(change("Nakon otvaranja", "ana"));
+            List<Change> all = journal.readAll();
+            for (int first : new int[]{0, 5, 63, 64, 130, 150}) {
+                List<Change> range = journal.readRange(first, 20);
+                List<Change> expected = all.subList(first, Math.min(first + 20, all.size()));
+                assertEquals(expected.stream().map(Change::getDescription).toList(),
+                        range.stream().map(Change::getDescription).toList());
+                assertEquals(expected.stream().map(Change::getUser).toList(),
+                        range.stream().map(Change::getUser).toList());
+            }
+            assertTrue(journal.readRange(all.size(), 10).isEmpty());
+        }
+    }
+
+    private static long writeThreeChanges(Path path) throws IOException {
+        try (ChangeJournal journal = ChangeJournal.open(path)) {
+            journal.append(change("Dodavanje sponzora", "ana"));
+            journal.append(change("Brisanje sponzora", "ana"));
+            long sizeBeforeLast = journal.size();
+            journal.append(change("Dodavanje programa", "marko"));
+            return sizeBeforeLast;
+        }
+    }
+
+    private static void assertRecoveredTwoAndAppendable(Path path, long sizeBeforeLast) throws IOException {
+        try (ChangeJournal journal = ChangeJournal.open(path)) {
+            assertEquals(2, journal.getRecordCount());
+            assertEquals(sizeBeforeLast, journal.size());
+            assertEquals(sizeBeforeLast, Files.size(path));
+            journal.append(change("Izmjena programa", "marko"));
+        }
+        try (ChangeJournal journal = ChangeJournal.open(path)) {
+            List<Change> changes = journal.readAll();
+            assertEquals(List.of("Dodavanje sponzora", "Brisanje sponzora", "Izmjena programa"),
+                    changes.stream().map(Change::getDescription).toList());
+            assertEquals("marko", changes.get(2).getUser());
+        }
+    }
+
+    private static Change change(String description, String user) {
+        return new Change(description, TIME, user, "staro", "novo");
+    }
+}
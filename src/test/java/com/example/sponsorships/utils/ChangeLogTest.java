@@ -0,0 +1,130 @@
+package com.example.sponsorships.utils;
+
+import com.example.sponsorships.entities.Change;
+import com.example.sponsorships.records.ChangeQuery;
+import com.example.sponsorships.records.ChangeSegment;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeLogTest {
+
+    private static final LocalDateTime TIME = LocalDateTime.now().withNano(0);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void fullSegmentIsSealedAndLogIsReadInOrderAcrossSegments() throws IOException {
+        List<String> written = new ArrayList<>();
+        try (ChangeLog log = ChangeLog.open(directory, settings(false))) {
+            appendBatches(log, 20, TIME, written);
+            List<ChangeSegment> segments = log.getSegments();
+            assertTrue(segments.size() > 2, "očekivano više segmenata, a ima ih " + segments.size());
+            for (int i = 0; i < segments.size(); i++) {
+                assertEquals(i < segments.size() - 1, segments.get(i).sealed());
+            }
+            assertEquals(written.size(), segments.stream().mapToLong(ChangeSegment::recordCount).sum());
+            assertEquals(written, descriptions(log.readAll()));
+        }
+    }
+
+    @Test
+    void manifestDescribesSegmentsAfterReopen() throws IOException {
+        List<String> written = new ArrayList<>();
+        List<ChangeSegment> before;
+        try (ChangeLog log = ChangeLog.open(directory, settings(true))) {
+            appendBatches(log, 20, TIME, written);
+            before = log.getSegments();
+        }
+        assertTrue(Files.readAllLines(directory.resolve("manifest")).get(0).startsWith("# sequence;file;created;min;max"));
+
+        try (ChangeLog log = ChangeLog.open(directory, settings(true))) {
+            List<ChangeSegment> after = log.getSegments();
+            assertEquals(before.size(), after.size());
+            for (int i = 0; i < before.size(); i++) {
+                assertEquals(before.get(i).sequence(), after.get(i).sequence());
+                assertEquals(before.get(i).recordCount(), after.get(i).recordCount());
+                assertEquals(before.get(i).minTimestamp(), after.get(i).minTimestamp());
+                assertEquals(before.get(i).maxTimestamp(), after.get(i).maxTimestamp());
+                assertEquals(before.get(i).sealed(), after.get(i).sealed());
+                assertEquals(before.get(i).sealed(), after.get(i).compressed());
+            }
+            assertEquals(written, descriptions(log.readAll()));
+            assertEquals(written.size(), log.query(ChangeQuery.all()).size());
+        }
+    }
+
+    @Test
+    void segmentsMissingFromStaleManifestAreRecovered() throws IOException {
+        List<String> written = new ArrayList<>();
+        Path staleManifest = directory.resolveSibling(directory.getFileName() + ".manifest");
+        try (ChangeLog log = ChangeLog.open(directory, settings(false))) {
+            appendBatches(log, 3, TIME, written);
+            Files.copy(directory.resolve("manifest"), staleManifest);
+            appendBatches(log, 20, TIME, written);
+        }
+        // Manifest koji nije stigao zabilježiti kasnije zatvorene segmente
+        Files.move(staleManifest, directory.resolve("manifest"), StandardCopyOption.REPLACE_EXISTING);
+
+        try (ChangeLog log = ChangeLog.open(directory, settings(false))) {
+            assertEquals(written, descriptions(log.readAll()));
+            log.appendAll(List.of(new Change("Nakon oporavka", TIME, "ana", null, null)));
+            written.add("Nakon oporavka");
+        }
+        try (ChangeLog log = ChangeLog.open(directory, settings(false))) {
+            assertEquals(written, descriptions(log.readAll()));
+        }
+    }
+
+    @Test
+    void segmentsOlderThanRetentionAreDeletedOnRotation() throws IOException {
+        List<String> expired = new ArrayList<>();
+        List<String> kept = new ArrayList<>();
+        try (ChangeLog log = ChangeLog.open(directory, settings(false))) {
+            appendBatches(log, 3, LocalDateTime.now().minusYears(3), expired);
+            String expiredFile = log.getSegments().get(0).fileName();
+            appendBatches(log, 6, LocalDateTime.now(), kept);
+
+            assertFalse(Files.exists(directory.resolve(expiredFile)));
+            List<String> remaining = descriptions(log.readAll());
+            assertTrue(remaining.containsAll(kept));
+            assertTrue(remaining.size() < expired.size() + kept.size());
+            assertTrue(log.getSegments().stream().noneMatch(s -> s.fileName().equals(expiredFile)));
+        }
+    }
+
+    private static Properties settings(boolean compress) {
+        Properties settings = new Properties();
+        settings.setProperty("log.segmentMaxBytes", "600");
+        settings.setProperty("log.retentionMonths", "12");
+        settings.setProperty("log.compressSealed", String.valueOf(compress));
+        return settings;
+    }
+
+    private static void appendBatches(ChangeLog log, int batches, LocalDateTime time, List<String> written) throws IOException {
+        for (int b = 0; b < batches; b++) {
+            List<Change> batch = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                String description = "Promjena " + written.size() + " " + time.getYear();
+                batch.add(new Change(description, time.plusMinutes(written.size()), "korisnik" + i, "staro " + i, "novo " + i));
+                written.add(description);
+            }
+            log.appendAll(batch);
+        }
+    }
+
+    private static List<String> descriptions(List<Change> changes) {
+        return changes.stream().map(Change::getDescription).toList();
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.sponsorships.utils;
+
+import com.example.sponsorships.records.UserAccount;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatabaseUserStoreTest {
+
+    private final DatabaseUserStore store = new DatabaseUserStore();
+
+    @BeforeEach
+    void freshDatabase() {
+        TestDatabase.useFresh("users");
+    }
+
+    @AfterEach
+    void closePool() {
+        ConnectionPool.shutdown();
+    }
+
+    @Test
+    void unknownUserIsNotFound() throws IOException {
+        SchemaMigrator.migrate();
+        assertTrue(store.register(new UserAccount("ana", "hash", false)));
+        assertFalse(store.register(new UserAccount("ana", "other", true)));
+        assertEquals(Optional.of(new UserAccount("ana", "hash", false)), store.find("ana"));
+        assertEquals(Optional.empty(), store.find("marko"));
+    }
+
+    @Test
+    void missingUsersTableIsReportedAsStoreError() {
+        // Baza bez migracija nema tablicu Users
+        assertThrows(IOException.class, () -> store.find("ana"));
+        assertThrows(IOException.class, () -> store.register(new UserAccount("ana", "hash", false)));
+    }
+}
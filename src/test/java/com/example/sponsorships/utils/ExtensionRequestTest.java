@@ -0,0 +1,87 @@
+package com.example.sponsorships.utils;
+
+import com.example.sponsorships.enums.EXTENSION_OUTCOME;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExtensionRequestTest {
+
+    private static final int THREADS = 8;
+
+    @BeforeEach
+    void freshDatabase() throws Exception {
+        TestDatabase.useFresh("extensions");
+        SchemaMigrator.migrate();
+        try (Connection conn = DatabaseUtils.connectToDatabase(); Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+                    INSERT INTO Programs (id, name, sponsor_id, daily_amount, start_date, end_date)
+                    VALUES (1, 'Kamp', 1, 10, DATE '2025-01-01', DATE '2025-02-01')""");
+        }
+    }
+
+    @AfterEach
+    void closePool() {
+        ConnectionPool.shutdown();
+    }
+
+    @Test
+    void repeatedAcceptExtendsEndDateOnce() throws Exception {
+        String token = DatabaseUtils.requestProgramExtension(1L, 10, id -> "token-" + id);
+        assertNotNull(token);
+
+        assertEquals(EXTENSION_OUTCOME.APPLIED, DatabaseUtils.acceptExtensionRequest(token, "ana"));
+        assertEquals(EXTENSION_OUTCOME.ALREADY_PROCESSED, DatabaseUtils.acceptExtensionRequest(token, "ana"));
+        assertEquals(EXTENSION_OUTCOME.ALREADY_PROCESSED, DatabaseUtils.denyExtensionRequest(token));
+        assertEquals(LocalDate.of(2025, 2, 11), endDate());
+    }
+
+    @Test
+    void concurrentAcceptsExtendEndDateOnce() throws Exception {
+        String token = DatabaseUtils.requestProgramExtension(1L, 10, id -> "token-" + id);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Callable<EXTENSION_OUTCOME>> tasks = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            tasks.add(() -> {
+                start.await();
+                return DatabaseUtils.acceptExtensionRequest(token, "ana");
+            });
+        }
+
+        List<EXTENSION_OUTCOME> outcomes = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<EXTENSION_OUTCOME>> results = new ArrayList<>();
+            for (Callable<EXTENSION_OUTCOME> task : tasks) results.add(executor.submit(task));
+            start.countDown();
+            for (Future<EXTENSION_OUTCOME> result : results) outcomes.add(result.get());
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(1, outcomes.stream().filter(o -> o == EXTENSION_OUTCOME.APPLIED).count(), outcomes.toString());
+        assertEquals(LocalDate.of(2025, 2, 11), endDate());
+    }
+
+    private static LocalDate endDate() throws Exception {
+        try (Connection conn = DatabaseUtils.connectToDatabase(); Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT end_date FROM Programs WHERE id = 1")) {
+            rs.next();
+            return rs.getDate(1).toLocalDate();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.sponsorships.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Lokalni test opterećenja adrese <code>/extension-response</code>: istodobni klijenti šalju prihvaćanja zahtjeva za
+ * produženje, ponovljene klikove i krivotvorene tokene, a mjere se zahtjevi u sekundi i latencije (p50, p99).
+ * Pokreće se samo profilom <code>benchmarks</code> ({@code mvn test -Pbenchmarks}).
+ */
+@Tag("benchmark")
+class ExtensionResponseLoadTest {
+
+    private static final int REQUESTS = 2_000;
+    private static final int CLIENTS = 32;
+    private static final LocalDate END_DATE = LocalDate.of(2025, 2, 1);
+
+    @BeforeEach
+    void startServer() throws Exception {
+        TestDatabase.useFresh("extensionLoad");
+        SchemaMigrator.migrate();
+        try (Connection conn = DatabaseUtils.connectToDatabase(); Statement stmt = conn.createStatement()) {
+            stmt.execute("INSERT INTO Programs (id, name, sponsor_id, daily_amount, start_date, end_date) "
+                    + "VALUES (1, 'Kamp', 1, 10, DATE '2025-01-01', DATE '" + END_DATE + "')");
+        }
+        Files.createDirectories(Path.of("conf"));
+        Files.writeString(Path.of("conf/server.properties"), """
+                server.port=0
+                server.admin.port=0
+                server.backlog=256
+                """);
+        ExtensionServer.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        ExtensionServer.stop();
+        ConnectionPool.shutdown();
+    }
+
+    @Test
+    void extensionResponsesUnderConcurrentLoad() throws Exception {
+        List<String> urls = new ArrayList<>(3 * REQUESTS);
+        for (int i = 0; i < REQUESTS; i++) {
+            String token = DatabaseUtils.requestProgramExtension(1L, 1,
+                    requestId -> TokenGenerator.generateExtensionToken(1, requestId, 1));
+            assertNotNull(token);
+            // Svaki zahtjev se prihvaća dvaput (ponovljeni klik), a uz njega stiže i krivotvoreni token
+            urls.add(url("accept", token));
+            urls.add(url("accept", token));
+            urls.add(url("accept", token.substring(0, token.indexOf('.')) + ".AAAA" + token.substring(token.indexOf('.') + 5)));
+        }
+        Collections.shuffle(urls, new Random(42));
+        for (int i = 0; i < 200; i++) send(url("accept", "nije.token"));
+
+        AtomicInteger next = new AtomicInteger();
+        AtomicLongArray latencies = new AtomicLongArray(urls.size());
+        Map<Integer, AtomicInteger> statuses = new ConcurrentHashMap<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        long elapsed;
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int c = 0; c < CLIENTS; c++) {
+                results.add(clients.submit(() -> {
+                    start.await();
+                    int i;
+                    while ((i = next.getAndIncrement()) < urls.size()) {
+                        long begin = System.nanoTime();
+                        int status = send(urls.get(i));
+                        latencies.set(i, System.nanoTime() - begin);
+                        statuses.computeIfAbsent(status, s -> new AtomicInteger()).incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> result : results) result.get();
+            elapsed = System.nanoTime() - begin;
+        } finally {
+            clients.shutdown();
+        }
+
+        long[] sorted = new long[urls.size()];
+        for (int i = 0; i < sorted.length; i++) sorted[i] = latencies.get(i);
+        Arrays.sort(sorted);
+        System.out.printf("%n/extension-response: %d zahtjeva, %d klijenata%n", urls.size(), CLIENTS);
+        System.out.printf("zahtjeva/s %.0f, p50 %.2f ms, p99 %.2f ms, najviše %.2f ms, statusi %s%n",
+                urls.size() / (elapsed / 1e9), percentile(sorted, 0.50) / 1e6, percentile(sorted, 0.99) / 1e6,
+                sorted[sorted.length - 1] / 1e6, statuses);
+
+        assertEquals(2 * REQUESTS, statuses.get(200).get());
+        assertEquals(REQUESTS, statuses.get(403).get());
+        // Ponovljeni klikovi ne produžuju program drugi put
+        assertEquals(END_DATE.plusDays(REQUESTS), endDate());
+    }
+
+    private static String url(String action, String token) {
+        return "http://127.0.0.1:" + ExtensionServer.getPort() + "/extension-response?action=" + action
+                + "&token=" + URLEncoder.encode(token, StandardCharsets.UTF_8);
+    }
+
+    private static int send(String url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) URI.create(url).toURL().openConnection();
+        int status = connection.getResponseCode();
+        try (InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            if (body != null) body.readAllBytes();
+        }
+        return status;
+    }
+
+    private static long percentile(long[] sorted, double fraction) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(fraction * sorted.length) - 1)];
+    }
+
+    private static LocalDate endDate() throws Exception {
+        try (Connection conn = DatabaseUtils.connectToDatabase(); Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT end_date FROM Programs WHERE id = 1")) {
+            rs.next();
+            return rs.getDate(1).toLocalDate();
+        }
+    }
+}
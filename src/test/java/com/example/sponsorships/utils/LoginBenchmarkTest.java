@@ -0,0 +1,120 @@
+package com.example.sponsorships.utils;
+
+import com.example.sponsorships.records.UserAccount;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Mjeri prijavu (dohvat korisnika i provjeru sažetka lozinke) uz 100 000 korisnika, iz indeksa datoteke korisnika
+ * ({@link UserDirectory}) i iz baze ({@link DatabaseUserStore}), te za usporedbu linearnim pretraživanjem datoteke.
+ * Pokreće se samo profilom <code>benchmarks</code> ({@code mvn test -Pbenchmarks}).
+ */
+@Tag("benchmark")
+class LoginBenchmarkTest {
+
+    private static final int USERS = 100_000;
+    private static final int LOGINS = 20_000;
+    private static final int SCAN_LOGINS = 50;
+
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    void closePool() {
+        ConnectionPool.shutdown();
+    }
+
+    @Test
+    void loginWith100kUsers() throws Exception {
+        Path file = directory.resolve("users.txt");
+        List<UserAccount> accounts = accounts();
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (UserAccount account : accounts) {
+                writer.write(account.username() + "," + account.passwordHash() + "," + account.admin());
+                writer.newLine();
+            }
+        }
+
+        long start = System.nanoTime();
+        Map<String, UserAccount> index = UserDirectory.readAccounts(file);
+        double indexLoadMillis = (System.nanoTime() - start) / 1e6;
+        assertEquals(USERS, index.size());
+        double indexNanos = timeLogins(LOGINS, username -> Optional.ofNullable(index.get(username)));
+
+        TestDatabase.useFresh("login");
+        SchemaMigrator.migrate();
+        start = System.nanoTime();
+        assertEquals(USERS, DatabaseUtils.importUserAccounts(accounts));
+        double importMillis = (System.nanoTime() - start) / 1e6;
+        DatabaseUserStore store = new DatabaseUserStore();
+        double databaseNanos = timeLogins(LOGINS, store::find);
+
+        double scanNanos = timeLogins(SCAN_LOGINS, username -> scan(file, username));
+
+        System.out.printf("%n%-28s %14s %14s%n", "prijava uz " + USERS + " korisnika", "µs/prijava", "učitavanje ms");
+        System.out.printf("%-28s %14.1f %14.1f%n", "indeks datoteke", indexNanos / 1_000, indexLoadMillis);
+        System.out.printf("%-28s %14.1f %14.1f%n", "baza (H2)", databaseNanos / 1_000, importMillis);
+        System.out.printf("%-28s %14.1f %14s%n", "linearno čitanje datoteke", scanNanos / 1_000, "-");
+    }
+
+    /**
+     * Mjeri prosječno trajanje prijave nasumičnih korisnika, nakon zagrijavanja istim brojem prijava.
+     *
+     * @return prosječno trajanje jedne prijave u nanosekundama
+     */
+    private static double timeLogins(int logins, Lookup lookup) throws Exception {
+        Random random = new Random(42);
+        for (int i = 0; i < logins; i++) login(lookup, random.nextInt(USERS));
+        long start = System.nanoTime();
+        for (int i = 0; i < logins; i++) login(lookup, random.nextInt(USERS));
+        return (double) (System.nanoTime() - start) / logins;
+    }
+
+    private static void login(Lookup lookup, int user) throws Exception {
+        UserAccount account = lookup.find("korisnik" + user).orElseThrow();
+        assertEquals(account.passwordHash(), FileUtils.hashPassword("lozinka" + user));
+    }
+
+    /**
+     * Pronalazi korisnika čitanjem datoteke redak po redak, kako je prijava radila prije indeksa korisnika.
+     */
+    private static Optional<UserAccount> scan(Path file, String username) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(",");
+                if (parts[0].equals(username)) return Optional.of(new UserAccount(parts[0], parts[1], Boolean.parseBoolean(parts[2])));
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static List<UserAccount> accounts() {
+        List<UserAccount> accounts = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            accounts.add(new UserAccount("korisnik" + i, FileUtils.hashPassword("lozinka" + i), i % 1_000 == 0));
+        }
+        return accounts;
+    }
+
+    @FunctionalInterface
+    private interface Lookup {
+        Optional<UserAccount> find(String username) throws Exception;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.sponsorships.utils;
+
+import com.example.sponsorships.entities.Program;
+import com.example.sponsorships.entities.Sponsor;
+import com.example.sponsorships.enums.SORT_ORDER;
+import com.example.sponsorships.records.Page;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Mjeri trajanje učitavanja svih programa sa sponzorima pri 1 000, 10 000 i 100 000 programa.
+ * Pokreće se samo profilom <code>benchmarks</code> ({@code mvn test -Pbenchmarks}).
+ */
+@Tag("benchmark")
+class ProgramLoadBenchmarkTest {
+
+    private static final int[] PROGRAM_COUNTS = {1_000, 10_000, 100_000};
+    private static final int SPONSORS = 500;
+    private static final int PAGE_SIZE = 500;
+    private static final int ROUNDS = 5;
+
+    @AfterEach
+    void closePool() {
+        ConnectionPool.shutdown();
+    }
+
+    @Test
+    void loadAllProgramsWithSponsors() throws Exception {
+        System.out.printf("%n%10s %16s %16s %16s%n", "programa", "loadPrograms ms", "stream ms", "stranice ms");
+        for (int programs : PROGRAM_COUNTS) {
+            TestDatabase.useFresh("programs" + programs);
+            SchemaMigrator.migrate();
+            populate(programs);
+
+            double load = medianMillis(() -> DatabaseUtils.loadPrograms().size(), programs);
+            double stream = medianMillis(() -> {
+                try (Stream<Program> rows = DatabaseUtils.streamPrograms()) {
+                    return rows.count();
+                }
+            }, programs);
+            double pages = medianMillis(() -> {
+                long count = 0;
+                Long after = null;
+                do {
+                    Page<Program> page = DatabaseUtils.queryProgramsPage(after, PAGE_SIZE, SORT_ORDER.ASCENDING);
+                    count += page.items().size();
+                    after = page.nextKey();
+                } while (after != null);
+                return count;
+            }, programs);
+            System.out.printf("%10d %16.1f %16.1f %16.1f%n", programs, load, stream, pages);
+
+            List<Program> loaded = DatabaseUtils.loadPrograms();
+            // Programi istog sponzora dijele jedan objekt sponzora
+            Map<Long, Sponsor> sponsors = new HashMap<>();
+            for (Program program : loaded) {
+                assertSame(sponsors.computeIfAbsent(program.getSponsor().getId(), id -> program.getSponsor()), program.getSponsor());
+            }
+            assertEquals(SPONSORS, sponsors.size());
+            ConnectionPool.shutdown();
+        }
+    }
+
+    private static double medianMillis(CheckedCount work, int expected) throws Exception {
+        assertEquals(expected, work.count());
+        double[] millis = new double[ROUNDS];
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            long count = work.count();
+            millis[i] = (System.nanoTime() - start) / 1e6;
+            assertEquals(expected, count);
+        }
+        Arrays.sort(millis);
+        return millis[ROUNDS / 2];
+    }
+
+    private static void populate(int programs) throws Exception {
+        try (Connection conn = DatabaseUtils.connectToDatabase(); Statement stmt = conn.createStatement()) {
+            stmt.execute("INSERT INTO Addresses (id, street_name, house_number, city) "
+                    + "SELECT X, 'Ulica ' || X, CAST(X AS VARCHAR), 'Zagreb' FROM SYSTEM_RANGE(1, " + 2 * SPONSORS + ")");
+            stmt.execute("INSERT INTO Persons (id, first_name, last_name, date_of_birth, address_id) "
+                    + "SELECT X, 'Ime' || X, 'Prezime' || X, DATE '1980-01-01', " + SPONSORS + " + X FROM SYSTEM_RANGE(1, " + SPONSORS + ")");
+            stmt.execute("INSERT INTO Sponsors (id, name, email, address_id, contact_person_id) "
+                    + "SELECT X, 'Sponzor ' || X, 'sponzor' || X || '@example.com', X, X FROM SYSTEM_RANGE(1, " + SPONSORS + ")");
+            stmt.execute("INSERT INTO Programs (id, name, sponsor_id, daily_amount, description, start_date, end_date) "
+                    + "SELECT X, 'Program ' || X, MOD(X - 1, " + SPONSORS + ") + 1, 10, 'Opis programa ' || X, "
+                    + "DATE '2025-01-01', DATE '2025-12-31' FROM SYSTEM_RANGE(1, " + programs + ")");
+        }
+    }
+
+    @FunctionalInterface
+    private interface CheckedCount {
+        long count() throws Exception;
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.sponsorships.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchemaMigratorTest {
+
+    private static final int LATEST_VERSION = 3;
+
+    @BeforeEach
+    void freshDatabase() {
+        TestDatabase.useFresh("migrator");
+    }
+
+    @AfterEach
+    void closePool() {
+        ConnectionPool.shutdown();
+    }
+
+    @Test
+    void migratesEmptyDatabaseToLatestVersionAndIsRepeatable() {
+        assertEquals(LATEST_VERSION, SchemaMigrator.migrate());
+        assertEquals(LATEST_VERSION, SchemaMigrator.migrate());
+    }
+
+    @Test
+    void frequentLookupsUseIndexes() throws Exception {
+        SchemaMigrator.migrate();
+        assertPlanUses("SELECT * FROM Programs WHERE sponsor_id = 1", "IDX_PROGRAMS_SPONSOR_ID");
+        assertPlanUses("SELECT * FROM ProgramExtensionRequests WHERE token = 'x'", "IDX_EXTENSION_REQUESTS_TOKEN");
+        assertPlanUses("SELECT * FROM ProgramExtensionRequests WHERE program_id = 1", "IDX_EXTENSION_REQUESTS_PROGRAM_ID");
+        assertPlanUses("SELECT * FROM Sponsors WHERE contact_person_id = 1", "IDX_SPONSORS_CONTACT_PERSON_ID");
+        assertPlanUses("SELECT * FROM Sponsors WHERE address_id = 1", "IDX_SPONSORS_ADDRESS_ID");
+        assertPlanUses("SELECT 1 FROM Programs WHERE name = 'x'", "UQ_PROGRAMS_NAME");
+        assertPlanUses("SELECT 1 FROM Users WHERE username = 'x'", "UQ_USERS_USERNAME");
+    }
+
+    @Test
+    void duplicateProgramNamesAreRenamedBeforeUniqueConstraint() throws Exception {
+        SchemaMigrator.migrate();
+        try (Connection conn = DatabaseUtils.connectToDatabase(); Statement stmt = conn.createStatement()) {
+            // Baza kakva je bila prije V2: bez jedinstvenog naziva programa i s ponovljenim nazivima
+            stmt.execute("ALTER TABLE Programs DROP CONSTRAINT uq_programs_name");
+            stmt.execute("DELETE FROM schema_version WHERE version > 1");
+            stmt.execute("""
+                    INSERT INTO Programs (id, name, sponsor_id, daily_amount, start_date, end_date) VALUES
+                        (1, 'Kamp', 1, 10, DATE '2025-01-01', DATE '2025-02-01'),
+                        (2, 'Kamp', 1, 10, DATE '2025-01-01', DATE '2025-02-01'),
+                        (3, 'Škola', 1, 10, DATE '2025-01-01', DATE '2025-02-01'),
+                        (4, 'Kamp', 1, 10, DATE '2025-01-01', DATE '2025-02-01')""");
+        }
+
+        assertEquals(LATEST_VERSION, SchemaMigrator.migrate());
+
+        assertEquals(List.of("Kamp", "Kamp (2)", "Škola", "Kamp (4)"), query("SELECT name FROM Programs ORDER BY id"));
+        try (Connection conn = DatabaseUtils.connectToDatabase(); Statement stmt = conn.createStatement()) {
+            SQLException e = assertThrows(SQLException.class, () -> stmt.execute(
+                    "INSERT INTO Programs (name, sponsor_id, daily_amount, start_date, end_date) VALUES ('Kamp', 1, 10, DATE '2025-01-01', DATE '2025-02-01')"));
+            assertEquals("23505", e.getSQLState());
+        }
+    }
+
+    private static void assertPlanUses(String sql, String index) throws Exception {
+        String plan = String.join("\n", query("EXPLAIN " + sql));
+        assertTrue(plan.toUpperCase().contains(index), () -> "Plan ne koristi " + index + ":\n" + plan);
+    }
+
+    private static List<String> query(String sql) throws Exception {
+        List<String> rows = new ArrayList<>();
+        try (Connection conn = DatabaseUtils.connectToDatabase();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) rows.add(rs.getString(1));
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.sponsorships.utils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Pomoćna klasa za testove koja usmjerava {@link ConnectionPool} na novu H2 bazu u memoriji.
+ */
+final class TestDatabase {
+
+    /** Privatni konstruktor da se spriječi instanciranje ove pomoćne klase. */
+    private TestDatabase() {}
+
+    /**
+     * Zapisuje <code>conf/database.properties</code> s novom, praznom bazom u memoriji i ponovno pokreće pool veza.
+     *
+     * @param name naziv baze, jedinstven za test
+     */
+    static void useFresh(String name) {
+        ConnectionPool.shutdown();
+        try {
+            Files.createDirectories(Path.of("conf"));
+            Files.writeString(Path.of("conf/database.properties"), """
+                    databaseURL=jdbc:h2:mem:%s;DB_CLOSE_DELAY=-1
+                    username=sa
+                    password=
+                    pool.maxSize=16
+                    """.formatted(name + "_" + System.nanoTime()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.sponsorships.utils;
+
+import com.example.sponsorships.records.ExtensionToken;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Properties;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenGeneratorTest {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    @Test
+    void signedTokenDescribesRequest() {
+        String token = TokenGenerator.generateExtensionToken(12, 345, 30);
+        ExtensionToken verified = TokenGenerator.verifyExtensionToken(token).orElseThrow();
+        assertEquals(new ExtensionToken(12, 345, 30, verified.expiresAt()), verified);
+        assertFalse(verified.isExpiredAt(Instant.now()));
+        assertTrue(verified.isExpiredAt(verified.expiresAt()));
+        assertFalse(TokenGenerator.isLegacyToken(token));
+    }
+
+    @Test
+    void forgedTokensAreRejected() {
+        String token = TokenGenerator.generateExtensionToken(12, 345, 30);
+        String other = TokenGenerator.generateExtensionToken(12, 346, 30);
+        int dot = token.indexOf('.');
+        byte[] payload = Base64.getUrlDecoder().decode(token.substring(0, dot));
+        payload[Long.BYTES + Integer.BYTES] ^= 1;
+        String tampered = ENCODER.encodeToString(payload) + token.substring(dot);
+
+        assertTrue(TokenGenerator.verifyExtensionToken(tampered).isEmpty());
+        assertTrue(TokenGenerator.verifyExtensionToken(token.substring(0, dot) + other.substring(other.indexOf('.'))).isEmpty());
+        assertTrue(TokenGenerator.verifyExtensionToken(token.substring(0, dot) + ".").isEmpty());
+        assertTrue(TokenGenerator.verifyExtensionToken(token.substring(0, dot) + ".!!").isEmpty());
+        assertTrue(TokenGenerator.verifyExtensionToken("nije.token").isEmpty());
+        assertTrue(TokenGenerator.verifyExtensionToken(null).isEmpty());
+    }
+
+    @Test
+    void expiredTokenKeepsValidSignatureButIsReportedExpired() throws Exception {
+        TokenGenerator.generateExtensionToken(1, 1, 1);
+        Instant expiresAt = Instant.now().minusSeconds(60);
+        String token = sign(ByteBuffer.allocate(3 * Long.BYTES + Integer.BYTES)
+                .putLong(7).putLong(8).putInt(9).putLong(expiresAt.getEpochSecond()).array());
+
+        ExtensionToken verified = TokenGenerator.verifyExtensionToken(token).orElseThrow();
+        assertEquals(8, verified.requestId());
+        assertTrue(verified.isExpiredAt(Instant.now()));
+    }
+
+    @Test
+    void legacyUuidTokensAreRecognisedButNotVerified() {
+        String legacy = UUID.randomUUID().toString();
+        assertTrue(TokenGenerator.isLegacyToken(legacy));
+        assertTrue(TokenGenerator.isLegacyToken(legacy.toUpperCase()));
+        assertTrue(TokenGenerator.verifyExtensionToken(legacy).isEmpty());
+        assertFalse(TokenGenerator.isLegacyToken("nije-uuid"));
+        assertFalse(TokenGenerator.isLegacyToken(null));
+    }
+
+    /**
+     * Potpisuje sadržaj ključem koji je {@link TokenGenerator} zapisao u <code>conf/token.properties</code>.
+     */
+    private static String sign(byte[] payload) throws IOException, GeneralSecurityException {
+        Properties settings = new Properties();
+        try (FileReader reader = new FileReader("conf/token.properties", StandardCharsets.UTF_8)) {
+            settings.load(reader);
+        }
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(Base64.getDecoder().decode(settings.getProperty("token.secret")), "HmacSHA256"));
+        return ENCODER.encodeToString(payload) + "." + ENCODER.encodeToString(mac.doFinal(payload));
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.sponsorships.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Mjeri propusnost provjere potpisanih tokena za produženje ({@link TokenGenerator#verifyExtensionToken(String)})
+ * za ispravne i krivotvorene tokene, u jednoj i u više dretvi, te za usporedbu trajanje traženja nepoznatog starog
+ * tokena u bazi sa 100 000 zahtjeva.
+ * Pokreće se samo profilom <code>benchmarks</code> ({@code mvn test -Pbenchmarks}).
+ */
+@Tag("benchmark")
+class TokenVerifyBenchmarkTest {
+
+    private static final int TOKENS = 1_000;
+    private static final int OPERATIONS = 1_000_000;
+    private static final int THREADS = Runtime.getRuntime().availableProcessors();
+    private static final int STORED_REQUESTS = 100_000;
+    private static final int LOOKUPS = 10_000;
+
+    @AfterEach
+    void closePool() {
+        ConnectionPool.shutdown();
+    }
+
+    @Test
+    void verifyPathThroughput() throws Exception {
+        List<String> valid = new ArrayList<>(TOKENS);
+        List<String> forged = new ArrayList<>(TOKENS);
+        for (int i = 0; i < TOKENS; i++) {
+            String token = TokenGenerator.generateExtensionToken(i, i, 7);
+            valid.add(token);
+            int dot = token.indexOf('.');
+            byte[] payload = Base64.getUrlDecoder().decode(token.substring(0, dot));
+            payload[Long.BYTES + 1] ^= 1;
+            forged.add(Base64.getUrlEncoder().withoutPadding().encodeToString(payload) + token.substring(dot));
+        }
+        verify(valid, OPERATIONS, true);
+        verify(forged, OPERATIONS, false);
+
+        double validNanos = verify(valid, OPERATIONS, true);
+        double forgedNanos = verify(forged, OPERATIONS, false);
+        double parallelOpsPerSecond = verifyInParallel(valid);
+        double lookupNanos = lookupUnknownLegacyTokens();
+
+        System.out.printf("%n%-36s %12s %14s%n", "provjera tokena", "ns/op", "op/s");
+        System.out.printf("%-36s %12.0f %14.0f%n", "ispravan token, 1 dretva", validNanos, 1e9 / validNanos);
+        System.out.printf("%-36s %12.0f %14.0f%n", "krivotvoren token, 1 dretva", forgedNanos, 1e9 / forgedNanos);
+        System.out.printf("%-36s %12s %14.0f%n", "ispravan token, " + THREADS + " dretvi", "-", parallelOpsPerSecond);
+        System.out.printf("%-36s %12.0f %14.0f%n", "stari token, upit u bazu", lookupNanos, 1e9 / lookupNanos);
+    }
+
+    /**
+     * Provjerava tokene redom i vraća prosječno trajanje jedne provjere u nanosekundama.
+     */
+    private static double verify(List<String> tokens, int operations, boolean expectValid) {
+        int accepted = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < operations; i++) {
+            if (TokenGenerator.verifyExtensionToken(tokens.get(i % tokens.size())).isPresent()) accepted++;
+        }
+        long elapsed = System.nanoTime() - start;
+        assertEquals(expectValid ? operations : 0, accepted);
+        return (double) elapsed / operations;
+    }
+
+    private static double verifyInParallel(List<String> tokens) throws Exception {
+        int perThread = OPERATIONS / THREADS;
+        List<Callable<Double>> tasks = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) tasks.add(() -> verify(tokens, perThread, true));
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            long start = System.nanoTime();
+            List<Future<Double>> results = executor.invokeAll(tasks);
+            for (Future<Double> result : results) result.get();
+            return (double) perThread * THREADS / ((System.nanoTime() - start) / 1e9);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Mjeri traženje nepostojećih starih tokena u bazi, kako se prije potpisanih tokena provjeravao svaki klik.
+     *
+     * @return prosječno trajanje jednog upita u nanosekundama
+     */
+    private static double lookupUnknownLegacyTokens() throws Exception {
+        TestDatabase.useFresh("tokens");
+        SchemaMigrator.migrate();
+        try (Connection conn = DatabaseUtils.connectToDatabase(); Statement stmt = conn.createStatement()) {
+            stmt.execute("INSERT INTO ProgramExtensionRequests (program_id, days_requested, status, token) "
+                    + "SELECT MOD(X, 1000), 7, 'PENDING', CAST(RANDOM_UUID() AS VARCHAR) FROM SYSTEM_RANGE(1, " + STORED_REQUESTS + ")");
+        }
+        for (int i = 0; i < LOOKUPS; i++) DatabaseUtils.findExtensionRequestId(UUID.randomUUID().toString());
+        long start = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            assertTrue(DatabaseUtils.findExtensionRequestId(UUID.randomUUID().toString()).isEmpty());
+        }
+        return (double) (System.nanoTime() - start) / LOOKUPS;
+    }
+}
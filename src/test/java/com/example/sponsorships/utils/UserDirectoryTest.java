@@ -0,0 +1,75 @@
+package com.example.sponsorships.utils;
+
+import com.example.sponsorships.records.UserAccount;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserDirectoryTest {
+
+    private static final int THREADS = 16;
+    private static final int USERNAMES = 200;
+    private static final int ATTEMPTS_PER_THREAD = 400;
+
+    @AfterAll
+    static void stopWatching() {
+        UserDirectory.shutdown();
+    }
+
+    @Test
+    void concurrentRegistrationsClaimEachUsernameExactlyOnce() throws Exception {
+        String prefix = "stress" + System.nanoTime() + "_";
+        int sizeBefore = UserDirectory.size();
+        AtomicInteger registered = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            tasks.add(() -> {
+                start.await();
+                for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    // Niti kreću s različitih mjesta, pa se ista imena registriraju istodobno iz više niti
+                    String username = prefix + (thread * 7 + i) % USERNAMES;
+                    if (UserDirectory.register(new UserAccount(username, "hash" + thread, false))) {
+                        registered.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Void>> results = new ArrayList<>();
+            for (Callable<Void> task : tasks) results.add(executor.submit(task));
+            start.countDown();
+            for (Future<Void> result : results) result.get();
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(USERNAMES, registered.get());
+        assertEquals(sizeBefore + USERNAMES, UserDirectory.size());
+        Path file = Path.of("files/users.txt");
+        long writtenLines = Files.readAllLines(file).stream().filter(line -> line.startsWith(prefix)).count();
+        assertEquals(USERNAMES, writtenLines);
+        Map<String, UserAccount> onDisk = UserDirectory.readAccounts(file);
+        for (int i = 0; i < USERNAMES; i++) {
+            String username = prefix + i;
+            assertEquals(onDisk.get(username), UserDirectory.find(username).orElseThrow());
+        }
+    }
+}